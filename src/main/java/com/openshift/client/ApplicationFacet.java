@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * The parts of an application that may be refreshed separately.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see IApplication#refresh(java.util.Set)
+ */
+public enum ApplicationFacet {
+
+	/** the standalone and the embedded cartridges */
+	CARTRIDGES,
+	/** the gear groups and their gears */
+	GEARS,
+	/** the forwardable ports, requires an ssh session */
+	PORTS,
+	/** the environment variables */
+	ENVIRONMENT_VARIABLES
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * Tells how {@link IBulkOperations} run an operation on several
+ * applications.
+ * 
+ * <pre>
+ * bulkOperations.restart(applications, new BulkOptions()
+ * 		.parallelism(4)
+ * 		.rollingWindow(20, 30 * 1000)
+ * 		.stopOnFailureRatio(0.2, 10));
+ * </pre>
+ * 
+ * @author Andre Dietisheim
+ */
+public class BulkOptions {
+
+	public static final int DEFAULT_PARALLELISM = 8;
+	public static final int NO_ROLLING_WINDOW = -1;
+	public static final double NO_FAILURE_RATIO = -1;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+	private int rollingWindow = NO_ROLLING_WINDOW;
+	private long rollingWindowDelay;
+	private double failureRatio = NO_FAILURE_RATIO;
+	private int minCompleted;
+
+	/**
+	 * Sets the maximum number of applications that are operated on at the
+	 * same time.
+	 */
+	public BulkOptions parallelism(int parallelism) {
+		Assert.isTrue(parallelism > 0);
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Operates on the applications in windows of the given size. A window is
+	 * only started once all applications in the previous window completed
+	 * and the given delay passed.
+	 * 
+	 * @param size
+	 *            the number of applications in a window
+	 * @param delay
+	 *            the delay (in millis) between 2 windows
+	 */
+	public BulkOptions rollingWindow(int size, long delay) {
+		Assert.isTrue(size > 0);
+		Assert.isTrue(delay >= 0);
+		this.rollingWindow = size;
+		this.rollingWindowDelay = delay;
+		return this;
+	}
+
+	/**
+	 * Stops starting operations once the ratio of failed operations exceeds
+	 * the given ratio. The ratio is only checked once the given minimum number
+	 * of operations completed. Operations that were started already are
+	 * completed, the remaining applications are skipped.
+	 * 
+	 * @param ratio
+	 *            the ratio (0 to 1) of failed operations
+	 * @param minCompleted
+	 *            the number of completed operations from which on the ratio is
+	 *            checked
+	 */
+	public BulkOptions stopOnFailureRatio(double ratio, int minCompleted) {
+		Assert.isTrue(ratio >= 0 && ratio <= 1);
+		this.failureRatio = ratio;
+		this.minCompleted = minCompleted;
+		return this;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public int getRollingWindow() {
+		return rollingWindow;
+	}
+
+	public long getRollingWindowDelay() {
+		return rollingWindowDelay;
+	}
+
+	public double getFailureRatio() {
+		return failureRatio;
+	}
+
+	public int getMinCompleted() {
+		return minCompleted;
+	}
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Reports a request that was not sent because the server failed too often
+ * recently.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see com.openshift.internal.client.CircuitBreaker
+ */
+public class CircuitOpenOpenShiftException extends OpenShiftEndpointException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CircuitOpenOpenShiftException(String url, String server) {
+		super(url, null, null, "Could not request {0}: server {1} is unavailable", url, server);
+	}
+}
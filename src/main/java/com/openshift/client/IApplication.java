@@ -14,6 +14,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Future;
 
 import com.jcraft.jsch.JSchException;
@@ -371,6 +372,18 @@ public interface IApplication extends IOpenShiftResource {
 	 */
 	public void refresh() throws OpenShiftException;
 
+	/**
+	 * Refreshes the given facets of this application. The facets are reloaded
+	 * from OpenShift concurrently. Facets that could be reloaded are updated
+	 * even if others failed.
+	 *
+	 * @param facets
+	 *            the facets to refresh
+	 * @throws OpenShiftException
+	 *             if any of the facets could not be refreshed
+	 */
+	public void refresh(Set<ApplicationFacet> facets) throws OpenShiftException;
+
 	/**
 	 * Sets the SSH session that this application will use to connect to
 	 * OpenShift to perform some operations. This SSH session must be
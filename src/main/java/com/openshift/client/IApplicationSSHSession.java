@@ -90,5 +90,84 @@ public interface IApplicationSSHSession {
 	 */
 	public boolean isPortFowardingStarted() throws OpenShiftSSHOperationException;
 
+	/**
+	 * Runs the given command on all gears of the application. The command
+	 * runs on the given number of gears at a time, each gear gets its ssh
+	 * session from the ssh session pool of the connection. The output of the
+	 * gears is handed to the callback on the calling thread as it arrives.
+	 *
+	 * @param command
+	 *            the command to run
+	 * @param parallelism
+	 *            the maximum number of gears that the command runs on at the
+	 *            same time
+	 * @param callback
+	 *            the callback that receives the output, may be
+	 *            <code>null</code>
+	 * @return the exit status of the command on each gear
+	 * @throws OpenShiftSSHOperationException
+	 *             if the connection has no ssh session pool
+	 */
+	public IGearExecResult execOnGears(String command, int parallelism, IGearExecCallback callback)
+			throws OpenShiftException;
+
+	/**
+	 * Runs the given command on the gears of the given gear group.
+	 *
+	 * @see #execOnGears(String, int, IGearExecCallback)
+	 */
+	public IGearExecResult execOnGears(String command, IGearGroup gearGroup, int parallelism,
+			IGearExecCallback callback) throws OpenShiftException;
+
+	/**
+	 * Runs the given command and streams its standard output line by line to
+	 * the given subscriber while the command is running. Each streamed command
+	 * runs in a channel of its own, a session may thus stream several commands
+	 * at the same time. The output is buffered up to the given number of
+	 * lines, the remote command is held back if the subscriber can't keep up.
+	 *
+	 * @param command
+	 *            the command to run
+	 * @param bufferSize
+	 *            the maximum number of lines that wait for the subscriber
+	 * @param subscriber
+	 *            the subscriber that receives the output
+	 * @return the streamed command that may be cancelled
+	 * @throws OpenShiftSSHOperationException
+	 *             if the command could not be run
+	 */
+	public IStreamingExec execStreaming(String command, int bufferSize, IStreamSubscriber<String> subscriber)
+			throws OpenShiftSSHOperationException;
+
+	/**
+	 * Runs the given command and streams its standard output in chunks of
+	 * bytes as they arrive.
+	 *
+	 * @see #execStreaming(String, int, IStreamSubscriber)
+	 */
+	public IStreamingExec execStreamingChunks(String command, int bufferSize, IStreamSubscriber<byte[]> subscriber)
+			throws OpenShiftSSHOperationException;
+
+	/**
+	 * Follows the given files and streams the lines that are appended to them.
+	 * The command runs until it is cancelled.
+	 *
+	 * @param files
+	 *            the path of the files to tail, may contain the wildcards *
+	 *            and ? (ex. <code>app-root/logs/*</code>). All other
+	 *            characters are taken literally
+	 * @param lines
+	 *            the number of existing lines to stream first
+	 * @param subscriber
+	 *            the subscriber that receives the lines
+	 * @return the tail that may be cancelled
+	 * @throws OpenShiftSSHOperationException
+	 *             if the files could not be tailed
+	 *
+	 * @see #execStreaming(String, int, IStreamSubscriber)
+	 */
+	public IStreamingExec tailFiles(String files, int lines, IStreamSubscriber<String> subscriber)
+			throws OpenShiftSSHOperationException;
+
 
 }
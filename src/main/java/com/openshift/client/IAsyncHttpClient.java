@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.net.URL;
+import java.util.concurrent.Future;
+
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+
+/**
+ * A http client that does not block the calling thread. Requests return
+ * immediately with a future that holds the response once it arrived.
+ * Failures are reported as {@link java.util.concurrent.ExecutionException}
+ * whose cause is the exception that the blocking {@link IHttpClient} would
+ * have thrown. Implementations are free to dispatch to a blocking client, the
+ * requests in flight then occupy a thread each.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see IHttpClient
+ */
+public interface IAsyncHttpClient {
+
+	public Future<String> get(URL url, int timeout);
+
+	public Future<String> head(URL url, int timeout);
+
+	public Future<String> post(URL url, IMediaType mediaType, int timeout, Parameter... parameters);
+
+	public Future<String> put(URL url, IMediaType mediaType, int timeout, Parameter... parameters);
+
+	public Future<String> patch(URL url, IMediaType mediaType, int timeout, Parameter... parameters);
+
+	public Future<String> delete(URL url, IMediaType mediaType, int timeout, Parameter... parameters);
+
+	public Future<String> delete(URL url, int timeout);
+
+	/**
+	 * Requests the given url with the given http method and notifies the given
+	 * callback once the response arrived or the request failed.
+	 *
+	 * @param httpMethod
+	 *            the http method to use
+	 * @param url
+	 *            the url to request
+	 * @param mediaType
+	 *            the media type to encode the parameters with
+	 * @param timeout
+	 *            the timeout in millis (or {@link IHttpClient#NO_TIMEOUT})
+	 * @param callback
+	 *            the callback to notify, may be <code>null</code>
+	 * @param parameters
+	 *            the body parameters
+	 * @return the future response
+	 */
+	public Future<String> request(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			IHttpCallback callback, Parameter... parameters);
+
+	/**
+	 * Returns the blocking client that this async client is dispatching to.
+	 */
+	public IHttpClient getClient();
+
+	public interface IHttpCallback {
+
+		public void completed(String response);
+
+		public void failed(Exception e);
+	}
+}
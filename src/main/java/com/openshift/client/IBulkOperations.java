@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.Collection;
+
+/**
+ * Runs an operation on several applications concurrently. The operations are
+ * run on the executor of the connection. Failing applications do not stop
+ * the others, the outcome of each application is reported in the result.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IOpenShiftConnection#getBulkOperations()
+ * @see BulkOptions
+ */
+public interface IBulkOperations {
+
+	/**
+	 * @see IApplication#start()
+	 */
+	public IBulkResult start(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException;
+
+	/**
+	 * @see IApplication#stop(boolean)
+	 */
+	public IBulkResult stop(Collection<IApplication> applications, boolean force, BulkOptions options)
+			throws OpenShiftException;
+
+	/**
+	 * @see IApplication#restart()
+	 */
+	public IBulkResult restart(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException;
+
+	/**
+	 * @see IApplication#scaleUp()
+	 */
+	public IBulkResult scaleUp(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException;
+
+	/**
+	 * @see IApplication#scaleDown()
+	 */
+	public IBulkResult scaleDown(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException;
+
+	/**
+	 * @see IApplication#destroy()
+	 */
+	public IBulkResult destroy(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException;
+}
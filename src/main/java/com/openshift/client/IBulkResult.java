@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of a bulk operation for each application.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IBulkOperations
+ */
+public interface IBulkResult {
+
+	/**
+	 * Returns the applications that the operation succeeded for.
+	 */
+	public List<IApplication> getSucceeded();
+
+	/**
+	 * Returns the applications that the operation failed for along with their
+	 * failures.
+	 */
+	public Map<IApplication, OpenShiftException> getFailed();
+
+	/**
+	 * Returns the applications that were skipped because the bulk operation
+	 * was stopped.
+	 * 
+	 * @see BulkOptions#stopOnFailureRatio(double, int)
+	 */
+	public List<IApplication> getSkipped();
+
+	/**
+	 * Returns <code>true</code> if the operation succeeded for all
+	 * applications.
+	 */
+	public boolean isSuccessful();
+
+	/**
+	 * Returns <code>true</code> if the bulk operation was stopped because too
+	 * many operations failed.
+	 */
+	public boolean isStopped();
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.Map;
+
+/**
+ * Provides the headers that requests are authorized with. The http client
+ * asks for them on each request, implementations should therefore return
+ * headers that they prepared in advance and not block. Providers for
+ * expiring credentials (ex. tokens) should refresh them in the background
+ * and swap the headers once they're ready.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see com.openshift.internal.client.httpclient.BasicCredentialsProvider
+ * @see com.openshift.internal.client.httpclient.TokenCredentialsProvider
+ */
+public interface ICredentialsProvider {
+
+	/**
+	 * Returns the headers (name and value) that authorize a request.
+	 * 
+	 * @return the authorization headers, an empty map if there are none
+	 */
+	public Map<String, String> getHeaders();
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.List;
+
+/**
+ * A callback that receives the applications of a domain once they were
+ * loaded.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see IUser#getAllApplications(IDomainApplicationsCallback)
+ */
+public interface IDomainApplicationsCallback {
+
+	/**
+	 * @param domain
+	 *            the domain whose applications were loaded
+	 * @param applications
+	 *            the applications in the domain
+	 */
+	public void received(IDomain domain, List<IApplication> applications);
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A callback that receives the output of a command that runs on several
+ * gears. It is called on the thread that runs the command, the output of the
+ * gears is therefore never received concurrently.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IApplicationSSHSession#execOnGears(String, int, IGearExecCallback)
+ */
+public interface IGearExecCallback {
+
+	/**
+	 * Called for each line of the standard output of the command on a gear.
+	 */
+	public void output(IGear gear, String line);
+
+	/**
+	 * Called once the command completed on a gear.
+	 * 
+	 * @param gear
+	 *            the gear that the command ran on
+	 * @param exitStatus
+	 *            the exit status of the command, -1 if it's unknown
+	 * @param errorOutput
+	 *            the error output of the command
+	 */
+	public void completed(IGear gear, int exitStatus, String errorOutput);
+
+	/**
+	 * Called if the command could not be run on a gear (ex. no ssh session
+	 * could be opened).
+	 */
+	public void failed(IGear gear, OpenShiftException e);
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.util.Map;
+
+/**
+ * The outcome of a command that ran on several gears.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IGearExecCallback
+ */
+public interface IGearExecResult {
+
+	/**
+	 * Returns the exit status of the command on each gear that it completed
+	 * on.
+	 */
+	public Map<IGear, Integer> getExitStatus();
+
+	/**
+	 * Returns the gears that the command could not be run on along with the
+	 * failures.
+	 */
+	public Map<IGear, OpenShiftException> getFailed();
+
+	/**
+	 * Returns <code>true</code> if the command exited with 0 on all gears.
+	 */
+	public boolean isSuccessful();
+}
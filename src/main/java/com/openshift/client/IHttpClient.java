@@ -34,6 +34,12 @@ public interface IHttpClient {
 	public static final String PROPERTY_AUTHORIZATION = "Authorization";
 	public static final String PROPERTY_ACCEPT = "Accept";
 	public static final String PROPERTY_USER_AGENT = "User-Agent";
+	public static final String PROPERTY_ACCEPT_ENCODING = "Accept-Encoding";
+	public static final String PROPERTY_CONTENT_ENCODING = "Content-Encoding";
+	public static final String PROPERTY_ETAG = "ETag";
+	public static final String PROPERTY_LAST_MODIFIED = "Last-Modified";
+	public static final String PROPERTY_IF_NONE_MATCH = "If-None-Match";
+	public static final String PROPERTY_IF_MODIFIED_SINCE = "If-Modified-Since";
 	
 	public static final String PROPERTY_AUTHKEY = "broker_auth_key";
 	public static final String PROPERTY_AUTHIV = "broker_auth_iv";
@@ -43,8 +49,13 @@ public interface IHttpClient {
 	public static final String MEDIATYPE_APPLICATION_FORMURLENCODED = "application/x-www-form-urlencoded";
 
 	public static final String AUTHORIZATION_BASIC = "Basic";
+	public static final String AUTHORIZATION_BEARER = "Bearer";
+
+	public static final String ENCODING_GZIP = "gzip";
+	public static final String ENCODING_DEFLATE = "deflate";
 
 	public static final int STATUS_OK = 200;
+	public static final int STATUS_NOT_MODIFIED = 304;
 	public static final int STATUS_INTERNAL_SERVER_ERROR = 500;
 	public static final int STATUS_BAD_REQUEST = 400;
 	public static final int STATUS_UNAUTHORIZED = 401;
@@ -117,9 +117,34 @@ public interface IOpenShiftConnection {
 	@Deprecated
 	public void setProxyPort(String proxyPort);
 
+	/**
+	 * Loads the given parts of the resource graph (user, domains,
+	 * applications, cartridges etc.) concurrently on the executor of this
+	 * connection. Parts that depend on each other (ex. the applications of a
+	 * domain) are loaded once their parent is loaded, independent parts are
+	 * loaded at the same time. Returns once all parts are loaded.
+	 * 
+	 * @param spec
+	 *            the parts to load
+	 * @throws OpenShiftException
+	 *             if a part could not be loaded
+	 * 
+	 * @see #getExecutorService()
+	 */
+	public void prefetch(PrefetchSpec spec) throws OpenShiftException;
+
+	/**
+	 * Returns the operations that start, stop, restart, scale or destroy
+	 * several applications concurrently on the executor of this connection.
+	 * 
+	 * @see #getExecutorService()
+	 */
+	public IBulkOperations getBulkOperations();
+
 	/**
 	 * Returns the executor service instance that's available in this
-	 * connection.
+	 * connection. It may be shared with other connections and must therefore
+	 * not be shut down.
 	 * 
 	 * @return the executor service instance for this connection
 	 * 
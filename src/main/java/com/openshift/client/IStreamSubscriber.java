@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A subscriber that receives the output of a remote command while the
+ * command is running. It is called on a thread of its own, the output is
+ * therefore never received concurrently. A subscriber that is slow holds back
+ * the remote command once the buffer of the stream is full.
+ * 
+ * @param <T>
+ *            the type of output (lines or chunks of bytes)
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IApplicationSSHSession#execStreaming(String, int, IStreamSubscriber)
+ */
+public interface IStreamSubscriber<T> {
+
+	/**
+	 * Called for each line or chunk of the standard output of the command.
+	 */
+	public void received(T output);
+
+	/**
+	 * Called once the command completed and all of its output was received.
+	 * 
+	 * @param exitStatus
+	 *            the exit status of the command, -1 if it's unknown
+	 */
+	public void completed(int exitStatus);
+
+	/**
+	 * Called if the output of the command could not be read.
+	 */
+	public void failed(OpenShiftException e);
+}
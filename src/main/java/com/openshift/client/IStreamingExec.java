@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A remote command whose output is streamed to a subscriber.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see IStreamSubscriber
+ */
+public interface IStreamingExec {
+
+	/**
+	 * Stops the command. The subscriber receives no output once the call
+	 * that it's currently in (if any) returned and it gets notified of
+	 * neither completion nor failure.
+	 */
+	public void cancel();
+
+	public boolean isCancelled();
+
+	/**
+	 * Returns <code>true</code> if the command completed, failed or was
+	 * cancelled.
+	 */
+	public boolean isDone();
+
+	/**
+	 * Waits for the command to be done.
+	 * 
+	 * @param timeout
+	 *            the maximum time to wait in millis
+	 * @return <code>true</code> if the command is done, <code>false</code> if
+	 *         the timeout elapsed
+	 * @throws InterruptedException
+	 */
+	public boolean waitFor(long timeout) throws InterruptedException;
+
+	/**
+	 * Returns the exit status of the command or -1 if it's not known (yet).
+	 */
+	public int getExitStatus();
+}
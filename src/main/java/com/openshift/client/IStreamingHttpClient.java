@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+
+import com.openshift.internal.client.httpclient.EncodingException;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+
+/**
+ * A http client that hands the response body to a reader while it is
+ * received instead of returning it as a string. This spares the copies that
+ * buffering the response in a string requires.
+ * 
+ * @author Andre Dietisheim
+ */
+public interface IStreamingHttpClient extends IHttpClient {
+
+	/**
+	 * Requests the given url and passes the response body to the given
+	 * reader. The stream is only valid while the reader is reading it, the
+	 * connection is released once the reader returns.
+	 * 
+	 * @param httpMethod
+	 *            the http method to use
+	 * @param url
+	 *            the url to request
+	 * @param mediaType
+	 *            the media type to encode the parameters with
+	 * @param timeout
+	 *            the timeout in millis (or {@link IHttpClient#NO_TIMEOUT})
+	 * @param reader
+	 *            the reader that consumes the response body
+	 * @param parameters
+	 *            the body parameters
+	 * @return what the reader returned
+	 */
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			IResponseReader<T> reader, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException;
+
+	/**
+	 * Requests the given url with the given additional request headers and
+	 * passes the response (status, headers and body) to the given reader.
+	 * Other than {@link #request(HttpMethod, URL, IMediaType, int, IResponseReader, Parameter...)}
+	 * this allows conditional requests: a <code>304 Not Modified</code> is
+	 * handed to the reader and not reported as an error.
+	 * 
+	 * @param headers
+	 *            the additional request headers, may be <code>null</code>
+	 * @param reader
+	 *            the reader that consumes the response
+	 * 
+	 * @see #request(HttpMethod, URL, IMediaType, int, IResponseReader,
+	 *      Parameter...)
+	 */
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Map<String, String> headers, IHttpResponseReader<T> reader, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException;
+
+	public interface IResponseReader<T> {
+
+		public T read(InputStream inputStream) throws IOException;
+	}
+
+	public interface IHttpResponseReader<T> {
+
+		public T read(IHttpResponse response) throws IOException;
+	}
+
+	/**
+	 * A response that's only valid while it is read.
+	 */
+	public interface IHttpResponse {
+
+		public int getStatus() throws IOException;
+
+		/**
+		 * Returns the value of the given response header or <code>null</code>
+		 * if it is not present.
+		 */
+		public String getHeader(String name);
+
+		public InputStream getInputStream() throws IOException;
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * A listener that gets notified of the progress of an upload to an
+ * application (ex. a snapshot that is restored).
+ * 
+ * @author Andre Dietisheim
+ */
+public interface IUploadListener {
+
+	/**
+	 * Called while the upload is running.
+	 * 
+	 * @param bytesSent
+	 *            the number of bytes that were sent so far
+	 * @param bytesPerSecond
+	 *            the average rate of the upload so far
+	 */
+	public void progressed(long bytesSent, long bytesPerSecond);
+
+	/**
+	 * Called once all bytes were sent.
+	 * 
+	 * @param bytesSent
+	 *            the number of bytes that were sent
+	 * @param duration
+	 *            the duration of the upload in millis
+	 */
+	public void completed(long bytesSent, long duration);
+}
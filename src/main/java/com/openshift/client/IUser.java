@@ -40,6 +40,27 @@ public interface IUser extends IOpenShiftResource {
 
 	public boolean hasDomain(String id) throws OpenShiftException;
 
+	/**
+	 * Returns the applications in all domains of this user. The applications
+	 * of the domains are loaded concurrently and returned in the order of the
+	 * domains.
+	 *
+	 * @return the applications in all domains
+	 * @throws OpenShiftException
+	 */
+	public List<IApplication> getAllApplications() throws OpenShiftException;
+
+	/**
+	 * Loads the applications in all domains of this user concurrently and
+	 * hands the applications of each domain to the given callback as soon as
+	 * they arrive. The callback is called on the calling thread.
+	 *
+	 * @param callback
+	 *            the callback that receives the applications of each domain
+	 * @throws OpenShiftException
+	 */
+	public void getAllApplications(IDomainApplicationsCallback callback) throws OpenShiftException;
+
 	public List<IOpenShiftSSHKey> getSSHKeys() throws OpenShiftException;
 
 	/**
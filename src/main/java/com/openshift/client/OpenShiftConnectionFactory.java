@@ -12,17 +12,30 @@ package com.openshift.client;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.openshift.client.IHttpClient.ISSLCertificateCallback;
 import com.openshift.client.configuration.IOpenShiftConfiguration;
 import com.openshift.client.configuration.OpenShiftConfiguration;
+import com.openshift.internal.client.APIResource;
 import com.openshift.internal.client.AbstractOpenShiftConnectionFactory;
-import com.openshift.internal.client.IRestService;
+import com.openshift.internal.client.CircuitBreaker;
+import com.openshift.internal.client.ConnectionCache;
+import com.openshift.internal.client.HedgingPolicy;
+import com.openshift.internal.client.IRateLimiter;
+import com.openshift.internal.client.RestResponseCache;
 import com.openshift.internal.client.RestService;
+import com.openshift.internal.client.RetryPolicy;
+import com.openshift.internal.client.TokenBucketRateLimiter;
 import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+import com.openshift.internal.client.ssh.SSHSessionPool;
 import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorUtils;
 
 /**
  * Connection Factory, used to establish a connection and retrieve a user.
@@ -33,7 +46,181 @@ import com.openshift.internal.client.utils.Assert;
  * 
  */
 public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFactory {
-	private IOpenShiftConfiguration configuration = null;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OpenShiftConnectionFactory.class);
+
+	private volatile IOpenShiftConfiguration configuration = null;
+	private final Object configurationLock = new Object();
+	private boolean compression = false;
+	private long responseCacheSize = 0;
+	private boolean coalesceRequests = false;
+	private RetryPolicy retryPolicy = null;
+	private CircuitBreaker circuitBreaker = null;
+	private IRateLimiter rateLimiter = null;
+	private HedgingPolicy hedgingPolicy = null;
+	private ExecutorService executorService = null;
+	private ConnectionCache connectionCache = null;
+	private SSHSessionPool sshSessionPool = null;
+
+	/**
+	 * Asks the server for compressed (gzip or deflate) responses if
+	 * <code>true</code>. Large responses like the cartridge list shrink
+	 * considerably.
+	 * 
+	 * @param compression
+	 *            whether compressed responses are accepted
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Keeps the responses to GET requests in a cache of the given size (in
+	 * bytes) for each connection that this factory creates. GETs are then
+	 * sent conditionally and unchanged responses are served from the cache.
+	 * Responses are not cached if the size is <code>0</code>.
+	 * 
+	 * @param responseCacheSize
+	 *            the maximum size of the cache per connection
+	 * 
+	 * @see RestResponseCache
+	 */
+	public void setResponseCacheSize(long responseCacheSize) {
+		this.responseCacheSize = responseCacheSize;
+	}
+
+	/**
+	 * Retries failed requests of the connections that this factory creates
+	 * with the given policy. Failed requests are not retried if no policy is
+	 * set.
+	 * 
+	 * @param retryPolicy
+	 *            the policy to use or <code>null</code>
+	 * 
+	 * @see RetryPolicy
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Lets the connections that this factory creates for the same server,
+	 * client id, login, credentials and ssl certificate callback share their
+	 * http client and api links through the given cache. Each connection still
+	 * gets its own user, domains etc.
+	 * 
+	 * @param connectionCache
+	 *            the cache to use or <code>null</code>
+	 * 
+	 * @see ConnectionCache
+	 */
+	public void setConnectionCache(ConnectionCache connectionCache) {
+		this.connectionCache = connectionCache;
+	}
+
+	/**
+	 * Sets the executor that the connections which this factory creates run
+	 * their asynchronous operations on (ex.
+	 * {@link IApplication#waitForAccessibleAsync(long)}). The connections
+	 * share the executor and don't shut it down when they disconnect. A
+	 * shared pool of daemon threads is used if none is set.
+	 * 
+	 * @param executorService
+	 *            the executor to use or <code>null</code> for the shared pool
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+
+	/**
+	 * Lets the connections that this factory creates run their asynchronous
+	 * operations in virtual threads (one per task) if the jvm supports them
+	 * (java 21 and later). The shared pool is used otherwise.
+	 * 
+	 * @param useVirtualThreads
+	 *            whether virtual threads are used
+	 * 
+	 * @see #setExecutorService(ExecutorService)
+	 */
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		if (!useVirtualThreads) {
+			this.executorService = null;
+		} else if (ExecutorUtils.isVirtualThreadsSupported()) {
+			this.executorService = ExecutorUtils.newVirtualThreadPerTaskExecutor();
+		} else {
+			LOGGER.warn("Virtual threads are not supported by java {}, using the shared thread pool",
+					System.getProperty("java.version"));
+			this.executorService = null;
+		}
+	}
+
+	/**
+	 * Lets the read-only requests of the connections that this factory
+	 * creates be hedged with the given policy.
+	 * 
+	 * @param hedgingPolicy
+	 *            the policy to use or <code>null</code>
+	 * 
+	 * @see HedgingPolicy
+	 */
+	public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+		this.hedgingPolicy = hedgingPolicy;
+	}
+
+	/**
+	 * Lets the requests of the connections that this factory creates get a
+	 * permit from the given rate limiter. Connections share the budgets of
+	 * the limiter.
+	 * 
+	 * @param rateLimiter
+	 *            the limiter to use or <code>null</code>
+	 * 
+	 * @see TokenBucketRateLimiter
+	 */
+	public void setRateLimiter(IRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Lets the requests of the connections that this factory creates pass the
+	 * given circuit breaker. Connections to the same server share the state
+	 * of the breaker.
+	 * 
+	 * @param circuitBreaker
+	 *            the breaker to use or <code>null</code>
+	 * 
+	 * @see CircuitBreaker
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * Lets the applications of the connections that this factory creates get
+	 * their ssh sessions from the given pool. Applications with the same ssh
+	 * url share a session.
+	 * 
+	 * @param sshSessionPool
+	 *            the pool to use or <code>null</code>
+	 * 
+	 * @see SSHSessionPool
+	 */
+	public void setSSHSessionPool(SSHSessionPool sshSessionPool) {
+		this.sshSessionPool = sshSessionPool;
+	}
+
+	/**
+	 * Lets concurrent identical GET requests of a connection share a single
+	 * request to the server if <code>true</code>.
+	 * 
+	 * @param coalesceRequests
+	 *            whether concurrent identical GETs are coalesced
+	 * 
+	 * @see RestService#setCoalesceRequests(boolean)
+	 */
+	public void setCoalesceRequests(boolean coalesceRequests) {
+		this.coalesceRequests = coalesceRequests;
+	}
 	/**
 	 * Establish a connection with the clientId along with user's password.
 	 * User's login and Server URL are retrieved from the local configuration
@@ -49,11 +236,7 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 	 * @throws OpenShiftException
 	 */
 	public IOpenShiftConnection getConnection(final String clientId, final String password) throws OpenShiftException {
-		try {
-			configuration = new OpenShiftConfiguration();
-		} catch (IOException e) {
-			throw new OpenShiftException(e, "Failed to load OpenShift configuration file.");
-		}
+		IOpenShiftConfiguration configuration = getConfiguration();
 		return getConnection(clientId, configuration.getRhlogin(), password, configuration.getLibraServer());
 	}
 
@@ -75,12 +258,7 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 	 */
 	public IOpenShiftConnection getConnection(final String clientId, final String username, final String password)
 			throws OpenShiftException {
-		try {
-			configuration = new OpenShiftConfiguration();
-		} catch (IOException e) {
-			throw new OpenShiftException(e, "Failed to load OpenShift configuration file.");
-		}
-		return getConnection(clientId, username, password, configuration.getLibraServer());
+		return getConnection(clientId, username, password, getConfiguration().getLibraServer());
 	}
 
 	/**
@@ -135,40 +313,126 @@ public class OpenShiftConnectionFactory extends AbstractOpenShiftConnectionFacto
 	public IOpenShiftConnection getConnection(final String clientId, final String username, final String password,
 		final String authKey, final String authIV, final String serverUrl,
 		final ISSLCertificateCallback sslCertificateCallback) throws OpenShiftException {
-		if (configuration == null) {
-			try {
-				configuration = new OpenShiftConfiguration();
-			} catch (IOException e) {
-				throw new OpenShiftException(e, "Failed to load OpenShift configuration file.");
-			}
-		}
+		IOpenShiftConfiguration configuration = getConfiguration();
 
 		Assert.notNull(clientId);
 		Assert.notNull(username);
 		Assert.notNull(password);
 		Assert.notNull(serverUrl);
 
+		String cacheKey = createCacheKey(serverUrl, clientId, username, password, authKey, authIV);
+		IOpenShiftConnection connection =
+				getCachedConnection(cacheKey, sslCertificateCallback, username, password);
+		if (connection != null) {
+			return setSSHSessionPool(connection);
+		}
 		try {
 			IHttpClient httpClient =
 					new UrlConnectionHttpClientBuilder()
 						.setCredentials(username, password, authKey, authIV)
 						.setSSLCertificateCallback(sslCertificateCallback)
 						.setConfigTimeout(configuration.getTimeout())
+						.setCompression(compression)
 						.client();
-			return getConnection(clientId, username, password, serverUrl, httpClient);
+			return createConnection(clientId, username, password, serverUrl, httpClient,
+					cacheKey, sslCertificateCallback);
 		} catch (IOException e) {
 			throw new OpenShiftException(e, "Failed to establish connection for user ''{0}}''", username);
 		}
 	}
 
+	/**
+	 * Returns the local configuration. It is loaded once, when a connection is
+	 * first requested, and shared by all connections of this factory.
+	 */
+	protected IOpenShiftConfiguration getConfiguration() throws OpenShiftException {
+		IOpenShiftConfiguration configuration = this.configuration;
+		if (configuration == null) {
+			synchronized (configurationLock) {
+				configuration = this.configuration;
+				if (configuration == null) {
+					this.configuration = configuration = createConfiguration();
+				}
+			}
+		}
+		return configuration;
+	}
+
+	protected IOpenShiftConfiguration createConfiguration() throws OpenShiftException {
+		try {
+			return new OpenShiftConfiguration();
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Failed to load OpenShift configuration file.");
+		}
+	}
+
 	protected IOpenShiftConnection getConnection(final String clientId, final String username, final String password,
 			final String serverUrl, IHttpClient httpClient) throws OpenShiftException, IOException {
+		String cacheKey = createCacheKey(serverUrl, clientId, username, password, null, null);
+		IOpenShiftConnection connection = getCachedConnection(cacheKey, httpClient, username, password);
+		if (connection != null) {
+			return setSSHSessionPool(connection);
+		}
+		return createConnection(clientId, username, password, serverUrl, httpClient, cacheKey, httpClient);
+	}
+
+	/**
+	 * @param transport
+	 *            the ssl certificate callback or http client that the cached
+	 *            connection has to match
+	 */
+	private IOpenShiftConnection createConnection(final String clientId, final String username,
+			final String password, final String serverUrl, IHttpClient httpClient, String cacheKey,
+			Object transport) throws OpenShiftException, IOException {
 		Assert.notNull(clientId);
 		Assert.notNull(serverUrl);
 		Assert.notNull(httpClient);
 
-		IRestService service = new RestService(serverUrl, clientId, new JsonMediaType(),
+		RestService service = new RestService(serverUrl, clientId, new JsonMediaType(),
 				IHttpClient.MEDIATYPE_APPLICATION_JSON, new OpenShiftJsonDTOFactory(), httpClient);
-		return getConnection(service, username, password);
+		if (responseCacheSize > 0) {
+			service.setResponseCache(new RestResponseCache(responseCacheSize));
+		}
+		service.setCoalesceRequests(coalesceRequests);
+		service.setRetryPolicy(retryPolicy);
+		service.setCircuitBreaker(circuitBreaker);
+		service.setRateLimiter(rateLimiter);
+		service.setHedgingPolicy(hedgingPolicy);
+		if (cacheKey != null) {
+			return setSSHSessionPool(
+					getConnection(service, username, password, getExecutorService(), connectionCache, cacheKey,
+							transport));
+		}
+		return setSSHSessionPool(getConnection(service, username, password, getExecutorService()));
+	}
+
+	private IOpenShiftConnection setSSHSessionPool(IOpenShiftConnection connection) {
+		if (connection instanceof APIResource) {
+			((APIResource) connection).setSSHSessionPool(sshSessionPool);
+		}
+		return connection;
+	}
+
+	private String createCacheKey(String serverUrl, String clientId, String username, String password,
+			String authKey, String authIV) {
+		if (connectionCache == null) {
+			return null;
+		}
+		return ConnectionCache.createKey(serverUrl, clientId, username, password, authKey, authIV);
+	}
+
+	private IOpenShiftConnection getCachedConnection(String cacheKey, Object transport, String username,
+			String password) {
+		if (cacheKey == null) {
+			return null;
+		}
+		return getCachedConnection(connectionCache, cacheKey, transport, username, password, getExecutorService());
+	}
+
+	private ExecutorService getExecutorService() {
+		if (executorService == null) {
+			return ExecutorUtils.getSharedExecutor();
+		}
+		return executorService;
 	}
 }
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Tells which parts of the resource graph
+ * {@link IOpenShiftConnection#prefetch(PrefetchSpec)} shall load.
+ * 
+ * <pre>
+ * connection.prefetch(new PrefetchSpec().user().applications().cartridges());
+ * </pre>
+ * 
+ * @author Andre Dietisheim
+ */
+public class PrefetchSpec {
+
+	private boolean user;
+	private boolean domains;
+	private boolean applications;
+	private boolean embeddedCartridges;
+	private boolean cartridges;
+	private boolean quickstarts;
+
+	/**
+	 * Returns a spec that loads all parts of the resource graph.
+	 */
+	public static PrefetchSpec all() {
+		return new PrefetchSpec()
+				.user()
+				.embeddedCartridges()
+				.cartridges()
+				.quickstarts();
+	}
+
+	/**
+	 * Loads the user.
+	 */
+	public PrefetchSpec user() {
+		this.user = true;
+		return this;
+	}
+
+	/**
+	 * Loads the domains.
+	 */
+	public PrefetchSpec domains() {
+		this.domains = true;
+		return this;
+	}
+
+	/**
+	 * Loads the applications of all domains (and thus the domains).
+	 */
+	public PrefetchSpec applications() {
+		this.applications = true;
+		return domains();
+	}
+
+	/**
+	 * Loads the embedded cartridges of all applications (and thus the
+	 * applications and domains).
+	 */
+	public PrefetchSpec embeddedCartridges() {
+		this.embeddedCartridges = true;
+		return applications();
+	}
+
+	/**
+	 * Loads the standalone and embeddable cartridges that are available on
+	 * the server.
+	 */
+	public PrefetchSpec cartridges() {
+		this.cartridges = true;
+		return this;
+	}
+
+	/**
+	 * Loads the quickstarts that are available on the server.
+	 */
+	public PrefetchSpec quickstarts() {
+		this.quickstarts = true;
+		return this;
+	}
+
+	public boolean isUser() {
+		return user;
+	}
+
+	public boolean isDomains() {
+		return domains;
+	}
+
+	public boolean isApplications() {
+		return applications;
+	}
+
+	public boolean isEmbeddedCartridges() {
+		return embeddedCartridges;
+	}
+
+	public boolean isCartridges() {
+		return cartridges;
+	}
+
+	public boolean isQuickstarts() {
+		return quickstarts;
+	}
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client;
+
+/**
+ * Reports a request that was not sent because the client-side rate limit did
+ * not allow it within the maximum wait time.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see com.openshift.internal.client.TokenBucketRateLimiter
+ */
+public class RateLimitedOpenShiftException extends OpenShiftTimeoutException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RateLimitedOpenShiftException(String url, long maxWait) {
+		super(url, null, "Could not request {0}: rate limit not available within {1} ms", url, maxWait);
+	}
+}
@@ -13,17 +13,26 @@ package com.openshift.internal.client;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.openshift.client.IApplication;
+import com.openshift.client.IBulkOperations;
 import com.openshift.client.IDomain;
+import com.openshift.client.IDomainApplicationsCallback;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.IQuickstart;
 import com.openshift.client.IUser;
 import com.openshift.client.OpenShiftException;
+import com.openshift.client.PrefetchSpec;
 import com.openshift.client.cartridge.EmbeddableCartridge;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
@@ -32,13 +41,17 @@ import com.openshift.client.cartridge.StandaloneCartridge;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
 import com.openshift.internal.client.response.CartridgeResourceDTO;
+import com.openshift.internal.client.response.DataListJsonDTOFactory;
 import com.openshift.internal.client.response.DomainResourceDTO;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.QuickstartDTO;
 import com.openshift.internal.client.response.QuickstartJsonDTOFactory;
 import com.openshift.internal.client.response.UserResourceDTO;
+import com.openshift.internal.client.ssh.SSHSessionPool;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.CollectionUtils;
+import com.openshift.internal.client.utils.ExecutorUtils;
+import com.openshift.internal.client.utils.ReentrantExecutorService;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
 
 /**
@@ -60,14 +73,34 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	private List<IStandaloneCartridge> standaloneCartridges;
 	private List<IEmbeddableCartridge> embeddableCartridges;
 	private Map<String, IQuickstart> quickstartsByName;
+	// separate locks so that prefetching loads the parts concurrently
+	private final Object userLock = new Object();
+	private final Object domainsLock = new Object();
+	private final Object cartridgesLock = new Object();
+	private final Object quickstartsLock = new Object();
 	private final ExecutorService executorService;
+	// runs tasks that are nested in pool tasks on the calling thread
+	private final ExecutorService taskExecutor;
+	private volatile SSHSessionPool sshSessionPool;
 	
 	protected APIResource(final String login, final String password, final IRestService service,
 			final Map<String, Link> links) {
+		this(login, password, service, links, ExecutorUtils.getSharedExecutor());
+	}
+
+	/**
+	 * Creates a connection that runs its asynchronous operations on the given
+	 * executor. The executor may be shared with other connections, it is not
+	 * shut down when this connection disconnects.
+	 */
+	protected APIResource(final String login, final String password, final IRestService service,
+			final Map<String, Link> links, final ExecutorService executorService) {
 		super(service, links, null);
+		Assert.notNull(executorService);
 		this.login = login;
 		this.password = password;
-		this.executorService = Executors.newFixedThreadPool(10);
+		this.executorService = executorService;
+		this.taskExecutor = new ReentrantExecutorService(executorService);
 	}
 
 	protected final String getLogin() {
@@ -110,18 +143,22 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 
 	@Override
 	public IUser getUser() throws OpenShiftException {
-		if (user == null) {
-			this.user = new UserResource(this, new GetUserRequest().execute(), this.password);
+		synchronized (userLock) {
+			if (user == null) {
+				this.user = new UserResource(this, new GetUserRequest().execute(), this.password);
+			}
+			return this.user;
 		}
-		return this.user;
 	}
 
 	@Override
 	public List<IDomain> getDomains() throws OpenShiftException {
-		if (domains == null) {
-			this.domains = loadDomains();
+		synchronized (domainsLock) {
+			if (domains == null) {
+				this.domains = loadDomains();
+			}
+			return CollectionUtils.toUnmodifiableCopy(this.domains);
 		}
-		return CollectionUtils.toUnmodifiableCopy(this.domains);
 	}
 
 	private List<IDomain> loadDomains() throws OpenShiftException {
@@ -160,7 +197,9 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 
 		final DomainResourceDTO domainDTO = new AddDomainRequest().execute(id);
 		final IDomain domain = new DomainResource(domainDTO, this);
-		this.domains.add(domain);
+		synchronized (domainsLock) {
+			this.domains.add(domain);
+		}
 		return domain;
 	}
 
@@ -179,10 +218,12 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	}
 
 	protected List<IStandaloneCartridge> getOrLoadStandaloneCartridges() throws OpenShiftException {
-		if (standaloneCartridges == null) {
-			loadCartridges();
+		synchronized (cartridgesLock) {
+			if (standaloneCartridges == null) {
+				loadCartridges();
+			}
+			return standaloneCartridges;
 		}
-		return standaloneCartridges;
 	}
 
 	@Override
@@ -191,10 +232,12 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	}
 	
 	protected List<IEmbeddableCartridge> getOrLoadEmbeddableCartridges() throws OpenShiftException {
-		if (embeddableCartridges == null) {
-			loadCartridges();
+		synchronized (cartridgesLock) {
+			if (embeddableCartridges == null) {
+				loadCartridges();
+			}
+			return embeddableCartridges;
 		}
-		return embeddableCartridges;
 	}
 
 	@Override
@@ -209,11 +252,14 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	
 	private void loadCartridges() throws OpenShiftException {
 		final Map<String, CartridgeResourceDTO> cartridgeDTOsByName = new GetCartridgesRequest().execute();
-		this.standaloneCartridges = new ArrayList<IStandaloneCartridge>();
-		this.embeddableCartridges = new ArrayList<IEmbeddableCartridge>();
+		List<IStandaloneCartridge> standaloneCartridges = new ArrayList<IStandaloneCartridge>();
+		List<IEmbeddableCartridge> embeddableCartridges = new ArrayList<IEmbeddableCartridge>();
 		for (CartridgeResourceDTO cartridgeDTO : cartridgeDTOsByName.values()) {
 			addCartridgeCartridge(cartridgeDTO, standaloneCartridges, embeddableCartridges);
 		}
+		// only publish complete lists
+		this.standaloneCartridges = standaloneCartridges;
+		this.embeddableCartridges = embeddableCartridges;
 	}
 	
 	private void addCartridgeCartridge(CartridgeResourceDTO dto, List<IStandaloneCartridge> standaloneCartridges,
@@ -234,7 +280,9 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	
 	@Override
 	public void refresh() throws OpenShiftException {
-		this.domains = null;
+		synchronized (domainsLock) {
+			this.domains = null;
+		}
 	}
 
 	/**
@@ -244,7 +292,9 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	 *            the domain to remove from the API's domains list.
 	 */
 	protected void removeDomain(final IDomain domain) {
-		this.domains.remove(domain);
+		synchronized (domainsLock) {
+			this.domains.remove(domain);
+		}
 	}
 
 	protected boolean hasDomain(String name) throws OpenShiftException {
@@ -252,10 +302,12 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 	}
 	
 	public List<IQuickstart> getQuickstarts() {
-		if (quickstartsByName == null) {
-			this.quickstartsByName = loadQuickstarts();
+		synchronized (quickstartsLock) {
+			if (quickstartsByName == null) {
+				this.quickstartsByName = loadQuickstarts();
+			}
+			return CollectionUtils.toUnmodifiableCopy(this.quickstartsByName.values());
 		}
-		return CollectionUtils.toUnmodifiableCopy(this.quickstartsByName.values());
 	}
 
 	private Map<String, IQuickstart> loadQuickstarts() throws OpenShiftException {
@@ -266,6 +318,178 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		return quickstarts;
 	}
 
+	@Override
+	public void prefetch(PrefetchSpec spec) throws OpenShiftException {
+		Assert.notNull(spec);
+
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		if (spec.isUser()) {
+			futures.add(taskExecutor.submit(new Callable<IUser>() {
+
+				@Override
+				public IUser call() throws Exception {
+					return getUser();
+				}
+			}));
+		}
+		if (spec.isCartridges()) {
+			futures.add(taskExecutor.submit(new Callable<List<IStandaloneCartridge>>() {
+
+				@Override
+				public List<IStandaloneCartridge> call() throws Exception {
+					return getOrLoadStandaloneCartridges();
+				}
+			}));
+		}
+		if (spec.isQuickstarts()) {
+			futures.add(taskExecutor.submit(new Callable<List<IQuickstart>>() {
+
+				@Override
+				public List<IQuickstart> call() throws Exception {
+					return getQuickstarts();
+				}
+			}));
+		}
+		if (spec.isDomains()) {
+			// dependent parts are submitted by this thread so that pool
+			// threads never wait for each other
+			List<IDomain> domains = waitFor(taskExecutor.submit(new Callable<List<IDomain>>() {
+
+				@Override
+				public List<IDomain> call() throws Exception {
+					return getDomains();
+				}
+			}), futures);
+			if (spec.isApplications()) {
+				// embedded cartridges are listed along with the applications
+				prefetchApplications(domains, futures);
+			}
+		}
+		waitFor(futures);
+	}
+
+	private void prefetchApplications(List<IDomain> domains, List<Future<?>> futures) throws OpenShiftException {
+		try {
+			loadAllApplications(domains, UserResource.DEFAULT_MAX_PARALLEL_REQUESTS,
+					new IDomainApplicationsCallback() {
+
+						@Override
+						public void received(IDomain domain, List<IApplication> applications) {
+							// loaded into the domain
+						}
+					});
+		} catch (OpenShiftException e) {
+			cancel(futures);
+			throw e;
+		}
+	}
+
+	/**
+	 * Loads the applications of the given domains on the executor of this
+	 * connection. At most the given number of domains are loaded at a time,
+	 * the next domain is submitted as soon as a domain was loaded. The
+	 * callback is called on the calling thread in the order in which the
+	 * domains complete.
+	 */
+	void loadAllApplications(List<IDomain> domains, int maxParallelRequests, IDomainApplicationsCallback callback)
+			throws OpenShiftException {
+		CompletionService<DomainApplications> completionService =
+				new ExecutorCompletionService<DomainApplications>(taskExecutor);
+		List<Future<DomainApplications>> futures = new ArrayList<Future<DomainApplications>>();
+		Iterator<IDomain> pending = domains.iterator();
+		int running = 0;
+		try {
+			while (running < maxParallelRequests
+					&& pending.hasNext()) {
+				futures.add(completionService.submit(new LoadApplications(pending.next())));
+				running++;
+			}
+			while (running > 0) {
+				DomainApplications loaded = completionService.take().get();
+				running--;
+				if (pending.hasNext()) {
+					futures.add(completionService.submit(new LoadApplications(pending.next())));
+					running++;
+				}
+				callback.received(loaded.domain, loaded.applications);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while loading the applications of user {0}", login);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof OpenShiftException) {
+				throw (OpenShiftException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new OpenShiftException(cause, "Could not load the applications of user {0}: {1}",
+					login, cause.getMessage());
+		} finally {
+			// stop the remaining requests if loading failed
+			for (Future<DomainApplications> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the given future and returns its result. Cancels the given
+	 * pending futures if it failed.
+	 */
+	private <T> T waitFor(Future<T> future, List<Future<?>> pending) throws OpenShiftException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			cancel(pending);
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while prefetching resources");
+		} catch (ExecutionException e) {
+			cancel(pending);
+			throw toOpenShiftException(e.getCause());
+		}
+	}
+
+	private void waitFor(List<Future<?>> futures) throws OpenShiftException {
+		for (Future<?> future : futures) {
+			waitFor(future, futures);
+		}
+	}
+
+	private void cancel(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	private OpenShiftException toOpenShiftException(Throwable throwable) {
+		if (throwable instanceof OpenShiftException) {
+			return (OpenShiftException) throwable;
+		} else if (throwable instanceof Error) {
+			throw (Error) throwable;
+		}
+		return new OpenShiftException(throwable, "Could not prefetch resources: {0}", throwable.getMessage());
+	}
+
+	@Override
+	public IBulkOperations getBulkOperations() {
+		return new BulkOperations(executorService);
+	}
+
+	/**
+	 * Lets the applications of this connection get their ssh sessions from
+	 * the given pool if none was set.
+	 * 
+	 * @see ApplicationResource#getSSHSession()
+	 */
+	public void setSSHSessionPool(SSHSessionPool sshSessionPool) {
+		this.sshSessionPool = sshSessionPool;
+	}
+
+	public SSHSessionPool getSSHSessionPool() {
+		return sshSessionPool;
+	}
+
 	public ExecutorService getExecutorService() {
 		return executorService;
 	}
@@ -274,9 +498,33 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		standaloneCartridges = null;
 		embeddableCartridges = null;
 		domains = null;
-		executorService.shutdownNow();
 	}
 	
+	private static class LoadApplications implements Callable<DomainApplications> {
+
+		private final IDomain domain;
+
+		private LoadApplications(IDomain domain) {
+			this.domain = domain;
+		}
+
+		@Override
+		public DomainApplications call() throws Exception {
+			return new DomainApplications(domain, domain.getApplications());
+		}
+	}
+
+	private static class DomainApplications {
+
+		private final IDomain domain;
+		private final List<IApplication> applications;
+
+		private DomainApplications(IDomain domain, List<IApplication> applications) {
+			this.domain = domain;
+			this.applications = applications;
+		}
+	}
+
 	private class AddDomainRequest extends ServiceRequest {
 
 		private AddDomainRequest() throws OpenShiftException {
@@ -295,7 +543,8 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		}
 
 		protected List<DomainResourceDTO> execute() throws OpenShiftException {
-			return super.execute();
+			return super.execute(IHttpClient.NO_TIMEOUT, DataListJsonDTOFactory.DOMAINS,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
 		}
 	}
 
@@ -317,7 +566,8 @@ public class APIResource extends AbstractOpenShiftResource implements IOpenShift
 		}
 
 		protected Map<String, CartridgeResourceDTO> execute() throws OpenShiftException {
-			return super.execute();
+			return super.execute(IHttpClient.NO_TIMEOUT, DataListJsonDTOFactory.CARTRIDGES,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
 		}
 	}
 
@@ -13,14 +13,17 @@ package com.openshift.internal.client;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import com.openshift.client.HttpMethod;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.ConnectionCache.CachedConnection;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.ExecutorUtils;
 
 /**
  * Connection Factory, used to establish a connection and retrieve a user.
@@ -31,15 +34,64 @@ import com.openshift.internal.client.response.RestResponse;
  */
 public abstract class AbstractOpenShiftConnectionFactory {
 	
-	@SuppressWarnings("unchecked")
 	protected IOpenShiftConnection getConnection(IRestService service, final String login, final String password) throws IOException, OpenShiftException {
+		return getConnection(service, login, password, ExecutorUtils.getSharedExecutor());
+	}
+
+	protected IOpenShiftConnection getConnection(IRestService service, final String login, final String password,
+			ExecutorService executorService) throws IOException, OpenShiftException {
+		setAsyncExecutor(service, executorService);
+		return new APIResource(login, password, service, requestApiLinks(service), executorService);
+	}
+
+	/**
+	 * Returns a connection that reuses the rest service and api links that
+	 * are cached for the given key and transport (ssl certificate callback or
+	 * http client). Returns <code>null</code> if there are none. The cached
+	 * service keeps running its asynchronous requests on the executor of the
+	 * connection that it was created for.
+	 */
+	protected IOpenShiftConnection getCachedConnection(ConnectionCache cache, String key, Object transport,
+			final String login, final String password, ExecutorService executorService) {
+		CachedConnection cached = cache.get(key, transport);
+		if (cached == null) {
+			return null;
+		}
+		return new APIResource(login, password, cached.getService(), cached.getLinks(), executorService);
+	}
+
+	/**
+	 * Returns a new connection and caches its rest service and api links for
+	 * the given key and transport (ssl certificate callback or http client).
+	 */
+	protected IOpenShiftConnection getConnection(IRestService service, final String login, final String password,
+			ExecutorService executorService, ConnectionCache cache, String key, Object transport)
+			throws IOException, OpenShiftException {
+		setAsyncExecutor(service, executorService);
+		Map<String, Link> links = requestApiLinks(service);
+		cache.put(key, transport, service, links);
+		return new APIResource(login, password, service, links, executorService);
+	}
+
+	/**
+	 * Runs the asynchronous requests of the given service on the executor of
+	 * the connection.
+	 */
+	private void setAsyncExecutor(IRestService service, ExecutorService executorService) {
+		if (service instanceof RestService) {
+			((RestService) service).setAsyncExecutor(executorService);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Link> requestApiLinks(IRestService service) throws OpenShiftException {
 		RestResponse response =
 				(RestResponse) service.request(
 						new Link("Get API", "/api", HttpMethod.GET), 
 						IHttpClient.NO_TIMEOUT,
 						Collections.<Parameter> emptyList(), 
 						Collections.<Parameter> emptyList());
-		return new APIResource(login, password, service, (Map<String, Link>) response.getData());
+		return (Map<String, Link>) response.getData();
 	}
 	
 }
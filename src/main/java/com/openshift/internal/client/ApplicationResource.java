@@ -19,11 +19,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -37,6 +43,7 @@ import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.openshift.client.ApplicationFacet;
 import com.openshift.client.ApplicationScale;
 import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
@@ -62,8 +69,10 @@ import com.openshift.internal.client.response.EnvironmentVariableResourceDTO;
 import com.openshift.internal.client.response.GearGroupResourceDTO;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.ssh.ApplicationPortForwarding;
+import com.openshift.internal.client.ssh.SSHSessionPool;
 import com.openshift.internal.client.utils.Assert;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
+import com.openshift.internal.client.utils.ReentrantExecutorService;
 import com.openshift.internal.client.utils.StringUtils;
 
 /**
@@ -152,6 +161,9 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	 */
 	private Session session;
 
+	/** The pool that the ssh session is leased from, null if it was set */
+	private SSHSessionPool sessionPool;
+
 	private Collection<IGearGroup> gearGroups;
 	/**
 	 * The environment variables for this application
@@ -441,6 +453,10 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	protected void refreshEmbeddedCartridges() throws OpenShiftException {
 		// load collection if necessary
 		Map<String, CartridgeResourceDTO> cartridgeDTOByName = new ListCartridgesRequest().execute();
+		refreshEmbeddedCartridges(cartridgeDTOByName);
+	}
+
+	private void refreshEmbeddedCartridges(Map<String, CartridgeResourceDTO> cartridgeDTOByName) {
 		updateCartridges(cartridgeDTOByName);
 		removeCartridges(cartridgeDTOByName);
 	}
@@ -551,13 +567,16 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	}
 
 	private Collection<IGearGroup> loadGearGroups() throws OpenShiftException {
+		return this.gearGroups = requestGearGroups();
+	}
+
+	private Collection<IGearGroup> requestGearGroups() throws OpenShiftException {
 		List<IGearGroup> gearGroups = new ArrayList<IGearGroup>();
 		Collection<GearGroupResourceDTO> dtos = new GetGearGroupsRequest().execute();
 		for(GearGroupResourceDTO dto : dtos) {
 			gearGroups.add(new GearGroupResource(dto, this, getService()));
 		}
-
-		return this.gearGroups = gearGroups;
+		return gearGroups;
 	}
 
 	public boolean waitForAccessible(long timeout) throws OpenShiftException {
@@ -606,24 +625,165 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 
 	@Override
 	public void refresh() throws OpenShiftException {
-		refreshEmbeddedCartridges();
+		Set<ApplicationFacet> facets = EnumSet.of(ApplicationFacet.CARTRIDGES, ApplicationFacet.ENVIRONMENT_VARIABLES);
+		// gear groups and ports are only refreshed if they were loaded before
 		if (this.gearGroups != null) {
-			this.gearGroups = loadGearGroups();
+			facets.add(ApplicationFacet.GEARS);
 		}
 		if (this.ports != null) {
-			this.ports = loadPorts();
+			facets.add(ApplicationFacet.PORTS);
+		}
+		refresh(facets);
+	}
+
+	@Override
+	public void refresh(Set<ApplicationFacet> facets) throws OpenShiftException {
+		Assert.notNull(facets);
+
+		if (facets.contains(ApplicationFacet.ENVIRONMENT_VARIABLES)
+				&& !canGetEnvironmentVariables()) {
+			facets = EnumSet.copyOf(facets);
+			facets.remove(ApplicationFacet.ENVIRONMENT_VARIABLES);
+		}
+		if (facets.isEmpty()) {
+			return;
+		}
+		Map<ApplicationFacet, Object> results = new EnumMap<ApplicationFacet, Object>(ApplicationFacet.class);
+		Map<ApplicationFacet, Throwable> failures = new EnumMap<ApplicationFacet, Throwable>(ApplicationFacet.class);
+		if (facets.size() == 1) {
+			load(facets.iterator().next(), results, failures);
+		} else {
+			loadConcurrently(facets, results, failures);
+		}
+		apply(results);
+		if (!failures.isEmpty()) {
+			throw createRefreshException(failures);
+		}
+	}
+
+	private void load(ApplicationFacet facet, Map<ApplicationFacet, Object> results,
+			Map<ApplicationFacet, Throwable> failures) {
+		try {
+			results.put(facet, new LoadFacet(facet).call());
+		} catch (Exception e) {
+			failures.put(facet, e);
+		}
+	}
+
+	/**
+	 * Loads the given facets on the executor of the connection and waits for
+	 * all of them to complete. The facets are loaded on the calling thread if
+	 * it's a pool thread already.
+	 */
+	private void loadConcurrently(Set<ApplicationFacet> facets, Map<ApplicationFacet, Object> results,
+			Map<ApplicationFacet, Throwable> failures) throws OpenShiftException {
+		ExecutorService executor = new ReentrantExecutorService(getConnection().getExecutorService());
+		Map<ApplicationFacet, Future<Object>> futures = new EnumMap<ApplicationFacet, Future<Object>>(ApplicationFacet.class);
+		for (ApplicationFacet facet : facets) {
+			futures.put(facet, executor.submit(new LoadFacet(facet)));
+		}
+		try {
+			for (Entry<ApplicationFacet, Future<Object>> entry : futures.entrySet()) {
+				try {
+					results.put(entry.getKey(), entry.getValue().get());
+				} catch (ExecutionException e) {
+					failures.put(entry.getKey(), e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<Object> future : futures.values()) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while refreshing application {0}", name);
 		}
-		updateEnvironmentVariables();
+	}
+
+	/**
+	 * Updates this application with the loaded facets. This happens on the
+	 * calling thread once all facets were loaded.
+	 */
+	@SuppressWarnings("unchecked")
+	private void apply(Map<ApplicationFacet, Object> results) {
+		for (Entry<ApplicationFacet, Object> entry : results.entrySet()) {
+			switch (entry.getKey()) {
+			case CARTRIDGES:
+				refreshEmbeddedCartridges((Map<String, CartridgeResourceDTO>) entry.getValue());
+				break;
+			case GEARS:
+				this.gearGroups = (Collection<IGearGroup>) entry.getValue();
+				break;
+			case PORTS:
+				this.ports = (List<IApplicationPortForwarding>) entry.getValue();
+				break;
+			case ENVIRONMENT_VARIABLES:
+				this.environmentVariablesMap = (Map<String, IEnvironmentVariable>) entry.getValue();
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the failure if a single facet failed. Reports all failures in a
+	 * single exception otherwise.
+	 */
+	private OpenShiftException createRefreshException(Map<ApplicationFacet, Throwable> failures) {
+		if (failures.size() == 1) {
+			Throwable failure = failures.values().iterator().next();
+			if (failure instanceof OpenShiftException) {
+				return (OpenShiftException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+		}
+		StringBuilder builder = new StringBuilder();
+		for (Entry<ApplicationFacet, Throwable> entry : failures.entrySet()) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(entry.getKey()).append(": ").append(entry.getValue().getMessage());
+		}
+		return new OpenShiftException(failures.values().iterator().next(),
+				"Could not refresh application {0}: {1}", name, builder.toString());
 	}
 
 	public void setSSHSession(final Session session) {
+		releaseSSHSession();
 		this.session = session;
 	}
 
+	/**
+	 * Returns the ssh session of this application. Gets it from the ssh
+	 * session pool of the connection if none was set (or it was disconnected)
+	 * and the connection has a pool.
+	 */
 	public Session getSSHSession() {
+		if (!hasSSHSession()) {
+			SSHSessionPool pool = getSSHSessionPool();
+			if (pool != null) {
+				releaseSSHSession();
+				this.session = pool.getSession(this);
+				this.sessionPool = pool;
+			}
+		}
 		return this.session;
 	}
 
+	private void releaseSSHSession() {
+		if (sessionPool != null) {
+			sessionPool.release(this);
+			this.sessionPool = null;
+		}
+	}
+
+	private SSHSessionPool getSSHSessionPool() {
+		IOpenShiftConnection connection = getConnection();
+		if (!(connection instanceof APIResource)) {
+			return null;
+		}
+		return ((APIResource) connection).getSSHSessionPool();
+	}
+
 	public boolean hasSSHSession() {
 		return this.session != null && this.session.isConnected();
 	}
@@ -672,19 +832,20 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	}
 
 	private Map<String, IEnvironmentVariable> loadEnvironmentVariables() throws OpenShiftException {
+		Map<String, IEnvironmentVariable> environmentVariables = new LinkedHashMap<String, IEnvironmentVariable>();
 		List<EnvironmentVariableResourceDTO> environmentVariableDTOs = new ListEnvironmentVariablesRequest().execute();
 		if (environmentVariableDTOs == null) {
-			return new LinkedHashMap<String, IEnvironmentVariable>();
+			return environmentVariables;
 		}
 
 		for (EnvironmentVariableResourceDTO environmentVariableResourceDTO : environmentVariableDTOs) {
 			final IEnvironmentVariable environmentVariable =
 					new EnvironmentVariableResource(environmentVariableResourceDTO, this);
 
-			environmentVariablesMap.put(environmentVariable.getName(),environmentVariable);
+			environmentVariables.put(environmentVariable.getName(),environmentVariable);
 
 		}
-		return environmentVariablesMap;
+		return environmentVariables;
 	}
 
 	@Override
@@ -836,7 +997,7 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 	 * @throws OpenShiftSSHOperationException
 	 */
 	private List<IApplicationPortForwarding> loadPorts() throws OpenShiftSSHOperationException {
-		this.ports = new ArrayList<IApplicationPortForwarding>();
+		List<IApplicationPortForwarding> ports = new ArrayList<IApplicationPortForwarding>();
 		List<String> lines = sshExecCmd("rhc-list-ports", SshStreams.EXT_INPUT);
 		for (String line : lines) {
 			ApplicationPortForwarding port = extractForwardablePortFrom(line);
@@ -1151,6 +1312,34 @@ public class ApplicationResource extends AbstractOpenShiftResource implements IA
 		}
 	}
 
+	/**
+	 * Loads a facet of this application without updating it.
+	 */
+	private class LoadFacet implements Callable<Object> {
+
+		private final ApplicationFacet facet;
+
+		private LoadFacet(ApplicationFacet facet) {
+			this.facet = facet;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			switch (facet) {
+			case CARTRIDGES:
+				return new ListCartridgesRequest().execute();
+			case GEARS:
+				return requestGearGroups();
+			case PORTS:
+				return loadPorts();
+			case ENVIRONMENT_VARIABLES:
+				return loadEnvironmentVariables();
+			default:
+				throw new OpenShiftException("Unknown facet {0}", facet);
+			}
+		}
+	}
+
 	private class ListCartridgesRequest extends ServiceRequest {
 
 		private ListCartridgesRequest() {
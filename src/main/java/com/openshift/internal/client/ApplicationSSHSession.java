@@ -11,13 +11,33 @@
 package com.openshift.internal.client;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,11 +51,24 @@ import com.jcraft.jsch.Session;
 import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
 import com.openshift.client.IApplicationSSHSession;
+import com.openshift.client.IDomain;
+import com.openshift.client.IGear;
+import com.openshift.client.IGearExecCallback;
+import com.openshift.client.IGearExecResult;
+import com.openshift.client.IGearGroup;
+import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.IStreamSubscriber;
+import com.openshift.client.IStreamingExec;
+import com.openshift.client.IUploadListener;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftSSHOperationException;
 import com.openshift.client.utils.TarFileUtils;
 import com.openshift.internal.client.ssh.ApplicationPortForwarding;
+import com.openshift.internal.client.ssh.SSHSessionPool;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorUtils;
 import com.openshift.internal.client.utils.StreamUtils;
+import com.openshift.internal.client.utils.StringUtils;
 
 /**
  * @author Xavier Coulon
@@ -48,6 +81,14 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 
 	private static final int CONNECT_TIMEOUT = 10 * 60 * 1000;
 	private static final String JSCH_EXEC_CHANNEL = "exec";
+	/** the delay between 2 checks whether a channel closed **/
+	private static final int CLOSE_WAIT_DELAY = 10;
+	/** the maximum time to wait for a channel to close once all data was read **/
+	private static final int CLOSE_TIMEOUT = 10 * 1000;
+	/** the maximum number of gear output lines that wait for the callback **/
+	private static final int MAX_PENDING_GEAR_EVENTS = 1024;
+	/** the number of lines that a tail buffers by default **/
+	public static final int DEFAULT_STREAM_BUFFER_SIZE = 1024;
 
 	/** SSH Session to use for all methods */
 	private Session session;
@@ -58,6 +99,12 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	/** List of ports available for port forwarding */
 	private List<IApplicationPortForwarding> ports = null;
 
+	/** Pool that the session is taken from, may be null */
+	private SSHSessionPool sessionPool;
+
+	/** whether the session is leased from the pool */
+	private boolean leased;
+
 	/**
 	 * Sets the SSH session that this application will use to connect to
 	 * OpenShift to perform some operations. This SSH session must be
@@ -74,6 +121,26 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		this.session = session;
 	}
 
+	/**
+	 * Creates a session that gets its SSH session from the given pool. The
+	 * SSH session is taken from the pool again if it was disconnected, the
+	 * commands of this session thus only open channels on a shared session.
+	 *
+	 * @param application
+	 *            The application that this SSH session is connecting to
+	 * @param sessionPool
+	 *            The pool of SSH sessions
+	 * @throws OpenShiftSSHOperationException
+	 *             if no SSH session could be opened
+	 */
+	public ApplicationSSHSession(IApplication application, SSHSessionPool sessionPool)
+			throws OpenShiftSSHOperationException {
+		this.application = application;
+		this.sessionPool = sessionPool;
+		this.session = sessionPool.getSession(application);
+		this.leased = true;
+	}
+
 	/**
 	 * Set the current SSH session
 	 * 
@@ -81,6 +148,7 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 *            A new SSH session to use for the ApplicationSSHSession object
 	 */
 	public void setSSHSession(final Session session) {
+		releaseSession();
 		this.session = session;
 	}
 
@@ -240,9 +308,31 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 * @see #saveFullSnapshot()
 	 */
 	public InputStream restoreFullSnapshot(InputStream inputStream, boolean includeGit) {
+		return restoreFullSnapshot(inputStream, includeGit, null);
+	}
+
+	/**
+	 * Restores the given full snapshot to the application that this session is
+	 * bound to. The snapshot is uploaded in the background while the output of
+	 * the restore is read from the returned stream. Upload failures are
+	 * reported when reading the output.
+	 * 
+	 * @param inputStream
+	 *            the snapshot
+	 * @param includeGit
+	 *            will activate the new snapshot given the snapshot includes a
+	 *            /git folder
+	 * @param listener
+	 *            the listener that gets notified of the upload progress, may
+	 *            be <code>null</code>
+	 * @return the output of the restore
+	 * 
+	 * @see #restoreFullSnapshot(InputStream, boolean)
+	 */
+	public InputStream restoreFullSnapshot(InputStream inputStream, boolean includeGit, IUploadListener listener) {
 		assertLiveSSHSession();
 
-		return new FullSnapshotCommand(session).restore(inputStream, includeGit);
+		return new FullSnapshotCommand(session).restore(inputStream, includeGit, listener);
 	}
 
 	public InputStream saveDeploymentSnapshot() {
@@ -266,7 +356,264 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 */
 	public InputStream restoreDeploymentSnapshot(InputStream inputStream, boolean hotDeploy)
 			throws OpenShiftException {
-		return new DeploymentSnapshotCommand(session).restore(inputStream, hotDeploy);
+		return restoreDeploymentSnapshot(inputStream, hotDeploy, null);
+	}
+
+	/**
+	 * Restores the given snapshot to the application that this session is bound
+	 * to. The snapshot is uploaded in the background while the output of the
+	 * deployment is read from the returned stream.
+	 * 
+	 * @param inputStream
+	 *            the snapshot
+	 * @param hotDeploy
+	 *            will not restart the application if <code>true</code>
+	 * @param listener
+	 *            the listener that gets notified of the upload progress, may
+	 *            be <code>null</code>
+	 * @return the output of the deployment
+	 * @throws OpenShiftException
+	 * 
+	 * @see #restoreDeploymentSnapshot(InputStream, boolean)
+	 */
+	public InputStream restoreDeploymentSnapshot(InputStream inputStream, boolean hotDeploy,
+			IUploadListener listener) throws OpenShiftException {
+		assertLiveSSHSession();
+
+		return new DeploymentSnapshotCommand(session).restore(inputStream, hotDeploy, listener);
+	}
+
+	/**
+	 * Runs the given command on all gears of the application. The command
+	 * runs on the given number of gears at a time, each gear gets its ssh
+	 * session from the session pool. The output of the gears is handed to the
+	 * callback on the calling thread as it arrives.
+	 *
+	 * @param command
+	 *            the command to run
+	 * @param parallelism
+	 *            the maximum number of gears that the command runs on at the
+	 *            same time
+	 * @param callback
+	 *            the callback that receives the output, may be
+	 *            <code>null</code>
+	 * @return the exit status of the command on each gear
+	 * @throws OpenShiftSSHOperationException
+	 *             if there is no ssh session pool
+	 *
+	 * @see SSHSessionPool
+	 */
+	@Override
+	public IGearExecResult execOnGears(String command, int parallelism, IGearExecCallback callback)
+			throws OpenShiftException {
+		// a gear hosting several cartridges is in several gear groups
+		Map<String, IGear> gears = new LinkedHashMap<String, IGear>();
+		for (IGearGroup gearGroup : application.getGearGroups()) {
+			for (IGear gear : gearGroup.getGears()) {
+				if (!gears.containsKey(gear.getId())) {
+					gears.put(gear.getId(), gear);
+				}
+			}
+		}
+		return execOnGears(command, gears.values(), parallelism, callback);
+	}
+
+	/**
+	 * Runs the given command on the gears of the given gear group.
+	 *
+	 * @see #execOnGears(String, int, IGearExecCallback)
+	 */
+	@Override
+	public IGearExecResult execOnGears(String command, IGearGroup gearGroup, int parallelism,
+			IGearExecCallback callback) throws OpenShiftException {
+		Assert.notNull(gearGroup);
+
+		return execOnGears(command, gearGroup.getGears(), parallelism, callback);
+	}
+
+	private IGearExecResult execOnGears(String command, Collection<IGear> gears, int parallelism,
+			IGearExecCallback callback) throws OpenShiftException {
+		Assert.notNull(command);
+		Assert.isTrue(parallelism > 0);
+
+		SSHSessionPool pool = getSessionPool();
+		if (pool == null) {
+			throw new OpenShiftSSHOperationException(
+					"No ssh session pool to open sessions to the gears of application {0}", application.getName());
+		}
+		ExecutorService executor = ExecutorUtils.getStreamExecutor();
+		BlockingQueue<GearEvent> events = new LinkedBlockingQueue<GearEvent>(MAX_PENDING_GEAR_EVENTS);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		GearExecResult result = new GearExecResult();
+		Iterator<IGear> pending = gears.iterator();
+		int running = 0;
+		try {
+			while (running < parallelism
+					&& pending.hasNext()) {
+				futures.add(executor.submit(new GearExec(command, pending.next(), pool, events)));
+				running++;
+			}
+			while (running > 0) {
+				GearEvent event = events.take();
+				if (event.isDone()) {
+					running--;
+					if (pending.hasNext()) {
+						futures.add(executor.submit(new GearExec(command, pending.next(), pool, events)));
+						running++;
+					}
+				}
+				event.dispatch(result, callback);
+			}
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftSSHOperationException(e,
+					"Interrupted while running \"{0}\" on the gears of application {1}", command, application.getName());
+		} finally {
+			// stop the remaining gears if the callback failed
+			for (Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Runs the given command and streams its standard output line by line to
+	 * the given subscriber while the command is running. Each streamed command
+	 * runs in a channel of its own, a session may thus stream several commands
+	 * at the same time. The output is buffered up to the given number of
+	 * lines, the remote command is held back if the subscriber can't keep up.
+	 * 
+	 * @param command
+	 *            the command to run
+	 * @param bufferSize
+	 *            the maximum number of lines that wait for the subscriber
+	 * @param subscriber
+	 *            the subscriber that receives the output
+	 * @return the streamed command that may be cancelled
+	 * @throws OpenShiftSSHOperationException
+	 *             if the command could not be run
+	 */
+	@Override
+	public IStreamingExec execStreaming(String command, int bufferSize, IStreamSubscriber<String> subscriber)
+			throws OpenShiftSSHOperationException {
+		return execStreaming(new LineStreamingExec(command, bufferSize, subscriber));
+	}
+
+	/**
+	 * Runs the given command and streams its standard output in chunks of
+	 * bytes as they arrive.
+	 * 
+	 * @see #execStreaming(String, int, IStreamSubscriber)
+	 */
+	@Override
+	public IStreamingExec execStreamingChunks(String command, int bufferSize, IStreamSubscriber<byte[]> subscriber)
+			throws OpenShiftSSHOperationException {
+		return execStreaming(new ChunkStreamingExec(command, bufferSize, subscriber));
+	}
+
+	/**
+	 * Follows the given files and streams the lines that are appended to them.
+	 * The command runs until it is cancelled.
+	 * 
+	 * @param files
+	 *            the path of the files to tail, may contain the wildcards *
+	 *            and ? (ex. <code>app-root/logs/*</code>). All other
+	 *            characters are taken literally
+	 * @param lines
+	 *            the number of existing lines to stream first
+	 * @param subscriber
+	 *            the subscriber that receives the lines
+	 * @return the tail that may be cancelled
+	 * @throws OpenShiftSSHOperationException
+	 *             if the files could not be tailed
+	 * 
+	 * @see #execStreaming(String, int, IStreamSubscriber)
+	 */
+	@Override
+	public IStreamingExec tailFiles(String files, int lines, IStreamSubscriber<String> subscriber)
+			throws OpenShiftSSHOperationException {
+		Assert.isTrue(!StringUtils.isEmpty(files));
+		Assert.isTrue(lines >= 0);
+
+		return execStreaming(
+				new StringBuilder("tail -n ").append(lines).append(" -f -- ").append(quoteShellPath(files)).toString(),
+				DEFAULT_STREAM_BUFFER_SIZE, subscriber);
+	}
+
+	/**
+	 * Quotes the given path for the remote shell. Wildcards (* and ?) are left
+	 * unquoted so that the shell still expands them.
+	 */
+	static String quoteShellPath(String path) {
+		StringBuilder quoted = new StringBuilder();
+		boolean inQuotes = false;
+		for (char character : path.toCharArray()) {
+			boolean literal = character != '*'
+					&& character != '?'
+					&& character != '\'';
+			if (literal != inQuotes) {
+				quoted.append('\'');
+				inQuotes = literal;
+			}
+			if (character == '\'') {
+				quoted.append("\\'");
+			} else {
+				quoted.append(character);
+			}
+		}
+		if (inQuotes) {
+			quoted.append('\'');
+		}
+		return quoted.toString();
+	}
+
+	private IStreamingExec execStreaming(StreamingExec<?> exec) throws OpenShiftSSHOperationException {
+		assertLiveSSHSession();
+		try {
+			exec.start(session, ExecutorUtils.getStreamExecutor());
+			return exec;
+		} catch (JSchException e) {
+			throw new OpenShiftSSHOperationException(e,
+					"Could no execute remote ssh command \"{0}\" on application {1}",
+					exec.getCommand(), application.getName());
+		} catch (IOException e) {
+			throw new OpenShiftSSHOperationException(e,
+					"Could not get response channel for remote ssh command \"{0}\" on application {1}",
+					exec.getCommand(), application.getName());
+		}
+	}
+
+	private SSHSessionPool getSessionPool() {
+		if (sessionPool != null) {
+			return sessionPool;
+		}
+		IDomain domain = application.getDomain();
+		if (domain instanceof DomainResource) {
+			// dont load the user to get to the connection
+			return ((DomainResource) domain).getConnectionResource().getSSHSessionPool();
+		}
+		IOpenShiftConnection connection = domain.getUser().getConnection();
+		if (!(connection instanceof APIResource)) {
+			return null;
+		}
+		return ((APIResource) connection).getSSHSessionPool();
+	}
+
+	/**
+	 * Waits for the given channel to close. The exit status of a command
+	 * arrives after the end of its output, jsch offers no notification for it.
+	 */
+	private static void waitForClose(Channel channel) {
+		long timeout = System.currentTimeMillis() + CLOSE_TIMEOUT;
+		try {
+			while (!channel.isClosed()
+					&& System.currentTimeMillis() < timeout) {
+				Thread.sleep(CLOSE_WAIT_DELAY);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
 	}
 
 	/**
@@ -345,6 +692,12 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	}
 
 	protected void assertLiveSSHSession() {
+		if (!isConnected()
+				&& sessionPool != null) {
+			releaseSession();
+			this.session = sessionPool.getSession(application);
+			this.leased = true;
+		}
 		if (!isConnected()) {
 			throw new OpenShiftSSHOperationException(
 					"SSH session for application \"{0}\" is closed.",
@@ -352,6 +705,13 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		}
 	}
 
+	private void releaseSession() {
+		if (leased) {
+			this.leased = false;
+			sessionPool.release(application);
+		}
+	}
+
 	protected InputStream execCommand(final String command, ChannelInputStreams factory, Session session)
 			throws OpenShiftSSHOperationException {
 		return execCommand(command, null, factory, session);
@@ -369,6 +729,26 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 	 */
 	protected InputStream execCommand(final String command, InputStream forStdIn,
 			ChannelInputStreams channelInputStream, Session session) throws OpenShiftSSHOperationException {
+		return execCommand(command, forStdIn, null, channelInputStream, session);
+	}
+
+	/**
+	 * Runs the given command. The given input is uploaded to the remote
+	 * standard input in the background while the caller reads the output of
+	 * the command.
+	 *
+	 * @param command
+	 *            The remote command to run on the server
+	 * @param forStdIn
+	 *            the input to upload, may be <code>null</code>
+	 * @param listener
+	 *            the listener that gets notified of the upload progress, may
+	 *            be <code>null</code>
+	 * @return The output of the command that is run on the server
+	 * @throws OpenShiftSSHOperationException
+	 */
+	protected InputStream execCommand(final String command, InputStream forStdIn, IUploadListener listener,
+			ChannelInputStreams channelInputStream, Session session) throws OpenShiftSSHOperationException {
 		assertLiveSSHSession();
 
 		ChannelExec channel = null;
@@ -381,7 +761,8 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 			ChannelResponse channelResponse = new ChannelResponse(in, channel);
 			channel.connect(CONNECT_TIMEOUT);
 			if (forStdIn != null) {
-				writeToRemoteStdInput(forStdIn, remoteStdIn);
+				channelResponse.setUpload(
+						ExecutorUtils.getStreamExecutor().submit(new StdInUpload(forStdIn, remoteStdIn, listener)));
 			}
 			return channelResponse;
 		} catch (JSchException e) {
@@ -397,14 +778,6 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		}
 	}
 
-	private void writeToRemoteStdInput(InputStream forStdInput, OutputStream remoteStdIn) throws IOException {
-		for (int data = -1; (data = forStdInput.read()) != -1;) {
-			remoteStdIn.write(data);
-		}
-		remoteStdIn.close();
-		forStdInput.close();
-	}
-
 	public abstract class AbstractSnapshotType {
 
 		private String saveCommand;
@@ -446,10 +819,11 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 					"snapshot", ChannelInputStreams.DATA, session);
 		}
 
-		public InputStream restore(InputStream in, boolean includeGit) {
+		public InputStream restore(InputStream in, boolean includeGit, IUploadListener listener) {
 			return execCommand(
 					MessageFormat.format("restore{0}", includeGit ? " INCLUDE_GIT" : ""),
 					in,
+					listener,
 					ChannelInputStreams.DATA,
 					session);
 		}
@@ -467,10 +841,11 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 					"gear archive-deployment", ChannelInputStreams.DATA, session);
 		}
 
-		public InputStream restore(InputStream inputStream, boolean hotDeploy) {
+		public InputStream restore(InputStream inputStream, boolean hotDeploy, IUploadListener listener) {
 			return execCommand(
 					MessageFormat.format("oo-binary-deploy{0}", hotDeploy ? " --hot-deploy" : ""),
 					inputStream,
+					listener,
 					ChannelInputStreams.DATA,
 					session);
 		}
@@ -564,14 +939,518 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 		public abstract InputStream get(Channel channel) throws IOException, JSchException;
 	}
 
-	class ChannelResponse extends InputStream {
+	/**
+	 * Runs a command on a single gear and reports its output and exit status
+	 * to the given queue.
+	 */
+	private static class GearExec implements Callable<Void> {
+
+		private final String command;
+		private final IGear gear;
+		private final SSHSessionPool pool;
+		private final BlockingQueue<GearEvent> events;
+
+		private GearExec(String command, IGear gear, SSHSessionPool pool, BlockingQueue<GearEvent> events) {
+			this.command = command;
+			this.gear = gear;
+			this.pool = pool;
+			this.events = events;
+		}
+
+		@Override
+		public Void call() {
+			GearEvent done = null;
+			Session session = null;
+			ChannelExec channel = null;
+			try {
+				session = pool.getSession(gear.getSshUrl());
+				channel = (ChannelExec) session.openChannel(JSCH_EXEC_CHANNEL);
+				channel.setCommand(command);
+				ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+				channel.setErrStream(errorOutput);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(channel.getInputStream()));
+				channel.connect(CONNECT_TIMEOUT);
+				for (String line = null; (line = reader.readLine()) != null;) {
+					events.put(GearEvent.output(gear, line));
+				}
+				waitForClose(channel);
+				done = GearEvent.completed(gear, channel.getExitStatus(), errorOutput.toString());
+			} catch (OpenShiftException e) {
+				done = GearEvent.failed(gear, e);
+			} catch (JSchException e) {
+				done = GearEvent.failed(gear, new OpenShiftSSHOperationException(e,
+						"Could not run \"{0}\" on gear {1}", command, gear.getId()));
+			} catch (IOException e) {
+				done = GearEvent.failed(gear, new OpenShiftSSHOperationException(e,
+						"Could not read the output of \"{0}\" on gear {1}", command, gear.getId()));
+			} catch (RuntimeException e) {
+				done = GearEvent.failed(gear, new OpenShiftSSHOperationException(e,
+						"Could not run \"{0}\" on gear {1}", command, gear.getId()));
+			} catch (InterruptedException e) {
+				// cancelled by the caller
+				Thread.currentThread().interrupt();
+				done = GearEvent.failed(gear, new OpenShiftSSHOperationException(e,
+						"Interrupted while running \"{0}\" on gear {1}", command, gear.getId()));
+			} finally {
+				if (channel != null) {
+					channel.disconnect();
+				}
+				if (session != null) {
+					pool.release(gear.getSshUrl());
+				}
+				if (done == null) {
+					// an error is thrown, the caller must not wait for this gear
+					done = GearEvent.failed(gear, new OpenShiftSSHOperationException(
+							"Could not run \"{0}\" on gear {1}", command, gear.getId()));
+				}
+				// report completion once the session was given back
+				post(done);
+			}
+			return null;
+		}
+
+		/**
+		 * Hands the completion to the caller. Gives up if this exec was
+		 * interrupted, the caller only cancels once it stopped waiting.
+		 */
+		private void post(GearEvent done) {
+			try {
+				events.put(done);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * A line of output, the completion or the failure of a command on a gear.
+	 */
+	private static class GearEvent {
+
+		private final IGear gear;
+		private final String line;
+		private final int exitStatus;
+		private final String errorOutput;
+		private final OpenShiftException failure;
+
+		private static GearEvent output(IGear gear, String line) {
+			return new GearEvent(gear, line, -1, null, null);
+		}
+
+		private static GearEvent completed(IGear gear, int exitStatus, String errorOutput) {
+			return new GearEvent(gear, null, exitStatus, errorOutput, null);
+		}
+
+		private static GearEvent failed(IGear gear, OpenShiftException failure) {
+			return new GearEvent(gear, null, -1, null, failure);
+		}
+
+		private GearEvent(IGear gear, String line, int exitStatus, String errorOutput, OpenShiftException failure) {
+			this.gear = gear;
+			this.line = line;
+			this.exitStatus = exitStatus;
+			this.errorOutput = errorOutput;
+			this.failure = failure;
+		}
+
+		private boolean isDone() {
+			return line == null;
+		}
+
+		private void dispatch(GearExecResult result, IGearExecCallback callback) {
+			if (line != null) {
+				if (callback != null) {
+					callback.output(gear, line);
+				}
+			} else if (failure != null) {
+				result.failed(gear, failure);
+				if (callback != null) {
+					callback.failed(gear, failure);
+				}
+			} else {
+				result.completed(gear, exitStatus);
+				if (callback != null) {
+					callback.completed(gear, exitStatus, errorOutput);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A command whose output is streamed to a subscriber. The output is read
+	 * and delivered by 2 different threads that are connected by a bounded
+	 * buffer. The reader stops reading the channel while the buffer is full,
+	 * the ssh flow control then holds back the remote command until the
+	 * subscriber caught up.
+	 */
+	abstract static class StreamingExec<T> implements IStreamingExec {
+
+		private final String command;
+		private final IStreamSubscriber<T> subscriber;
+		private final BlockingQueue<StreamEvent<T>> events;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile ChannelExec channel;
+		private volatile InputStream channelInputStream;
+		private volatile Future<?> reader;
+		private volatile Future<?> delivery;
+		private volatile boolean cancelled;
+		private volatile int exitStatus = -1;
+
+		/**
+		 * @param bufferSize
+		 *            the maximum number of lines or chunks that wait for the
+		 *            subscriber
+		 */
+		StreamingExec(String command, int bufferSize, IStreamSubscriber<T> subscriber) {
+			Assert.notNull(command);
+			Assert.isTrue(bufferSize > 0);
+			Assert.notNull(subscriber);
+
+			this.command = command;
+			this.subscriber = subscriber;
+			this.events = new ArrayBlockingQueue<StreamEvent<T>>(bufferSize);
+		}
+
+		/**
+		 * Runs the command on the given session and starts streaming its
+		 * output.
+		 */
+		void start(Session session, ExecutorService executor) throws JSchException, IOException {
+			ChannelExec channel = (ChannelExec) session.openChannel(JSCH_EXEC_CHANNEL);
+			try {
+				channel.setCommand(command);
+				this.channelInputStream = channel.getInputStream();
+				channel.connect(CONNECT_TIMEOUT);
+				this.channel = channel;
+			} catch (JSchException e) {
+				channel.disconnect();
+				throw e;
+			} catch (IOException e) {
+				channel.disconnect();
+				throw e;
+			}
+			this.delivery = executor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					deliver();
+				}
+			});
+			this.reader = executor.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					readOutput();
+				}
+			});
+		}
+
+		/**
+		 * Reads the given output of the command and puts it to the buffer.
+		 * 
+		 * @see #put(Object)
+		 */
+		protected abstract void read(InputStream in) throws IOException, InterruptedException;
+
+		/**
+		 * Puts the given output to the buffer. Blocks while the buffer is
+		 * full.
+		 */
+		protected void put(T output) throws InterruptedException {
+			events.put(StreamEvent.output(output));
+		}
+
+		private void readOutput() {
+			ChannelExec channel = this.channel;
+			try {
+				read(channelInputStream);
+				if (!cancelled) {
+					waitForClose(channel);
+					events.put(StreamEvent.<T> completed(channel.getExitStatus()));
+				}
+			} catch (InterruptedException e) {
+				// cancelled
+			} catch (IOException e) {
+				if (!cancelled) {
+					putFailure(new OpenShiftSSHOperationException(e,
+							"Could not read the output of \"{0}\"", command));
+				}
+			} catch (RuntimeException e) {
+				putFailure(new OpenShiftSSHOperationException(e,
+						"Could not read the output of \"{0}\"", command));
+			} finally {
+				channel.disconnect();
+			}
+		}
+
+		private void putFailure(OpenShiftException failure) {
+			try {
+				events.put(StreamEvent.<T> failed(failure));
+			} catch (InterruptedException e) {
+				// cancelled
+			}
+		}
+
+		private void deliver() {
+			try {
+				while (!cancelled) {
+					StreamEvent<T> event = events.take();
+					if (cancelled) {
+						return;
+					}
+					if (event.isDone()) {
+						this.exitStatus = event.exitStatus;
+					}
+					event.dispatch(subscriber);
+					if (event.isDone()) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				// cancelled
+			} catch (RuntimeException e) {
+				LOGGER.error(MessageFormat.format("Subscriber to \"{0}\" failed, cancelling the command", command), e);
+				cancel();
+			} finally {
+				done.countDown();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+			ChannelExec channel = this.channel;
+			if (channel != null) {
+				channel.disconnect();
+			}
+			cancel(reader);
+			cancel(delivery);
+			done.countDown();
+		}
+
+		private void cancel(Future<?> future) {
+			if (future != null) {
+				future.cancel(true);
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public boolean isDone() {
+			return done.getCount() == 0;
+		}
+
+		@Override
+		public boolean waitFor(long timeout) throws InterruptedException {
+			return done.await(timeout, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int getExitStatus() {
+			return exitStatus;
+		}
+
+		String getCommand() {
+			return command;
+		}
+	}
+
+	/**
+	 * Streams the output of a command line by line.
+	 */
+	static class LineStreamingExec extends StreamingExec<String> {
+
+		LineStreamingExec(String command, int bufferSize, IStreamSubscriber<String> subscriber) {
+			super(command, bufferSize, subscriber);
+		}
+
+		@Override
+		protected void read(InputStream in) throws IOException, InterruptedException {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+			for (String line = null; !isCancelled() && (line = reader.readLine()) != null;) {
+				put(line);
+			}
+		}
+	}
+
+	/**
+	 * Streams the output of a command in chunks of bytes as they arrive.
+	 */
+	static class ChunkStreamingExec extends StreamingExec<byte[]> {
+
+		private static final int CHUNK_SIZE = 8 * 1024;
+
+		ChunkStreamingExec(String command, int bufferSize, IStreamSubscriber<byte[]> subscriber) {
+			super(command, bufferSize, subscriber);
+		}
+
+		@Override
+		protected void read(InputStream in) throws IOException, InterruptedException {
+			byte[] chunk = new byte[CHUNK_SIZE];
+			for (int read = 0; !isCancelled() && (read = in.read(chunk)) != -1;) {
+				if (read > 0) {
+					put(Arrays.copyOf(chunk, read));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Output, completion or failure of a streamed command.
+	 */
+	private static class StreamEvent<T> {
+
+		private final T output;
+		private final int exitStatus;
+		private final OpenShiftException failure;
+
+		private static <T> StreamEvent<T> output(T output) {
+			return new StreamEvent<T>(output, -1, null);
+		}
+
+		private static <T> StreamEvent<T> completed(int exitStatus) {
+			return new StreamEvent<T>(null, exitStatus, null);
+		}
+
+		private static <T> StreamEvent<T> failed(OpenShiftException failure) {
+			return new StreamEvent<T>(null, -1, failure);
+		}
+
+		private StreamEvent(T output, int exitStatus, OpenShiftException failure) {
+			this.output = output;
+			this.exitStatus = exitStatus;
+			this.failure = failure;
+		}
+
+		private boolean isDone() {
+			return output == null;
+		}
+
+		private void dispatch(IStreamSubscriber<T> subscriber) {
+			if (output != null) {
+				subscriber.received(output);
+			} else if (failure != null) {
+				subscriber.failed(failure);
+			} else {
+				subscriber.completed(exitStatus);
+			}
+		}
+	}
+
+	/**
+	 * Uploads an input to the standard input of a remote command. Files are
+	 * transferred through their channel, other inputs are copied through a
+	 * buffer. Closes the input and the remote standard input once it's done.
+	 */
+	static class StdInUpload implements Callable<Long> {
+
+		private static final int BUFFER_SIZE = 32 * 1024;
+		private static final int TRANSFER_SIZE = 256 * 1024;
+		/** the minimum delay between 2 progress notifications **/
+		private static final long PROGRESS_INTERVAL = 500;
+
+		private final InputStream input;
+		private final OutputStream remoteStdIn;
+		private final IUploadListener listener;
+		private long start;
+		private long lastProgress;
+
+		StdInUpload(InputStream input, OutputStream remoteStdIn, IUploadListener listener) {
+			this.input = input;
+			this.remoteStdIn = remoteStdIn;
+			this.listener = listener;
+		}
+
+		@Override
+		public Long call() throws IOException {
+			this.start = System.currentTimeMillis();
+			try {
+				long sent;
+				if (input instanceof FileInputStream) {
+					sent = transfer(((FileInputStream) input).getChannel());
+				} else {
+					sent = copy();
+				}
+				remoteStdIn.flush();
+				if (listener != null) {
+					listener.completed(sent, System.currentTimeMillis() - start);
+				}
+				return sent;
+			} finally {
+				StreamUtils.quietlyClose(input);
+				StreamUtils.quietlyClose(remoteStdIn);
+			}
+		}
+
+		private long transfer(FileChannel source) throws IOException {
+			WritableByteChannel target = Channels.newChannel(remoteStdIn);
+			long position = source.position();
+			long size = source.size();
+			long sent = 0;
+			while (position < size) {
+				long transferred = source.transferTo(position, Math.min(TRANSFER_SIZE, size - position), target);
+				if (transferred <= 0) {
+					// file was truncated
+					break;
+				}
+				position += transferred;
+				sent += transferred;
+				progressed(sent);
+			}
+			return sent;
+		}
+
+		private long copy() throws IOException {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long sent = 0;
+			for (int read = -1; (read = input.read(buffer)) != -1;) {
+				remoteStdIn.write(buffer, 0, read);
+				sent += read;
+				progressed(sent);
+			}
+			return sent;
+		}
+
+		private void progressed(long sent) throws InterruptedIOException {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("Upload was cancelled");
+			}
+			if (listener == null) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if (now - lastProgress < PROGRESS_INTERVAL) {
+				return;
+			}
+			this.lastProgress = now;
+			listener.progressed(sent, sent * 1000 / Math.max(now - start, 1));
+		}
+	}
+
+	/**
+	 * The response of a remote command. Reads the channel data in chunks into
+	 * a buffer. Reading blocks until the remote sends data or closes the
+	 * channel, the channel stream notifies readers as soon as data arrives.
+	 * Once all data was read the exit status of the command is checked and the
+	 * error output is reported if the command failed.
+	 */
+	static class ChannelResponse extends InputStream {
 
-		/** the delay to wait for further data from the remote **/
-		private static final int WAIT_DELAY = 1000;
+		/** the size of the buffer that the channel data is read into **/
+		private static final int BUFFER_SIZE = 32 * 1024;
 
-		private ChannelExec channel;
-		private InputStream channelInputStream;
-		private InputStream channelErrorStream;
+		private final ChannelExec channel;
+		private final InputStream channelInputStream;
+		private final InputStream channelErrorStream;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int position;
+		private int count;
+		private boolean eof;
+		private volatile Future<Long> upload;
 
 		protected ChannelResponse(InputStream response, ChannelExec channel)
 				throws IOException, JSchException {
@@ -583,37 +1462,115 @@ public class ApplicationSSHSession implements IApplicationSSHSession {
 
 		@Override
 		public int read() throws IOException {
-			if (channel.isClosed()
-					&& channel.getExitStatus() != 0) {
-				throw new IOException(StreamUtils.readToString(channelErrorStream));
+			if (position >= count
+					&& !fill()) {
+				return -1;
 			}
-			while (!(channel.isClosed()
-			&& channelInputStream.available() == 0)) {
-				if (channelInputStream.available() > 0) {
-					int data = channelInputStream.read();
-					if (data == -1) {
-						continue;
-					}
-					return data;
+			return buffer[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] data, int offset, int length) throws IOException {
+			if (offset < 0
+					|| length < 0
+					|| length > data.length - offset) {
+				throw new IndexOutOfBoundsException();
+			} else if (length == 0) {
+				return 0;
+			}
+			if (position >= count) {
+				if (length >= buffer.length) {
+					// no need to copy large reads through the buffer
+					return readChannel(data, offset, length);
 				}
-				try {
-					Thread.sleep(WAIT_DELAY);
-				} catch (InterruptedException e) {
-					break;
+				if (!fill()) {
+					return -1;
 				}
 			}
-			return -1;
+			int read = Math.min(length, count - position);
+			System.arraycopy(buffer, position, data, offset, read);
+			position += read;
+			return read;
+		}
+
+		private boolean fill() throws IOException {
+			int read = readChannel(buffer, 0, buffer.length);
+			if (read == -1) {
+				return false;
+			}
+			this.position = 0;
+			this.count = read;
+			return true;
+		}
+
+		/**
+		 * Reads from the channel, blocks until data is available or the
+		 * remote closed the channel.
+		 */
+		private int readChannel(byte[] data, int offset, int length) throws IOException {
+			if (eof) {
+				return -1;
+			}
+			int read = channelInputStream.read(data, offset, length);
+			if (read == -1) {
+				this.eof = true;
+				assertExitStatus();
+				assertUploaded();
+			}
+			return read;
+		}
+
+		/**
+		 * Sets the upload to the standard input of the command. Its failure is
+		 * reported once all output was read.
+		 */
+		void setUpload(Future<Long> upload) {
+			this.upload = upload;
+		}
+
+		private void assertUploaded() throws IOException {
+			Future<Long> upload = this.upload;
+			if (upload == null) {
+				return;
+			}
+			try {
+				upload.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the upload to complete");
+			} catch (ExecutionException e) {
+				throw new IOException("Could not upload the input of the command: " + e.getCause().getMessage(),
+						e.getCause());
+			}
+		}
+
+		/**
+		 * Throws the error output if the command failed.
+		 */
+		private void assertExitStatus() throws IOException {
+			waitForClose(channel);
+			if (channel.isClosed()
+					&& channel.getExitStatus() != 0) {
+				throw new IOException(StreamUtils.readToString(channelErrorStream));
+			}
 		}
 
 		@Override
 		public void close() throws IOException {
+			Future<Long> upload = this.upload;
+			if (upload != null) {
+				upload.cancel(true);
+			}
 			channel.disconnect();
 			channelInputStream.close();
 		}
 
 		@Override
 		public int available() throws IOException {
-			return channelInputStream.available();
+			if (eof) {
+				return count - position;
+			}
+			return count - position + channelInputStream.available();
 		}
 	}
 
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.openshift.client.BulkOptions;
+import com.openshift.client.IApplication;
+import com.openshift.client.IBulkOperations;
+import com.openshift.client.IBulkResult;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ReentrantExecutorService;
+
+/**
+ * Runs operations on several applications on the given executor. The calling
+ * thread submits the operations and waits for them to complete. It never has
+ * more operations in flight than the options allow. Operations that are
+ * started from within a pool task run on the calling thread.
+ *
+ * @see ReentrantExecutorService
+ *
+ * @author Andre Dietisheim
+ *
+ * @see APIResource#getBulkOperations()
+ */
+public class BulkOperations implements IBulkOperations {
+
+	private final ExecutorService executor;
+
+	public BulkOperations(ExecutorService executor) {
+		this.executor = new ReentrantExecutorService(executor);
+	}
+
+	@Override
+	public IBulkResult start(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException {
+		return execute(applications, options, new Operation("start") {
+
+			@Override
+			protected void execute(IApplication application) throws OpenShiftException {
+				application.start();
+			}
+		});
+	}
+
+	@Override
+	public IBulkResult stop(Collection<IApplication> applications, final boolean force, BulkOptions options)
+			throws OpenShiftException {
+		return execute(applications, options, new Operation("stop") {
+
+			@Override
+			protected void execute(IApplication application) throws OpenShiftException {
+				application.stop(force);
+			}
+		});
+	}
+
+	@Override
+	public IBulkResult restart(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException {
+		return execute(applications, options, new Operation("restart") {
+
+			@Override
+			protected void execute(IApplication application) throws OpenShiftException {
+				application.restart();
+			}
+		});
+	}
+
+	@Override
+	public IBulkResult scaleUp(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException {
+		return execute(applications, options, new Operation("scale up") {
+
+			@Override
+			protected void execute(IApplication application) throws OpenShiftException {
+				application.scaleUp();
+			}
+		});
+	}
+
+	@Override
+	public IBulkResult scaleDown(Collection<IApplication> applications, BulkOptions options)
+			throws OpenShiftException {
+		return execute(applications, options, new Operation("scale down") {
+
+			@Override
+			protected void execute(IApplication application) throws OpenShiftException {
+				application.scaleDown();
+			}
+		});
+	}
+
+	@Override
+	public IBulkResult destroy(Collection<IApplication> applications, BulkOptions options) throws OpenShiftException {
+		return execute(applications, options, new Operation("destroy") {
+
+			@Override
+			protected void execute(IApplication application) throws OpenShiftException {
+				application.destroy();
+			}
+		});
+	}
+
+	private IBulkResult execute(Collection<IApplication> applications, BulkOptions options, Operation operation)
+			throws OpenShiftException {
+		Assert.notNull(applications);
+		Assert.notNull(options);
+
+		List<IApplication> pending = new ArrayList<IApplication>(applications);
+		BulkResult result = new BulkResult();
+		CompletionService<Outcome> completionService = new ExecutorCompletionService<Outcome>(executor);
+		List<Future<Outcome>> futures = new ArrayList<Future<Outcome>>();
+		int windowSize = options.getRollingWindow() == BulkOptions.NO_ROLLING_WINDOW ?
+				Math.max(pending.size(), 1) : options.getRollingWindow();
+		int next = 0;
+		try {
+			for (int windowStart = 0; windowStart < pending.size() && !result.isStopped(); windowStart += windowSize) {
+				if (windowStart > 0) {
+					Thread.sleep(options.getRollingWindowDelay());
+				}
+				int windowEnd = Math.min(windowStart + windowSize, pending.size());
+				int running = 0;
+				while (running > 0
+						|| (next < windowEnd && !result.isStopped())) {
+					while (running < options.getParallelism()
+							&& next < windowEnd
+							&& !result.isStopped()) {
+						futures.add(completionService.submit(operation.on(pending.get(next++))));
+						running++;
+					}
+					result.add(completionService.take().get());
+					running--;
+					if (shouldStop(result, options)) {
+						result.stop();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			cancel(futures);
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while running {0} on {1} applications",
+					operation.getName(), pending.size());
+		} catch (ExecutionException e) {
+			// operations report their failures in their outcome
+			cancel(futures);
+			throw new OpenShiftException(e.getCause(), "Could not run {0} on {1} applications",
+					operation.getName(), pending.size());
+		}
+		result.skip(pending.subList(next, pending.size()));
+		return result;
+	}
+
+	private boolean shouldStop(BulkResult result, BulkOptions options) {
+		if (options.getFailureRatio() == BulkOptions.NO_FAILURE_RATIO) {
+			return false;
+		}
+		int completed = result.getCompleted();
+		return completed >= options.getMinCompleted()
+				&& result.getFailed().size() > options.getFailureRatio() * completed;
+	}
+
+	private void cancel(List<Future<Outcome>> futures) {
+		for (Future<Outcome> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * An operation on a single application.
+	 */
+	private abstract static class Operation {
+
+		private final String name;
+
+		private Operation(String name) {
+			this.name = name;
+		}
+
+		protected abstract void execute(IApplication application) throws OpenShiftException;
+
+		private Callable<Outcome> on(final IApplication application) {
+			return new Callable<Outcome>() {
+
+				@Override
+				public Outcome call() {
+					try {
+						execute(application);
+						return new Outcome(application, null);
+					} catch (OpenShiftException e) {
+						return new Outcome(application, e);
+					} catch (RuntimeException e) {
+						return new Outcome(application, new OpenShiftException(e,
+								"Could not {0} application {1}: {2}", name, application.getName(), e.getMessage()));
+					}
+				}
+			};
+		}
+
+		private String getName() {
+			return name;
+		}
+	}
+
+	static class Outcome {
+
+		private final IApplication application;
+		private final OpenShiftException failure;
+
+		private Outcome(IApplication application, OpenShiftException failure) {
+			this.application = application;
+			this.failure = failure;
+		}
+
+		IApplication getApplication() {
+			return application;
+		}
+
+		OpenShiftException getFailure() {
+			return failure;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.openshift.client.IApplication;
+import com.openshift.client.IBulkResult;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.BulkOperations.Outcome;
+
+/**
+ * The outcomes of a bulk operation in the order in which the operations
+ * completed. Only the thread that runs the bulk operation updates it.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see BulkOperations
+ */
+class BulkResult implements IBulkResult {
+
+	private final List<IApplication> succeeded = new ArrayList<IApplication>();
+	private final Map<IApplication, OpenShiftException> failed = new LinkedHashMap<IApplication, OpenShiftException>();
+	private final List<IApplication> skipped = new ArrayList<IApplication>();
+	private boolean stopped;
+
+	void add(Outcome outcome) {
+		if (outcome.getFailure() == null) {
+			succeeded.add(outcome.getApplication());
+		} else {
+			failed.put(outcome.getApplication(), outcome.getFailure());
+		}
+	}
+
+	void skip(List<IApplication> applications) {
+		skipped.addAll(applications);
+	}
+
+	void stop() {
+		this.stopped = true;
+	}
+
+	int getCompleted() {
+		return succeeded.size() + failed.size();
+	}
+
+	@Override
+	public List<IApplication> getSucceeded() {
+		return Collections.unmodifiableList(succeeded);
+	}
+
+	@Override
+	public Map<IApplication, OpenShiftException> getFailed() {
+		return Collections.unmodifiableMap(failed);
+	}
+
+	@Override
+	public List<IApplication> getSkipped() {
+		return Collections.unmodifiableList(skipped);
+	}
+
+	@Override
+	public boolean isSuccessful() {
+		return failed.isEmpty()
+				&& skipped.isEmpty();
+	}
+
+	@Override
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkResult ["
+				+ "succeeded=" + succeeded.size()
+				+ ", failed=" + failed.size()
+				+ ", skipped=" + skipped.size()
+				+ ", stopped=" + stopped
+				+ "]";
+	}
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.CircuitOpenOpenShiftException;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A circuit breaker that stops requests to servers that are failing. Each
+ * server (protocol, host and port) has its own circuit:
+ * <ul>
+ * <li><b>closed</b>: requests are sent. The outcomes of the most recent
+ * requests are recorded and the circuit opens once enough of them failed
+ * (timed out, server error or no response) or were slow.</li>
+ * <li><b>open</b>: requests fail immediately with a
+ * {@link CircuitOpenOpenShiftException}. The circuit turns half-open after
+ * the open duration.</li>
+ * <li><b>half-open</b>: a limited number of probe requests are sent. The
+ * circuit closes if they all succeed and opens again as soon as one fails.</li>
+ * </ul>
+ * A breaker may be shared by several rest services.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see RestService#setCircuitBreaker(CircuitBreaker)
+ */
+public class CircuitBreaker {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	public static final int DEFAULT_WINDOW_SIZE = 20;
+	public static final int DEFAULT_MIN_CALLS = 10;
+	public static final double DEFAULT_FAILURE_RATE = 0.5;
+	public static final long DEFAULT_SLOW_CALL_DURATION = 30 * 1000;
+	public static final double DEFAULT_SLOW_CALL_RATE = 0.8;
+	public static final long DEFAULT_OPEN_DURATION = 30 * 1000;
+	public static final int DEFAULT_HALF_OPEN_CALLS = 1;
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int windowSize;
+	private final int minCalls;
+	private final double failureRate;
+	private final long slowCallDuration;
+	private final double slowCallRate;
+	private final long openDuration;
+	private final int halfOpenCalls;
+	private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+	private volatile IStateListener listener;
+
+	public CircuitBreaker() {
+		this(DEFAULT_WINDOW_SIZE, DEFAULT_MIN_CALLS, DEFAULT_FAILURE_RATE, DEFAULT_SLOW_CALL_DURATION,
+				DEFAULT_SLOW_CALL_RATE, DEFAULT_OPEN_DURATION, DEFAULT_HALF_OPEN_CALLS);
+	}
+
+	/**
+	 * @param windowSize
+	 *            the number of most recent requests whose outcome is recorded
+	 * @param minCalls
+	 *            the minimum number of recorded requests before the circuit
+	 *            may open
+	 * @param failureRate
+	 *            the rate (0 to 1) of failed requests that opens the circuit
+	 * @param slowCallDuration
+	 *            the duration (in millis) from which on a request is slow
+	 * @param slowCallRate
+	 *            the rate (0 to 1) of slow requests that opens the circuit
+	 * @param openDuration
+	 *            the duration (in millis) that the circuit stays open
+	 * @param halfOpenCalls
+	 *            the number of probe requests in the half-open state
+	 */
+	public CircuitBreaker(int windowSize, int minCalls, double failureRate, long slowCallDuration,
+			double slowCallRate, long openDuration, int halfOpenCalls) {
+		Assert.isTrue(windowSize > 0);
+		Assert.isTrue(minCalls > 0 && minCalls <= windowSize);
+		Assert.isTrue(failureRate > 0 && failureRate <= 1);
+		Assert.isTrue(slowCallRate > 0 && slowCallRate <= 1);
+		Assert.isTrue(halfOpenCalls > 0);
+
+		this.windowSize = windowSize;
+		this.minCalls = minCalls;
+		this.failureRate = failureRate;
+		this.slowCallDuration = slowCallDuration;
+		this.slowCallRate = slowCallRate;
+		this.openDuration = openDuration;
+		this.halfOpenCalls = halfOpenCalls;
+	}
+
+	/**
+	 * Asks for permission to request the given url.
+	 *
+	 * @throws CircuitOpenOpenShiftException
+	 *             if the circuit of the server is open
+	 */
+	public void acquire(String url) throws CircuitOpenOpenShiftException {
+		String server = getServer(url);
+		if (!getCircuit(server).acquire(System.currentTimeMillis())) {
+			throw new CircuitOpenOpenShiftException(url, server);
+		}
+	}
+
+	/**
+	 * Records the outcome of a request that was permitted before.
+	 *
+	 * @param url
+	 *            the url that was requested
+	 * @param duration
+	 *            the duration of the request in millis
+	 * @param e
+	 *            the failure or <code>null</code> if the server responded
+	 */
+	public void record(String url, long duration, Exception e) {
+		getCircuit(getServer(url)).record(isFailure(e), duration >= slowCallDuration, System.currentTimeMillis());
+	}
+
+	/**
+	 * Returns a permit that was acquired before for a request that was never
+	 * sent (ex. because it could not be encoded). The request neither counts
+	 * as a success nor as a failure.
+	 *
+	 * @param url
+	 *            the url that was not requested
+	 */
+	public void release(String url) {
+		getCircuit(getServer(url)).release();
+	}
+
+	/**
+	 * Returns <code>true</code> if the given failure tells that the server is
+	 * in trouble. Client errors (4xx) are no failures, the server responded
+	 * after all.
+	 */
+	protected boolean isFailure(Exception e) {
+		if (e == null) {
+			return false;
+		} else if (e instanceof SocketTimeoutException) {
+			return true;
+		} else if (e instanceof HttpClientException) {
+			int responseCode = ((HttpClientException) e).getResponseCode();
+			return responseCode == HttpClientException.NO_RESPONSE_CODE
+					|| responseCode >= 500;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the state of the circuit for the given server.
+	 *
+	 * @param server
+	 *            the server url (ex. https://openshift.redhat.com)
+	 */
+	public State getState(String server) {
+		Circuit circuit = circuits.get(getServer(server));
+		if (circuit == null) {
+			return State.CLOSED;
+		}
+		return circuit.getState();
+	}
+
+	/**
+	 * Sets the listener that gets notified when a circuit changes its state.
+	 */
+	public void setListener(IStateListener listener) {
+		this.listener = listener;
+	}
+
+	private Circuit getCircuit(String server) {
+		Circuit circuit = circuits.get(server);
+		if (circuit == null) {
+			circuit = new Circuit(server);
+			Circuit existing = circuits.putIfAbsent(server, circuit);
+			if (existing != null) {
+				circuit = existing;
+			}
+		}
+		return circuit;
+	}
+
+	private void notifyTransition(String server, State previous, State current) {
+		LOGGER.info("Circuit for {} changed from {} to {}", new Object[] { server, previous, current });
+		IStateListener listener = this.listener;
+		if (listener != null) {
+			listener.stateChanged(server, previous, current);
+		}
+	}
+
+	private String getServer(String url) {
+		try {
+			URL parsed = new URL(url);
+			return new StringBuilder(parsed.getProtocol()).append("://").append(parsed.getAuthority()).toString();
+		} catch (MalformedURLException e) {
+			return url;
+		}
+	}
+
+	/**
+	 * The state of a single server. Listeners are notified while the circuit
+	 * is locked so that they get the transitions in order.
+	 */
+	private class Circuit {
+
+		private final String server;
+		private State state = State.CLOSED;
+		private final boolean[] failed = new boolean[windowSize];
+		private final boolean[] slow = new boolean[windowSize];
+		private int index;
+		private int calls;
+		private int failures;
+		private int slowCalls;
+		private long openedAt;
+		private int probes;
+		private int succeededProbes;
+
+		private Circuit(String server) {
+			this.server = server;
+		}
+
+		private synchronized State getState() {
+			return state;
+		}
+
+		private synchronized boolean acquire(long now) {
+			if (state == State.OPEN) {
+				if (now - openedAt < openDuration) {
+					return false;
+				}
+				halfOpen();
+			}
+			if (state == State.HALF_OPEN) {
+				if (probes >= halfOpenCalls) {
+					return false;
+				}
+				probes++;
+			}
+			return true;
+		}
+
+		private synchronized void release() {
+			if (state == State.HALF_OPEN
+					&& probes > succeededProbes) {
+				probes--;
+			}
+		}
+
+		private synchronized void record(boolean failed, boolean slow, long now) {
+			switch (state) {
+			case HALF_OPEN:
+				if (failed || slow) {
+					open(now);
+				} else if (++succeededProbes >= halfOpenCalls) {
+					close();
+				}
+				break;
+			case CLOSED:
+				add(failed, slow);
+				if (calls >= minCalls
+						&& (failures >= failureRate * calls
+						|| slowCalls >= slowCallRate * calls)) {
+					open(now);
+				}
+				break;
+			default:
+				// requests that were sent before the circuit opened
+			}
+		}
+
+		private void add(boolean failed, boolean slow) {
+			if (calls == windowSize) {
+				// drop the oldest outcome
+				if (this.failed[index]) {
+					failures--;
+				}
+				if (this.slow[index]) {
+					slowCalls--;
+				}
+			} else {
+				calls++;
+			}
+			this.failed[index] = failed;
+			this.slow[index] = slow;
+			if (failed) {
+				failures++;
+			}
+			if (slow) {
+				slowCalls++;
+			}
+			this.index = (index + 1) % windowSize;
+		}
+
+		private void open(long now) {
+			setState(State.OPEN);
+			this.openedAt = now;
+		}
+
+		private void halfOpen() {
+			setState(State.HALF_OPEN);
+			this.probes = 0;
+			this.succeededProbes = 0;
+		}
+
+		private void close() {
+			setState(State.CLOSED);
+			this.index = 0;
+			this.calls = 0;
+			this.failures = 0;
+			this.slowCalls = 0;
+		}
+
+		private void setState(State state) {
+			State previous = this.state;
+			this.state = state;
+			notifyTransition(server, previous, state);
+		}
+	}
+
+	/**
+	 * A listener that gets notified when the circuit of a server changes its
+	 * state.
+	 */
+	public interface IStateListener {
+
+		public void stateChanged(String server, State previous, State current);
+	}
+}
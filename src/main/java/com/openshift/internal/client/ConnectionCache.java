@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * A cache for the rest services (and thus http clients) and api links of the
+ * connections that a factory creates. Connections for the same server, client
+ * id, login and credentials then share them instead of each creating its own
+ * client and requesting the api links again. Each connection still gets its
+ * own {@link APIResource} so that the user, domains etc. are not shared
+ * between callers.
+ * <p>
+ * Entries expire after the given time to live and the least recently used
+ * ones are evicted once the maximum number of entries is reached. The
+ * credentials are only kept as a hash in the keys. Connections only share an
+ * entry if they were created with the same ssl certificate callback or http
+ * client (instance).
+ *
+ * @author Andre Dietisheim
+ *
+ * @see com.openshift.client.OpenShiftConnectionFactory#setConnectionCache(ConnectionCache)
+ */
+public class ConnectionCache {
+
+	public static final long DEFAULT_TIME_TO_LIVE = 10 * 60 * 1000;
+	public static final int DEFAULT_MAX_ENTRIES = 100;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final char SEPARATOR = '\n';
+
+	private final long timeToLive;
+	private final int maxEntries;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private final LinkedHashMap<String, CachedConnection> connections =
+			new LinkedHashMap<String, CachedConnection>(16, 0.75f, true);
+
+	public ConnectionCache() {
+		this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param timeToLive
+	 *            the time (in millis) that an entry is reused
+	 * @param maxEntries
+	 *            the maximum number of entries
+	 */
+	public ConnectionCache(long timeToLive, int maxEntries) {
+		Assert.isTrue(timeToLive > 0);
+		Assert.isTrue(maxEntries > 0);
+		this.timeToLive = timeToLive;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Returns the cached connection for the given key or <code>null</code> if
+	 * there's none, if it expired or if it was created for a different
+	 * transport.
+	 * 
+	 * @param transport
+	 *            the ssl certificate callback or http client that the
+	 *            connection was created with, <code>null</code> for none
+	 */
+	synchronized CachedConnection get(String key, Object transport) {
+		CachedConnection connection = connections.get(key);
+		if (connection != null
+				&& connection.isExpired(System.currentTimeMillis())) {
+			connections.remove(key);
+			connection = null;
+		} else if (connection != null
+				&& connection.transport != transport) {
+			// replaced once the new connection is put
+			connection = null;
+		}
+		if (connection == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return connection;
+	}
+
+	synchronized void put(String key, Object transport, IRestService service, Map<String, Link> links) {
+		connections.put(key,
+				new CachedConnection(transport, service, links, System.currentTimeMillis() + timeToLive));
+		evict();
+	}
+
+	private void evict() {
+		Iterator<CachedConnection> iterator = connections.values().iterator();
+		while (connections.size() > maxEntries
+				&& iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized void clear() {
+		connections.clear();
+	}
+
+	/**
+	 * Returns the key for the connection with the given parameters. The
+	 * credentials are hashed.
+	 */
+	public static String createKey(String serverUrl, String clientId, String login, String password,
+			String authKey, String authIV) {
+		StringBuilder credentials = new StringBuilder()
+				.append(password).append(SEPARATOR)
+				.append(authKey).append(SEPARATOR)
+				.append(authIV);
+		return new StringBuilder()
+				.append(serverUrl).append(SEPARATOR)
+				.append(clientId).append(SEPARATOR)
+				.append(login).append(SEPARATOR)
+				.append(hash(credentials.toString()))
+				.toString();
+	}
+
+	private static String hash(String value) {
+		try {
+			byte[] digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(value.getBytes(StreamUtils.UTF_8));
+			StringBuilder builder = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				builder.append(Character.forDigit((b >> 4) & 0xf, 16))
+						.append(Character.forDigit(b & 0xf, 16));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new OpenShiftException(e, "Could not hash credentials");
+		} catch (UnsupportedEncodingException e) {
+			throw new OpenShiftException(e, "Could not hash credentials");
+		}
+	}
+
+	/**
+	 * Returns the number of connections that reused a cached entry.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of connections that had no (valid) cached entry.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of entries that were evicted to stay within the
+	 * maximum number of entries.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of entries in this cache.
+	 */
+	public synchronized int getCount() {
+		return connections.size();
+	}
+
+	static class CachedConnection {
+
+		private final Object transport;
+		private final IRestService service;
+		private final Map<String, Link> links;
+		private final long expiresAt;
+
+		private CachedConnection(Object transport, IRestService service, Map<String, Link> links, long expiresAt) {
+			this.transport = transport;
+			this.service = service;
+			this.links = links;
+			this.expiresAt = expiresAt;
+		}
+
+		IRestService getService() {
+			return service;
+		}
+
+		Map<String, Link> getLinks() {
+			return links;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+}
@@ -13,6 +13,7 @@ package com.openshift.internal.client;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -29,8 +30,10 @@ import com.openshift.client.OpenShiftRequestException;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
+import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
 import com.openshift.internal.client.response.ApplicationResourceDTO;
+import com.openshift.internal.client.response.DataListJsonDTOFactory;
 import com.openshift.internal.client.response.DomainResourceDTO;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.LinkParameter;
@@ -56,6 +59,8 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 	private final APIResource connectionResource;
 	// TODO: replace by a map indexed by application names ?
 	private List<IApplication> applications = null;
+	// guards the applications, they're destroyed concurrently by bulk operations
+	private final Object applicationsLock = new Object();
 
 	protected DomainResource(final String namespace, final String suffix, final Map<String, Link> links,
 			final Messages messages, final APIResource api) {
@@ -95,6 +100,13 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		return connectionResource.getUser();
 	}
 
+	/**
+	 * Returns the connection of this domain without loading its user.
+	 */
+	APIResource getConnectionResource() {
+		return connectionResource;
+	}
+
 	@Override
 	public IApplication createApplication(final String name, final IStandaloneCartridge cartridge)
 			throws OpenShiftException {
@@ -187,7 +199,9 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 						name, scale, gearProfile, initialGitUrl, timeout, environmentVariables, cartridges);
 		IApplication application = new ApplicationResource(applicationDTO, this);
 
-		getOrLoadApplications().add(application);
+		synchronized (applicationsLock) {
+			getOrLoadApplications().add(application);
+		}
 		return application;
 	}
 
@@ -259,14 +273,18 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 
 	@Override
 	public List<IApplication> getApplications() throws OpenShiftException {
-		return CollectionUtils.toUnmodifiableCopy(getOrLoadApplications());
+		synchronized (applicationsLock) {
+			return CollectionUtils.toUnmodifiableCopy(getOrLoadApplications());
+		}
 	}
 
 	protected List<IApplication> getOrLoadApplications() throws OpenShiftException {
-		if (applications == null) {
-			this.applications = loadApplications();
+		synchronized (applicationsLock) {
+			if (applications == null) {
+				this.applications = loadApplications();
+			}
+			return applications;
 		}
-		return applications;
 	}
 
 	/**
@@ -340,8 +358,10 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 	}
 
 	protected void removeApplication(IApplication application) {
-		// TODO: can this collection be a null ?
-		this.applications.remove(application);
+		synchronized (applicationsLock) {
+			// TODO: can this collection be a null ?
+			this.applications.remove(application);
+		}
 	}
 
 	@Override
@@ -375,11 +395,13 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 		final DomainResourceDTO domainResourceDTO = new GetDomainRequest().execute();
 		this.id = domainResourceDTO.getId();
 		this.suffix = domainResourceDTO.getSuffix();
-		if (applications == null) {
-			// not loaded yet
-			loadApplications();
-		} else {
-			updateApplications();
+		synchronized (applicationsLock) {
+			if (applications == null) {
+				// not loaded yet
+				loadApplications();
+			} else {
+				updateApplications();
+			}
 		}
 	}
 
@@ -444,7 +466,8 @@ public class DomainResource extends AbstractOpenShiftResource implements IDomain
 			Parameters urlParameters = new Parameters()
 					.include(IOpenShiftParameterConstants.PARAMETER_CARTRIDGES);
 
-			return super.execute(urlParameters.toList());
+			return super.execute(IHttpClient.NO_TIMEOUT, DataListJsonDTOFactory.APPLICATIONS,
+					Collections.<Parameter> emptyList(), urlParameters.toList());
 		}
 	}
 
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.openshift.client.IGear;
+import com.openshift.client.IGearExecResult;
+import com.openshift.client.OpenShiftException;
+
+/**
+ * The outcomes of a command on several gears in the order in which they
+ * completed. Only the thread that runs the command updates it.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see ApplicationSSHSession#execOnGears(String, int, com.openshift.client.IGearExecCallback)
+ */
+class GearExecResult implements IGearExecResult {
+
+	private final Map<IGear, Integer> exitStatus = new LinkedHashMap<IGear, Integer>();
+	private final Map<IGear, OpenShiftException> failed = new LinkedHashMap<IGear, OpenShiftException>();
+
+	void completed(IGear gear, int exitStatus) {
+		this.exitStatus.put(gear, exitStatus);
+	}
+
+	void failed(IGear gear, OpenShiftException e) {
+		failed.put(gear, e);
+	}
+
+	@Override
+	public Map<IGear, Integer> getExitStatus() {
+		return Collections.unmodifiableMap(exitStatus);
+	}
+
+	@Override
+	public Map<IGear, OpenShiftException> getFailed() {
+		return Collections.unmodifiableMap(failed);
+	}
+
+	@Override
+	public boolean isSuccessful() {
+		if (!failed.isEmpty()) {
+			return false;
+		}
+		for (Integer status : exitStatus.values()) {
+			if (status != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "GearExecResult ["
+				+ "completed=" + exitStatus.size()
+				+ ", failed=" + failed.size()
+				+ "]";
+	}
+}
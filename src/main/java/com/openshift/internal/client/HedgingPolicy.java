@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.ExecutorUtils;
+
+/**
+ * A policy for hedged requests: a read-only request that did not get an
+ * answer within the given percentile of the recent response times is sent a
+ * second time and the first response wins. Hedging only starts once enough
+ * response times were recorded. The number of hedged requests is capped at a
+ * given rate of all requests so that the load on the server only rises
+ * slightly.
+ * <p>
+ * Only GET and HEAD requests are hedged, either all of them or the ones for
+ * the given links (ex. LIST_APPLICATIONS). Links are identified by the name
+ * that the resources list them by, see {@link Link#getName()}.
+ * <p>
+ * Requests that cannot be hedged (not enough response times yet or the budget
+ * is spent) are sent on the calling thread. The others are sent on a bounded
+ * executor while the calling thread waits for the first answer.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see RestService#setHedgingPolicy(HedgingPolicy)
+ */
+public class HedgingPolicy {
+
+	public static final double DEFAULT_PERCENTILE = 0.95;
+	public static final long DEFAULT_MIN_DELAY = 50;
+	public static final double DEFAULT_MAX_HEDGE_RATE = 0.05;
+	public static final int DEFAULT_MAX_THREADS = 10;
+
+	private static final long THREAD_KEEP_ALIVE = 60;
+
+	private static final int WINDOW_SIZE = 100;
+	private static final int MIN_SAMPLES = 10;
+
+	private final double percentile;
+	private final long minDelay;
+	private final double maxHedgeRate;
+	private final ExecutorService executor;
+	private volatile Set<String> hedgedLinks;
+
+	private final long[] durations = new long[WINDOW_SIZE];
+	private int index;
+	private int samples;
+	private long requests;
+	private long hedges;
+	private long hedgeWins;
+
+	public HedgingPolicy() {
+		this(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY, DEFAULT_MAX_HEDGE_RATE);
+	}
+
+	/**
+	 * @param percentile
+	 *            the percentile (0 to 1) of the recent response times after
+	 *            which a request is hedged
+	 * @param minDelay
+	 *            the minimum delay (in millis) before a request is hedged
+	 * @param maxHedgeRate
+	 *            the maximum rate (0 to 1) of requests that are hedged
+	 */
+	public HedgingPolicy(double percentile, long minDelay, double maxHedgeRate) {
+		this(percentile, minDelay, maxHedgeRate, new ThreadPoolExecutor(0, DEFAULT_MAX_THREADS,
+				THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+				ExecutorUtils.newDaemonThreadFactory("openshift-java-client-hedge")));
+	}
+
+	/**
+	 * @param executor
+	 *            the executor that the requests that may be hedged are sent
+	 *            with. Requests are sent on the calling thread and not hedged
+	 *            if the executor rejects them.
+	 */
+	public HedgingPolicy(double percentile, long minDelay, double maxHedgeRate, ExecutorService executor) {
+		Assert.isTrue(percentile > 0 && percentile <= 1);
+		Assert.isTrue(minDelay >= 0);
+		Assert.isTrue(maxHedgeRate >= 0 && maxHedgeRate <= 1);
+		Assert.notNull(executor);
+
+		this.percentile = percentile;
+		this.minDelay = minDelay;
+		this.maxHedgeRate = maxHedgeRate;
+		this.executor = executor;
+	}
+
+	/**
+	 * Restricts hedging to the links with the given names (ex.
+	 * LIST_APPLICATIONS). All GET and HEAD links are hedged if none are given.
+	 */
+	public void setHedgedLinks(String... linkNames) {
+		if (linkNames == null
+				|| linkNames.length == 0) {
+			this.hedgedLinks = null;
+		} else {
+			this.hedgedLinks = new HashSet<String>(Arrays.asList(linkNames));
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if requests to the given link may be hedged.
+	 */
+	public boolean isHedged(Link link) {
+		if (link.getHttpMethod() != HttpMethod.GET
+				&& link.getHttpMethod() != HttpMethod.HEAD) {
+			return false;
+		}
+		Set<String> hedgedLinks = this.hedgedLinks;
+		return hedgedLinks == null
+				|| (link.getName() != null
+					&& hedgedLinks.contains(link.getName()));
+	}
+
+	/**
+	 * Returns the delay (in millis) after which a request is hedged or
+	 * <code>-1</code> if not enough response times were recorded yet.
+	 */
+	public synchronized long getDelay() {
+		if (samples < MIN_SAMPLES) {
+			return -1;
+		}
+		long[] sorted = Arrays.copyOf(durations, samples);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile * samples) - 1;
+		return Math.max(minDelay, sorted[Math.max(0, rank)]);
+	}
+
+	/**
+	 * Records a request that's about to be sent.
+	 */
+	synchronized void requested() {
+		requests++;
+	}
+
+	/**
+	 * Returns <code>true</code> if the hedge budget allows another hedge.
+	 */
+	synchronized boolean canHedge() {
+		return hedges + 1 <= maxHedgeRate * requests;
+	}
+
+	/**
+	 * Asks for permission to hedge a request. Returns <code>false</code> if
+	 * the hedge budget is spent.
+	 */
+	synchronized boolean tryHedge() {
+		if (!canHedge()) {
+			return false;
+		}
+		hedges++;
+		return true;
+	}
+
+	/**
+	 * Gives back a hedge that was permitted but could not be sent.
+	 */
+	synchronized void unhedge() {
+		hedges--;
+	}
+
+	/**
+	 * Records the response time of a request.
+	 *
+	 * @param duration
+	 *            the response time in millis
+	 * @param hedgeWon
+	 *            whether the hedged request answered first
+	 */
+	synchronized void completed(long duration, boolean hedgeWon) {
+		durations[index] = duration;
+		this.index = (index + 1) % WINDOW_SIZE;
+		if (samples < WINDOW_SIZE) {
+			samples++;
+		}
+		if (hedgeWon) {
+			hedgeWins++;
+		}
+	}
+
+	ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Returns the number of requests that were hedged.
+	 */
+	public synchronized long getHedges() {
+		return hedges;
+	}
+
+	/**
+	 * Returns the number of hedged requests whose hedge answered first.
+	 */
+	public synchronized long getHedgeWins() {
+		return hedgeWins;
+	}
+
+	/**
+	 * Stops the executor that the requests are sent with.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.response.Link;
+
+/**
+ * A limiter that {@link RestService} asks for permission before it sends a
+ * request.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see RestService#setRateLimiter(IRateLimiter)
+ * @see TokenBucketRateLimiter
+ */
+public interface IRateLimiter {
+
+	/**
+	 * Blocks until the given request may be sent.
+	 *
+	 * @param url
+	 *            the url that shall be requested
+	 * @param link
+	 *            the link that's requested
+	 * @throws OpenShiftException
+	 *             if the request may not be sent
+	 */
+	public void acquire(String url, Link link) throws OpenShiftException;
+}
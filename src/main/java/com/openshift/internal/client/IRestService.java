@@ -11,6 +11,7 @@
 package com.openshift.internal.client;
 
 import java.util.List;
+import java.util.concurrent.Future;
 
 import com.openshift.client.IHttpClient;
 import com.openshift.client.OpenShiftException;
@@ -77,6 +78,33 @@ public interface IRestService {
 	public RestResponse request(Link link, int timeout, IMediaType mediaType, IRestResponseFactory responseFactory, List<Parameter> urlPathParameters,
 			List<Parameter> urlParameters, Parameter... parameters) throws OpenShiftException;
 
+	/**
+	 * Requests the given link without blocking the calling thread. Parameters
+	 * are handled as in
+	 * {@link #request(Link, int, IMediaType, IRestResponseFactory, List, List, Parameter...)}
+	 * . Failures are reported by the returned future, its
+	 * {@link java.util.concurrent.ExecutionException} holds the
+	 * {@link OpenShiftException} that the blocking request would have thrown.
+	 * 
+	 * @return the future rest response
+	 * @throws OpenShiftException
+	 *             if the request could not be dispatched
+	 */
+	public Future<RestResponse> requestAsync(Link link, int timeout, IRestResponseFactory responseFactory,
+			List<Parameter> urlPathParameters, List<Parameter> urlParameters, Parameter... parameters)
+			throws OpenShiftException;
+
+	/**
+	 * Requests the given link without blocking the calling thread and encodes
+	 * the parameters with the given media type.
+	 * 
+	 * @see #requestAsync(Link, int, IRestResponseFactory, List, List,
+	 *      Parameter...)
+	 */
+	public Future<RestResponse> requestAsync(Link link, int timeout, IMediaType requestMediaType,
+			IRestResponseFactory responseFactory, List<Parameter> urlPathParameters, List<Parameter> urlParameters,
+			Parameter... parameters) throws OpenShiftException;
+
 	/**
 	 * Returns the url for the OpenShift service, the endpoint which this rest
 	 * service class is talking to.
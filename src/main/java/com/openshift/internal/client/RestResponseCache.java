@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.openshift.internal.client.response.IRestResponseFactory;
+import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A cache for the responses to GET requests. It stores the validators
+ * (ETag and Last-Modified) that the server sent along with the parsed
+ * response so that the next GET to the same url can be sent conditionally.
+ * If the server answers with <code>304 Not Modified</code> the cached
+ * response is returned without downloading nor parsing it again. Responses
+ * are cached per url and response factory, a response that one factory
+ * parsed is never returned to a request that uses another factory.
+ * <p>
+ * The cache is bounded by the size of the response bodies that it holds.
+ * The least recently used responses are evicted once the maximum size is
+ * exceeded.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see RestService#setResponseCache(RestResponseCache)
+ */
+public class RestResponseCache {
+
+	public static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+	private final long maxSize;
+	private long size;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private final LinkedHashMap<CacheKey, CachedResponse> responses =
+			new LinkedHashMap<CacheKey, CachedResponse>(16, 0.75f, true);
+
+	public RestResponseCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize
+	 *            the maximum size (in bytes of response body) that this cache
+	 *            holds
+	 */
+	public RestResponseCache(long maxSize) {
+		Assert.isTrue(maxSize > 0);
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the response that was cached for the given url and response
+	 * factory or <code>null</code> if there's none.
+	 */
+	synchronized CachedResponse get(String url, IRestResponseFactory responseFactory) {
+		return responses.get(new CacheKey(url, responseFactory));
+	}
+
+	/**
+	 * Records a downloaded response and caches it for the given url. Responses
+	 * without a validator (ETag or Last-Modified) or that are larger than this
+	 * cache are not cached. Any response that was cached for the url and
+	 * response factory so far is discarded.
+	 */
+	synchronized void put(String url, IRestResponseFactory responseFactory, String etag, String lastModified,
+			RestResponse response, long size) {
+		misses++;
+		CacheKey key = new CacheKey(url, responseFactory);
+		remove(key);
+		if ((etag == null && lastModified == null)
+				|| response == null
+				|| size > maxSize) {
+			return;
+		}
+		responses.put(key, new CachedResponse(etag, lastModified, response, size));
+		this.size += size;
+		evict();
+	}
+
+	/**
+	 * Records that a cached response was still valid.
+	 */
+	synchronized void hit() {
+		hits++;
+	}
+
+	private void remove(CacheKey key) {
+		CachedResponse removed = responses.remove(key);
+		if (removed != null) {
+			this.size -= removed.getSize();
+		}
+	}
+
+	private void evict() {
+		Iterator<CachedResponse> iterator = responses.values().iterator();
+		while (size > maxSize
+				&& iterator.hasNext()) {
+			this.size -= iterator.next().getSize();
+			iterator.remove();
+			evictions++;
+		}
+	}
+
+	public synchronized void clear() {
+		responses.clear();
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the number of requests that the server answered with
+	 * <code>304 Not Modified</code> and that were served from this cache.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of requests whose response had to be downloaded.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of responses that were evicted to stay within the
+	 * maximum size.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the number of responses in this cache.
+	 */
+	public synchronized int getCount() {
+		return responses.size();
+	}
+
+	/**
+	 * Returns the sum of the sizes (in bytes) of the responses in this cache.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	private static class CacheKey {
+
+		private final String url;
+		private final IRestResponseFactory responseFactory;
+
+		private CacheKey(String url, IRestResponseFactory responseFactory) {
+			this.url = url;
+			this.responseFactory = responseFactory;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * url.hashCode() + System.identityHashCode(responseFactory);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return url.equals(other.url)
+					&& responseFactory == other.responseFactory;
+		}
+	}
+
+	static class CachedResponse {
+
+		private final String etag;
+		private final String lastModified;
+		private final RestResponse response;
+		private final long size;
+
+		private CachedResponse(String etag, String lastModified, RestResponse response, long size) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.response = response;
+			this.size = size;
+		}
+
+		String getEtag() {
+			return etag;
+		}
+
+		String getLastModified() {
+			return lastModified;
+		}
+
+		RestResponse getResponse() {
+			return response;
+		}
+
+		long getSize() {
+			return size;
+		}
+	}
+}
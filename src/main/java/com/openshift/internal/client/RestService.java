@@ -10,22 +10,46 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.openshift.client.HttpMethod;
 import com.openshift.client.IHttpClient;
+import com.openshift.client.IStreamingHttpClient;
+import com.openshift.client.IStreamingHttpClient.IHttpResponse;
+import com.openshift.client.IStreamingHttpClient.IHttpResponseReader;
+import com.openshift.client.IStreamingHttpClient.IResponseReader;
 import com.openshift.client.InvalidCredentialsOpenShiftException;
 import com.openshift.client.Messages;
 import com.openshift.client.NotFoundOpenShiftException;
 import com.openshift.client.OpenShiftEndpointException;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftTimeoutException;
+import com.openshift.internal.client.RestResponseCache.CachedResponse;
 import com.openshift.internal.client.httpclient.EncodingException;
 import com.openshift.internal.client.httpclient.HttpClientException;
 import com.openshift.internal.client.httpclient.NotFoundException;
@@ -36,6 +60,7 @@ import com.openshift.internal.client.response.IRestResponseFactory;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.RestResponse;
 import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.CountingInputStream;
 import com.openshift.internal.client.utils.StringUtils;
 import com.openshift.internal.client.utils.UrlUtils;
 
@@ -50,6 +75,17 @@ public class RestService implements IRestService {
 	private IMediaType defaultRequestMediaType;
 	private IHttpClient client;
 	private IRestResponseFactory factory;
+	private volatile Executor asyncExecutor;
+	private RestResponseCache responseCache;
+	private String protocolVersion;
+	private volatile RetryPolicy retryPolicy;
+	private volatile CircuitBreaker circuitBreaker;
+	private volatile IRateLimiter rateLimiter;
+	private volatile HedgingPolicy hedgingPolicy;
+	private volatile boolean coalesceRequests;
+	private final ConcurrentMap<RequestKey, FutureTask<RestResponse>> requestsInFlight =
+			new ConcurrentHashMap<RequestKey, FutureTask<RestResponse>>();
+	private final AtomicLong coalescedRequests = new AtomicLong();
 
 	public RestService(String server, String clientId, IMediaType defaultRequestMediaType, String acceptedMediaType,
 			IRestResponseFactory factory, IHttpClient client) {
@@ -81,6 +117,7 @@ public class RestService implements IRestService {
 		if (StringUtils.isEmpty(protocolVersion)) {
 			protocolVersion = SERVICE_VERSION;
 		}
+		this.protocolVersion = protocolVersion;
 		client.setAcceptedMediaType(acceptedMediaType);
 		client.setAcceptVersion(protocolVersion);
 		client.setUserAgent(userAgent);
@@ -99,31 +136,358 @@ public class RestService implements IRestService {
 	}
 	
 	@Override
-	public RestResponse request(Link link, int timeout, IMediaType requestMediaType, IRestResponseFactory responseFactory, List<Parameter> urlPathParameter,
-			List<Parameter> urlParameters, Parameter... parameters) throws OpenShiftException {
+	public RestResponse request(final Link link, final int timeout, final IMediaType requestMediaType,
+			final IRestResponseFactory responseFactory, List<Parameter> urlPathParameter,
+			List<Parameter> urlParameters, final Parameter... parameters) throws OpenShiftException {
 		// link.validateParameters(parameters);
-        String url = link.getHref(server, SERVICE_PATH, urlPathParameter, urlParameters);
-        try {
-            String response = request(new URL(url), link.getHttpMethod(), requestMediaType, timeout, parameters);
-            return responseFactory.get(response);
-        } catch (EncodingException e) {
-            throw new OpenShiftException(e, e.getMessage());
-		} catch (MalformedURLException e) {
-			throw new OpenShiftException(e, e.getMessage());
-        } catch (UnauthorizedException e) {
-            throw new InvalidCredentialsOpenShiftException(url, e, getRestResponse(e));
-        } catch (NotFoundException e) {
-            throw new NotFoundOpenShiftException(url, e, getRestResponse(e));
-        } catch (HttpClientException e) {
-        	RestResponse restResponse = getRestResponse(e);
-        	String message = getMessage(restResponse, e);
-			throw new OpenShiftEndpointException(
-					url.toString(), e, restResponse, "Could not request {0}: {1}", url, message);
-        } catch (SocketTimeoutException e) {
-            throw new OpenShiftTimeoutException(url, e,
-                    "Could not request url {0}, connection timed out", url);
-        }
-		
+		final String url = link.getHref(server, SERVICE_PATH, urlPathParameter, urlParameters);
+		if (coalesceRequests
+				&& link.getHttpMethod() == HttpMethod.GET) {
+			return requestCoalesced(new RequestKey(link.getHttpMethod(), url, protocolVersion, responseFactory),
+					new Callable<RestResponse>() {
+
+						@Override
+						public RestResponse call() throws Exception {
+							return request(url, link, timeout, requestMediaType, responseFactory, parameters);
+						}
+					});
+		}
+		return request(url, link, timeout, requestMediaType, responseFactory, parameters);
+	}
+
+	/**
+	 * Executes the given request unless an identical one is in flight
+	 * already. The response of the request in flight is returned in that
+	 * case.
+	 */
+	private RestResponse requestCoalesced(RequestKey key, Callable<RestResponse> request) {
+		FutureTask<RestResponse> task = new FutureTask<RestResponse>(request);
+		FutureTask<RestResponse> inFlight = requestsInFlight.putIfAbsent(key, task);
+		if (inFlight == null) {
+			try {
+				task.run();
+			} finally {
+				requestsInFlight.remove(key, task);
+			}
+			inFlight = task;
+		} else {
+			coalescedRequests.incrementAndGet();
+			LOGGER.debug("Joining request in flight to {}", key.url);
+		}
+		try {
+			return inFlight.get();
+		} catch (ExecutionException e) {
+			throw createException(key.url, toException(e.getCause()));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while waiting for the response of {0}", key.url);
+		}
+	}
+
+	private Exception toException(Throwable throwable) {
+		if (throwable instanceof Error) {
+			throw (Error) throwable;
+		}
+		return (Exception) throwable;
+	}
+
+	private RestResponse request(String url, Link link, int timeout, IMediaType requestMediaType,
+			IRestResponseFactory responseFactory, Parameter... parameters) throws OpenShiftException {
+		for (int attempt = 1;; attempt++) {
+			// an open circuit fails fast without spending a rate limit permit
+			CircuitBreaker circuitBreaker = this.circuitBreaker;
+			if (circuitBreaker != null) {
+				circuitBreaker.acquire(url);
+			}
+			IRateLimiter rateLimiter = this.rateLimiter;
+			if (rateLimiter != null) {
+				try {
+					rateLimiter.acquire(url, link);
+				} catch (RuntimeException e) {
+					if (circuitBreaker != null) {
+						circuitBreaker.release(url);
+					}
+					throw e;
+				}
+			}
+			long start = System.currentTimeMillis();
+			Exception failure = null;
+			boolean sent = false;
+			try {
+				RestResponse response = null;
+				HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+				if (hedgingPolicy != null
+						&& hedgingPolicy.isHedged(link)) {
+					response = sendHedged(url, link, timeout, requestMediaType, responseFactory, hedgingPolicy,
+							parameters);
+				} else {
+					response = send(url, link, timeout, requestMediaType, responseFactory, parameters);
+				}
+				sent = true;
+				RetryPolicy retryPolicy = this.retryPolicy;
+				if (retryPolicy != null) {
+					retryPolicy.attempted(url, attempt, System.currentTimeMillis() - start, null, false);
+				}
+				return response;
+			} catch (EncodingException e) {
+				throw createException(url, e);
+			} catch (MalformedURLException e) {
+				throw createException(url, e);
+			} catch (HttpClientException e) {
+				failure = e;
+				sent = true;
+			} catch (SocketTimeoutException e) {
+				failure = e;
+				sent = true;
+			} finally {
+				if (circuitBreaker != null) {
+					if (sent) {
+						circuitBreaker.record(url, System.currentTimeMillis() - start, failure);
+					} else {
+						// not sent (ex. not encodable), no verdict on the server
+						circuitBreaker.release(url);
+					}
+				}
+			}
+			retryOrThrow(url, link, attempt, start, failure);
+		}
+	}
+
+	private RestResponse send(String url, Link link, int timeout, IMediaType requestMediaType,
+			IRestResponseFactory responseFactory, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException, MalformedURLException {
+		if (responseCache != null
+				&& link.getHttpMethod() == HttpMethod.GET
+				&& client instanceof IStreamingHttpClient) {
+			return requestCached(url, timeout, responseFactory, (IStreamingHttpClient) client);
+		}
+		if (client instanceof IStreamingHttpClient) {
+			return request(new URL(url), link.getHttpMethod(), requestMediaType, timeout, responseFactory,
+					(IStreamingHttpClient) client, parameters);
+		}
+		String response = request(new URL(url), link.getHttpMethod(), requestMediaType, timeout, parameters);
+		return responseFactory.get(response);
+	}
+
+	/**
+	 * Sends the given request and sends it a second time if it did not get an
+	 * answer within the delay of the hedging policy. The first response wins,
+	 * the other request is cancelled.
+	 */
+	private RestResponse sendHedged(final String url, final Link link, final int timeout,
+			final IMediaType requestMediaType, final IRestResponseFactory responseFactory,
+			HedgingPolicy hedgingPolicy, final Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException, MalformedURLException {
+		long delay = hedgingPolicy.getDelay();
+		hedgingPolicy.requested();
+		long start = System.currentTimeMillis();
+		if (delay < 0
+				|| !hedgingPolicy.canHedge()) {
+			// nothing to race against, send on the calling thread
+			return sendUnhedged(url, link, timeout, requestMediaType, responseFactory, hedgingPolicy, start,
+					parameters);
+		}
+
+		Callable<RestResponse> request = new Callable<RestResponse>() {
+
+			@Override
+			public RestResponse call() throws Exception {
+				return send(url, link, timeout, requestMediaType, responseFactory, parameters);
+			}
+		};
+		CompletionService<RestResponse> completionService =
+				new ExecutorCompletionService<RestResponse>(hedgingPolicy.getExecutor());
+		Future<RestResponse> first = null;
+		try {
+			first = completionService.submit(request);
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Hedging executor is saturated, not hedging request to {}", url);
+			return sendUnhedged(url, link, timeout, requestMediaType, responseFactory, hedgingPolicy, start,
+					parameters);
+		}
+		Future<RestResponse> hedge = null;
+		try {
+			Future<RestResponse> done = completionService.poll(delay, TimeUnit.MILLISECONDS);
+			if (done == null) {
+				if (hedgingPolicy.tryHedge()) {
+					LOGGER.debug("No answer from {} within {} ms, hedging request", url, delay);
+					try {
+						hedge = completionService.submit(request);
+					} catch (RejectedExecutionException e) {
+						hedgingPolicy.unhedge();
+					}
+				}
+				done = completionService.take();
+			}
+			int pending = hedge == null ? 1 : 2;
+			while (true) {
+				try {
+					RestResponse response = done.get();
+					hedgingPolicy.completed(System.currentTimeMillis() - start, done == hedge);
+					return response;
+				} catch (ExecutionException e) {
+					if (--pending == 0) {
+						throw toRequestException(url, e.getCause());
+					}
+					// wait for the other request
+					done = completionService.take();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while waiting for the response of {0}", url);
+		} finally {
+			first.cancel(true);
+			if (hedge != null) {
+				hedge.cancel(true);
+			}
+		}
+	}
+
+	private RestResponse sendUnhedged(String url, Link link, int timeout, IMediaType requestMediaType,
+			IRestResponseFactory responseFactory, HedgingPolicy hedgingPolicy, long start, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException, MalformedURLException {
+		RestResponse response = send(url, link, timeout, requestMediaType, responseFactory, parameters);
+		hedgingPolicy.completed(System.currentTimeMillis() - start, false);
+		return response;
+	}
+
+	private HttpClientException toRequestException(String url, Throwable throwable)
+			throws SocketTimeoutException, EncodingException, MalformedURLException {
+		if (throwable instanceof HttpClientException) {
+			return (HttpClientException) throwable;
+		} else if (throwable instanceof SocketTimeoutException) {
+			throw (SocketTimeoutException) throwable;
+		} else if (throwable instanceof EncodingException) {
+			throw (EncodingException) throwable;
+		} else if (throwable instanceof MalformedURLException) {
+			throw (MalformedURLException) throwable;
+		}
+		throw createException(url, toException(throwable));
+	}
+
+	/**
+	 * Waits for the next attempt if the retry policy allows the given link to
+	 * be retried after the given failure. Throws the failure otherwise.
+	 */
+	private void retryOrThrow(String url, Link link, int attempt, long start, Exception e)
+			throws OpenShiftException {
+		RetryPolicy retryPolicy = this.retryPolicy;
+		if (retryPolicy == null) {
+			throw createException(url, e);
+		}
+		boolean retry = retryPolicy.isRetryable(link)
+				&& retryPolicy.shouldRetry(e, attempt);
+		retryPolicy.attempted(url, attempt, System.currentTimeMillis() - start, e, retry);
+		if (!retry) {
+			throw createException(url, e);
+		}
+		long delay = retryPolicy.getDelay(attempt);
+		LOGGER.warn("Attempt {} to request {} failed ({}), retrying in {} ms",
+				new Object[] { attempt, url, e.getMessage(), delay });
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw createException(url, e);
+		}
+	}
+
+	/**
+	 * Requires an async executor to be set.
+	 * 
+	 * @see #setAsyncExecutor(Executor)
+	 */
+	@Override
+	public Future<RestResponse> requestAsync(Link link, int timeout, IRestResponseFactory responseFactory,
+			List<Parameter> urlPathParameters, List<Parameter> urlParameters, Parameter... parameters)
+			throws OpenShiftException {
+		return requestAsync(link, timeout, defaultRequestMediaType, responseFactory, urlPathParameters,
+				urlParameters, parameters);
+	}
+
+	/**
+	 * Runs the blocking request (along with retries, circuit breaker, rate
+	 * limiter, response cache and coalescing) on the async executor. The
+	 * calling thread is not blocked but each request in flight occupies a
+	 * thread of the executor.
+	 * 
+	 * @see #setAsyncExecutor(Executor)
+	 */
+	@Override
+	public Future<RestResponse> requestAsync(final Link link, final int timeout, final IMediaType requestMediaType,
+			final IRestResponseFactory responseFactory, final List<Parameter> urlPathParameters,
+			final List<Parameter> urlParameters, final Parameter... parameters) throws OpenShiftException {
+		Executor asyncExecutor = this.asyncExecutor;
+		if (asyncExecutor == null) {
+			throw new OpenShiftException("Could not request {0}: no asynchronous executor set", link.getHref());
+		}
+		final RestResponseFuture future = new RestResponseFuture();
+		asyncExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				if (!future.start()) {
+					// cancelled before it ran
+					return;
+				}
+				try {
+					future.set(request(link, timeout, requestMediaType, responseFactory, urlPathParameters,
+							urlParameters, parameters));
+				} catch (OpenShiftException e) {
+					future.setException(e);
+				} catch (RuntimeException e) {
+					future.setException(
+							new OpenShiftException(e, "Could not request {0}: {1}", link.getHref(), e.getMessage()));
+				} catch (Error e) {
+					future.setException(e);
+					throw e;
+				}
+			}
+		});
+		return future;
+	}
+
+	private OpenShiftException createException(String url, Exception e) {
+		if (e instanceof OpenShiftException) {
+			return (OpenShiftException) e;
+		} else if (e instanceof EncodingException
+				|| e instanceof MalformedURLException) {
+			return new OpenShiftException(e, e.getMessage());
+		} else if (e instanceof HttpClientException) {
+			return createException(url, (HttpClientException) e);
+		} else if (e instanceof SocketTimeoutException) {
+			return new OpenShiftTimeoutException(url, e,
+					"Could not request url {0}, connection timed out", url);
+		} else {
+			return new OpenShiftException(e, "Could not request {0}: {1}", url, e.getMessage());
+		}
+	}
+
+	private OpenShiftException createException(String url, HttpClientException e) {
+		if (e instanceof UnauthorizedException) {
+			return new InvalidCredentialsOpenShiftException(url, e, getRestResponse(e));
+		} else if (e instanceof NotFoundException) {
+			return new NotFoundOpenShiftException(url, e, getRestResponse(e));
+		} else {
+			RestResponse restResponse = getRestResponse(e);
+			String message = getMessage(restResponse, e);
+			return new OpenShiftEndpointException(
+					url, e, restResponse, "Could not request {0}: {1}", url, message);
+		}
+	}
+
+	/**
+	 * Sets the executor that asynchronous requests run on.
+	 * 
+	 * @param asyncExecutor
+	 *            the executor to use
+	 * 
+	 * @see #requestAsync(Link, int, IMediaType, IRestResponseFactory, List,
+	 *      List, Parameter...)
+	 */
+	public void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
 	}
 
 	private RestResponse getRestResponse(HttpClientException clientException) {
@@ -175,6 +539,178 @@ public class RestService implements IRestService {
 		
 	}
 	
+	/**
+	 * Requests the given url and parses the response while it is received.
+	 */
+	private RestResponse request(URL url, HttpMethod httpMethod, IMediaType mediaType, int timeout,
+			final IRestResponseFactory responseFactory, IStreamingHttpClient client, Parameter... parameters)
+			throws HttpClientException, SocketTimeoutException, EncodingException {
+		LOGGER.info("Requesting {} with protocol {} on {}",
+				new Object[] { httpMethod.name(), SERVICE_VERSION, url });
+
+		return client.request(httpMethod, url, mediaType, timeout, new IResponseReader<RestResponse>() {
+
+			@Override
+			public RestResponse read(InputStream inputStream) throws IOException {
+				return responseFactory.get(inputStream);
+			}
+		}, parameters);
+	}
+
+	/**
+	 * GETs the given url conditionally if a response with a validator is
+	 * cached for it. The cached response is returned as is if the server
+	 * answers with <code>304 Not Modified</code>.
+	 */
+	private RestResponse requestCached(final String url, int timeout, final IRestResponseFactory responseFactory,
+			IStreamingHttpClient client) throws HttpClientException, SocketTimeoutException, EncodingException,
+			MalformedURLException {
+		LOGGER.info("Requesting {} with protocol {} on {}",
+				new Object[] { HttpMethod.GET.name(), SERVICE_VERSION, url });
+
+		final CachedResponse cached = responseCache.get(url, responseFactory);
+		return client.request(HttpMethod.GET, new URL(url), null, timeout, createConditionalHeaders(cached),
+				new IHttpResponseReader<RestResponse>() {
+
+					@Override
+					public RestResponse read(IHttpResponse response) throws IOException {
+						if (cached != null
+								&& response.getStatus() == IHttpClient.STATUS_NOT_MODIFIED) {
+							responseCache.hit();
+							return cached.getResponse();
+						}
+						AtomicLong size = new AtomicLong();
+						RestResponse restResponse =
+								responseFactory.get(new CountingInputStream(response.getInputStream(), size));
+						responseCache.put(url, responseFactory, response.getHeader(IHttpClient.PROPERTY_ETAG),
+								response.getHeader(IHttpClient.PROPERTY_LAST_MODIFIED), restResponse, size.get());
+						return restResponse;
+					}
+				});
+	}
+
+	private Map<String, String> createConditionalHeaders(CachedResponse cached) {
+		if (cached == null) {
+			return null;
+		}
+		Map<String, String> headers = new HashMap<String, String>();
+		if (cached.getEtag() != null) {
+			headers.put(IHttpClient.PROPERTY_IF_NONE_MATCH, cached.getEtag());
+		}
+		if (cached.getLastModified() != null) {
+			headers.put(IHttpClient.PROPERTY_IF_MODIFIED_SINCE, cached.getLastModified());
+		}
+		return headers;
+	}
+
+	/**
+	 * Sets the cache that GET responses are kept in. GETs are then sent
+	 * conditionally and unchanged responses are neither downloaded nor parsed
+	 * again. Requires the http client to be an {@link IStreamingHttpClient}.
+	 * 
+	 * @param responseCache
+	 *            the cache to use or <code>null</code> to not cache
+	 */
+	public void setResponseCache(RestResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	public RestResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Sets the policy that read-only requests are hedged with. Requests that
+	 * did not get an answer after a percentile of the recent response times
+	 * are sent a second time and the first response wins.
+	 * 
+	 * @param hedgingPolicy
+	 *            the policy to use or <code>null</code>
+	 */
+	public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+		this.hedgingPolicy = hedgingPolicy;
+	}
+
+	public HedgingPolicy getHedgingPolicy() {
+		return hedgingPolicy;
+	}
+
+	/**
+	 * Sets the limiter that each request (and each retry) has to get a permit
+	 * from before it is sent.
+	 * 
+	 * @param rateLimiter
+	 *            the limiter to use or <code>null</code>
+	 */
+	public void setRateLimiter(IRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	public IRateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Sets the circuit breaker that requests have to pass. Requests to a
+	 * server that failed too often recently then fail immediately with a
+	 * {@link com.openshift.client.CircuitOpenOpenShiftException} instead of
+	 * waiting for the server to time out.
+	 * 
+	 * @param circuitBreaker
+	 *            the breaker to use or <code>null</code>
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Sets the policy that failed requests are retried with. Failed requests
+	 * are not retried if no policy is set.
+	 * 
+	 * @param retryPolicy
+	 *            the policy to use or <code>null</code>
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Lets concurrent identical GET requests share a single request to the
+	 * server if <code>true</code>. A GET that's issued while an identical one
+	 * (same url, protocol version and response factory) is in flight waits
+	 * for it and returns its response. Such a response may not reflect
+	 * changes that the calling thread made while the shared request was in
+	 * flight already.
+	 * 
+	 * @param coalesceRequests
+	 *            whether concurrent identical GETs are coalesced
+	 */
+	public void setCoalesceRequests(boolean coalesceRequests) {
+		this.coalesceRequests = coalesceRequests;
+	}
+
+	public boolean isCoalesceRequests() {
+		return coalesceRequests;
+	}
+
+	/**
+	 * Returns the number of requests that joined an identical request in
+	 * flight instead of requesting the server.
+	 * 
+	 * @see #setCoalesceRequests(boolean)
+	 */
+	public long getCoalescedRequests() {
+		return coalescedRequests.get();
+	}
+
 	public String getServiceUrl() {
 		return server + SERVICE_PATH;
 	}
@@ -182,4 +718,144 @@ public class RestService implements IRestService {
 	public String getPlatformUrl() {
 		return server;
 	}
+
+	/**
+	 * Identifies requests that may share a response.
+	 */
+	private static class RequestKey {
+
+		private final HttpMethod httpMethod;
+		private final String url;
+		private final String protocolVersion;
+		private final IRestResponseFactory responseFactory;
+
+		private RequestKey(HttpMethod httpMethod, String url, String protocolVersion,
+				IRestResponseFactory responseFactory) {
+			this.httpMethod = httpMethod;
+			this.url = url;
+			this.protocolVersion = protocolVersion;
+			this.responseFactory = responseFactory;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + httpMethod.hashCode();
+			result = prime * result + url.hashCode();
+			result = prime * result + ((protocolVersion == null) ? 0 : protocolVersion.hashCode());
+			result = prime * result + System.identityHashCode(responseFactory);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RequestKey)) {
+				return false;
+			}
+			RequestKey other = (RequestKey) obj;
+			return httpMethod == other.httpMethod
+					&& url.equals(other.url)
+					&& (protocolVersion == null ?
+							other.protocolVersion == null : protocolVersion.equals(other.protocolVersion))
+					&& responseFactory == other.responseFactory;
+		}
+	}
+
+	/**
+	 * A future that is completed by the task that runs an asynchronous
+	 * request.
+	 */
+	private static class RestResponseFuture implements Future<RestResponse> {
+
+		private final CountDownLatch done = new CountDownLatch(1);
+		private Thread runner;
+		private boolean cancelled;
+		private RestResponse response;
+		private Throwable failure;
+
+		/**
+		 * Marks the request as running on the current thread. Returns
+		 * <code>false</code> if it was cancelled already.
+		 */
+		private synchronized boolean start() {
+			if (isDone()) {
+				return false;
+			}
+			this.runner = Thread.currentThread();
+			return true;
+		}
+
+		private synchronized void set(RestResponse response) {
+			if (isDone()) {
+				return;
+			}
+			this.response = response;
+			complete();
+		}
+
+		private synchronized void setException(Throwable failure) {
+			if (isDone()) {
+				return;
+			}
+			this.failure = failure;
+			complete();
+		}
+
+		@Override
+		public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+			if (isDone()) {
+				return false;
+			}
+			this.cancelled = true;
+			if (mayInterruptIfRunning
+					&& runner != null) {
+				runner.interrupt();
+			}
+			complete();
+			return true;
+		}
+
+		private void complete() {
+			this.runner = null;
+			done.countDown();
+		}
+
+		@Override
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public boolean isDone() {
+			return done.getCount() == 0;
+		}
+
+		@Override
+		public RestResponse get() throws InterruptedException, ExecutionException {
+			done.await();
+			return getResult();
+		}
+
+		@Override
+		public RestResponse get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			if (!done.await(timeout, unit)) {
+				throw new TimeoutException();
+			}
+			return getResult();
+		}
+
+		private synchronized RestResponse getResult() throws ExecutionException {
+			if (cancelled) {
+				throw new CancellationException();
+			} else if (failure != null) {
+				throw new ExecutionException(failure);
+			}
+			return response;
+		}
+	}
 }
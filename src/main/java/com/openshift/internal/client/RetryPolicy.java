@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IHttpClient;
+import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A policy that tells whether and when a failed request is retried. Only
+ * requests that may safely be sent several times are retried: GET and HEAD
+ * by default plus links that are marked as idempotent (
+ * {@link Link#isIdempotent()}). The links that the server sends are marked
+ * if they are PUTs, DELETEs or POSTs that start or stop an application or
+ * cartridge. Requests are retried if they timed out or if
+ * the server answered with a retryable status (500, 502, 503 and 504 by
+ * default).
+ * <p>
+ * The delay between attempts grows exponentially from the base delay up to
+ * the maximum delay. A random part (the jitter) of the delay is dropped so
+ * that clients that failed at the same time do not retry at the same time.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see RestService#setRetryPolicy(RetryPolicy)
+ */
+public class RetryPolicy {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_BASE_DELAY = 200;
+	public static final long DEFAULT_MAX_DELAY = 5 * 1000;
+	public static final double DEFAULT_JITTER = 0.5;
+
+	private static final int STATUS_BAD_GATEWAY = 502;
+	private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+	private static final int STATUS_GATEWAY_TIMEOUT = 504;
+
+	private final int maxAttempts;
+	private final long baseDelay;
+	private final long maxDelay;
+	private final double jitter;
+	private final Random random = new Random();
+	private volatile Set<Integer> retryableStatus = new HashSet<Integer>(Arrays.asList(
+			IHttpClient.STATUS_INTERNAL_SERVER_ERROR,
+			STATUS_BAD_GATEWAY,
+			STATUS_SERVICE_UNAVAILABLE,
+			STATUS_GATEWAY_TIMEOUT));
+	private volatile Set<HttpMethod> retryableMethods = EnumSet.of(HttpMethod.GET, HttpMethod.HEAD);
+	private volatile boolean retryTimeouts = true;
+	private volatile IAttemptListener listener;
+
+	private final AtomicLong attempts = new AtomicLong();
+	private final AtomicLong failedAttempts = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong exhausted = new AtomicLong();
+
+	public RetryPolicy() {
+		this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_JITTER);
+	}
+
+	/**
+	 * @param maxAttempts
+	 *            the maximum number of attempts per request (including the
+	 *            first one)
+	 * @param baseDelay
+	 *            the delay (in millis) before the first retry
+	 * @param maxDelay
+	 *            the maximum delay (in millis) between 2 attempts
+	 * @param jitter
+	 *            the part of the delay (0 to 1) that's randomly dropped
+	 */
+	public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, double jitter) {
+		Assert.isTrue(maxAttempts > 0);
+		Assert.isTrue(baseDelay >= 0);
+		Assert.isTrue(maxDelay >= baseDelay);
+		Assert.isTrue(jitter >= 0 && jitter <= 1);
+
+		this.maxAttempts = maxAttempts;
+		this.baseDelay = baseDelay;
+		this.maxDelay = maxDelay;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given link may be retried.
+	 */
+	public boolean isRetryable(Link link) {
+		return link.isIdempotent()
+				|| retryableMethods.contains(link.getHttpMethod());
+	}
+
+	/**
+	 * Returns <code>true</code> if a request that failed with the given
+	 * exception at the given attempt should be retried.
+	 *
+	 * @param e
+	 *            the failure of the attempt
+	 * @param attempt
+	 *            the attempt (starting at 1) that failed
+	 */
+	public boolean shouldRetry(Exception e, int attempt) {
+		if (attempt >= maxAttempts) {
+			return false;
+		}
+		if (e instanceof SocketTimeoutException) {
+			return retryTimeouts;
+		} else if (e instanceof HttpClientException) {
+			return retryableStatus.contains(((HttpClientException) e).getResponseCode());
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the delay (in millis) before the attempt that follows the given
+	 * one.
+	 *
+	 * @param attempt
+	 *            the attempt (starting at 1) that failed
+	 */
+	public long getDelay(int attempt) {
+		long delay = maxDelay;
+		// prevent overflows
+		if (attempt < 31) {
+			delay = Math.min(maxDelay, baseDelay * (1L << (attempt - 1)));
+		}
+		return delay - (long) (delay * jitter * random.nextDouble());
+	}
+
+	/**
+	 * Records the outcome of the given attempt. Reports it to the listener (if
+	 * there's any).
+	 *
+	 * @param url
+	 *            the url that was requested
+	 * @param attempt
+	 *            the attempt (starting at 1)
+	 * @param duration
+	 *            the duration of the attempt in millis
+	 * @param e
+	 *            the failure or <code>null</code> if the attempt succeeded
+	 * @param retry
+	 *            whether the request is retried
+	 */
+	void attempted(String url, int attempt, long duration, Exception e, boolean retry) {
+		attempts.incrementAndGet();
+		if (e != null) {
+			failedAttempts.incrementAndGet();
+			if (retry) {
+				retries.incrementAndGet();
+			} else if (attempt > 1) {
+				exhausted.incrementAndGet();
+			}
+		}
+		IAttemptListener listener = this.listener;
+		if (listener != null) {
+			listener.attempted(url, attempt, duration, e);
+		}
+	}
+
+	/**
+	 * Sets the http status codes that are retried.
+	 */
+	public void setRetryableStatus(Integer... retryableStatus) {
+		this.retryableStatus = new HashSet<Integer>(Arrays.asList(retryableStatus));
+	}
+
+	/**
+	 * Sets the http methods that are retried. Links that are marked as
+	 * idempotent are retried regardless of their http method.
+	 */
+	public void setRetryableMethods(HttpMethod... retryableMethods) {
+		this.retryableMethods = EnumSet.noneOf(HttpMethod.class);
+		this.retryableMethods.addAll(Arrays.asList(retryableMethods));
+	}
+
+	public void setRetryTimeouts(boolean retryTimeouts) {
+		this.retryTimeouts = retryTimeouts;
+	}
+
+	/**
+	 * Sets the listener that gets notified of each attempt.
+	 */
+	public void setListener(IAttemptListener listener) {
+		this.listener = listener;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * Returns the number of attempts (first attempts and retries).
+	 */
+	public long getAttempts() {
+		return attempts.get();
+	}
+
+	/**
+	 * Returns the number of attempts that failed.
+	 */
+	public long getFailedAttempts() {
+		return failedAttempts.get();
+	}
+
+	/**
+	 * Returns the number of retries.
+	 */
+	public long getRetries() {
+		return retries.get();
+	}
+
+	/**
+	 * Returns the number of requests that failed although they were retried.
+	 */
+	public long getExhausted() {
+		return exhausted.get();
+	}
+
+	/**
+	 * A listener that gets notified of each attempt to request an url.
+	 */
+	public interface IAttemptListener {
+
+		/**
+		 * @param url
+		 *            the url that was requested
+		 * @param attempt
+		 *            the attempt (starting at 1)
+		 * @param duration
+		 *            the duration of the attempt in millis
+		 * @param e
+		 *            the failure or <code>null</code> if the attempt succeeded
+		 */
+		public void attempted(String url, int attempt, long duration, Exception e);
+	}
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.RateLimitedOpenShiftException;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A rate limiter that hands out permits from token buckets. There's a global
+ * bucket that all requests draw from plus optional buckets for single links
+ * (ex. ADD_APPLICATION or SCALE_UP) that the requests for these links have to
+ * pass first. Links are identified by the name that the resources list them
+ * by, see {@link Link#getName()}. A bucket holds up to its burst size of tokens and
+ * is refilled at a steady rate.
+ * <p>
+ * Requests that find a bucket empty wait in the order they arrived. They fail
+ * with a {@link RateLimitedOpenShiftException} if a maximum wait time is set
+ * and they could not get a permit within it. A request that is rejected by
+ * one bucket gives back the token it took from the other.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see RestService#setRateLimiter(IRateLimiter)
+ */
+public class TokenBucketRateLimiter implements IRateLimiter {
+
+	public static final long NO_MAX_WAIT = -1;
+
+	private final TokenBucket globalBucket;
+	private final ConcurrentMap<String, TokenBucket> linkBuckets = new ConcurrentHashMap<String, TokenBucket>();
+	private volatile long maxWait = NO_MAX_WAIT;
+
+	private final AtomicLong permits = new AtomicLong();
+	private final AtomicLong delayed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	/**
+	 * @param permitsPerSecond
+	 *            the number of requests per second that are allowed overall
+	 * @param burst
+	 *            the number of requests that may be sent at once
+	 */
+	public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+		this.globalBucket = new TokenBucket(permitsPerSecond, burst);
+	}
+
+	/**
+	 * Sets a budget for the requests to the links with the given name. These
+	 * requests are then limited by both, the budget of the link and the global
+	 * budget.
+	 *
+	 * @param linkName
+	 *            the name that the resources list the link by (ex.
+	 *            ADD_APPLICATION)
+	 * @param permitsPerSecond
+	 *            the number of requests per second that are allowed
+	 * @param burst
+	 *            the number of requests that may be sent at once
+	 */
+	public void setLinkRate(String linkName, double permitsPerSecond, int burst) {
+		Assert.notNull(linkName);
+		linkBuckets.put(linkName, new TokenBucket(permitsPerSecond, burst));
+	}
+
+	/**
+	 * Sets the maximum time (in millis) that a request waits for a permit.
+	 * Waits forever if set to {@link #NO_MAX_WAIT}.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	@Override
+	public void acquire(String url, Link link) throws OpenShiftException {
+		long maxWait = this.maxWait;
+		long start = System.nanoTime();
+		long deadline = maxWait == NO_MAX_WAIT ? Long.MAX_VALUE : start + TimeUnit.MILLISECONDS.toNanos(maxWait);
+		TokenBucket linkBucket = null;
+		if (link != null
+				&& link.getName() != null) {
+			linkBucket = linkBuckets.get(link.getName());
+		}
+		long linkTokenAt = start;
+		if (linkBucket != null) {
+			linkTokenAt = linkBucket.reserve(deadline);
+			if (linkTokenAt == TokenBucket.NO_TOKEN) {
+				throw reject(url, maxWait);
+			}
+		}
+		long globalTokenAt = globalBucket.reserve(deadline);
+		if (globalTokenAt == TokenBucket.NO_TOKEN) {
+			refund(linkBucket);
+			throw reject(url, maxWait);
+		}
+		try {
+			long wait = Math.max(linkTokenAt, globalTokenAt) - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+		} catch (InterruptedException e) {
+			refund(linkBucket);
+			globalBucket.refund();
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted while waiting to request {0}", url);
+		}
+		permits.incrementAndGet();
+		if (System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1)) {
+			delayed.incrementAndGet();
+		}
+	}
+
+	private RateLimitedOpenShiftException reject(String url, long maxWait) {
+		rejected.incrementAndGet();
+		return new RateLimitedOpenShiftException(url, maxWait);
+	}
+
+	private void refund(TokenBucket bucket) {
+		if (bucket != null) {
+			bucket.refund();
+		}
+	}
+
+	/**
+	 * Returns the number of requests that were permitted.
+	 */
+	public long getPermits() {
+		return permits.get();
+	}
+
+	/**
+	 * Returns the number of permitted requests that had to wait.
+	 */
+	public long getDelayed() {
+		return delayed.get();
+	}
+
+	/**
+	 * Returns the number of requests that could not get a permit within the
+	 * maximum wait time.
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * A bucket of tokens. A request reserves the next token and then waits
+	 * (outside of the bucket) until the token is due. Tokens are handed out in
+	 * the order in which they were reserved. The bucket may go into debt for
+	 * the tokens that were reserved but are not due yet.
+	 */
+	private static class TokenBucket {
+
+		private static final long NO_TOKEN = Long.MIN_VALUE;
+
+		private final double tokensPerNano;
+		private final int burst;
+		private double tokens;
+		private long refilledAt;
+
+		private TokenBucket(double permitsPerSecond, int burst) {
+			Assert.isTrue(permitsPerSecond > 0);
+			Assert.isTrue(burst > 0);
+			this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+			this.burst = burst;
+			this.tokens = burst;
+			this.refilledAt = System.nanoTime();
+		}
+
+		/**
+		 * Reserves the next token of this bucket and returns the time (in
+		 * nanos) at which it is due. Returns {@link #NO_TOKEN} and reserves
+		 * nothing if the token is not due before the given deadline.
+		 */
+		private synchronized long reserve(long deadline) {
+			long now = refill();
+			long dueAt = now;
+			if (tokens < 1) {
+				dueAt = now + (long) Math.ceil((1 - tokens) / tokensPerNano);
+				if (dueAt > deadline) {
+					return NO_TOKEN;
+				}
+			}
+			tokens--;
+			return dueAt;
+		}
+
+		/**
+		 * Puts back a token that was reserved but not used.
+		 */
+		private synchronized void refund() {
+			refill();
+			this.tokens = Math.min(burst, tokens + 1);
+		}
+
+		private long refill() {
+			long now = System.nanoTime();
+			this.tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+			this.refilledAt = now;
+			return now;
+		}
+	}
+}
@@ -10,11 +10,15 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.openshift.client.IApplication;
 import com.openshift.client.IDomain;
+import com.openshift.client.IDomainApplicationsCallback;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.IOpenShiftSSHKey;
 import com.openshift.client.ISSHPublicKey;
@@ -35,6 +39,8 @@ import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
  */
 public class UserResource extends AbstractOpenShiftResource implements IUser {
 
+	public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 8;
+
 	private final APIResource api;
 	private final String rhLogin;
 	private final String password;
@@ -42,6 +48,7 @@ public class UserResource extends AbstractOpenShiftResource implements IUser {
 	private final int consumedGears;
 
 	private Map<String, SSHKeyResource> sshKeys;
+	private volatile int maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
 	
 	public UserResource(final APIResource api, final UserResourceDTO dto, final String password) {
 		super(api.getService(), dto.getLinks(), dto.getMessages());
@@ -117,6 +124,44 @@ public class UserResource extends AbstractOpenShiftResource implements IUser {
 		return api.getDomain(id) != null;
 	}
 
+	@Override
+	public List<IApplication> getAllApplications() throws OpenShiftException {
+		final List<IDomain> domains = getDomains();
+		final Map<IDomain, List<IApplication>> applicationsByDomain = new HashMap<IDomain, List<IApplication>>();
+		api.loadAllApplications(domains, maxParallelRequests, new IDomainApplicationsCallback() {
+
+			@Override
+			public void received(IDomain domain, List<IApplication> applications) {
+				applicationsByDomain.put(domain, applications);
+			}
+		});
+		List<IApplication> applications = new ArrayList<IApplication>();
+		for (IDomain domain : domains) {
+			applications.addAll(applicationsByDomain.get(domain));
+		}
+		return Collections.unmodifiableList(applications);
+	}
+
+	@Override
+	public void getAllApplications(IDomainApplicationsCallback callback) throws OpenShiftException {
+		Assert.notNull(callback);
+
+		api.loadAllApplications(getDomains(), maxParallelRequests, callback);
+	}
+
+	/**
+	 * Sets the maximum number of domains whose applications are loaded
+	 * concurrently by {@link #getAllApplications()}.
+	 */
+	public void setMaxParallelRequests(int maxParallelRequests) {
+		Assert.isTrue(maxParallelRequests > 0);
+		this.maxParallelRequests = maxParallelRequests;
+	}
+
+	public int getMaxParallelRequests() {
+		return maxParallelRequests;
+	}
+
 	@Override
 	public void refresh() throws OpenShiftException {
 		this.sshKeys = loadKeys();
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IAsyncHttpClient;
+import com.openshift.client.IHttpClient;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * An async http client that dispatches the requests to a blocking client on
+ * a given executor. It is not a non-blocking (nio) client: each request in
+ * flight occupies a thread of the executor until its response was read. The
+ * number of requests in flight is therefore bounded by the executor, requests
+ * queue up once all threads are busy. Combined with a pooled client
+ * ({@link UrlConnectionHttpClientBuilder#setConnectionPool(HttpConnectionPool)})
+ * the threads share a bounded number of keep-alive connections.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see UrlConnectionHttpClientBuilder#asyncClient(Executor)
+ */
+public class AsyncHttpClient implements IAsyncHttpClient {
+
+	private final IHttpClient client;
+	private final Executor executor;
+
+	public AsyncHttpClient(IHttpClient client, Executor executor) {
+		Assert.notNull(client);
+		Assert.notNull(executor);
+
+		this.client = client;
+		this.executor = executor;
+	}
+
+	@Override
+	public Future<String> get(URL url, int timeout) {
+		return request(HttpMethod.GET, url, null, timeout, null);
+	}
+
+	@Override
+	public Future<String> head(URL url, int timeout) {
+		return request(HttpMethod.HEAD, url, null, timeout, null);
+	}
+
+	@Override
+	public Future<String> post(URL url, IMediaType mediaType, int timeout, Parameter... parameters) {
+		return request(HttpMethod.POST, url, mediaType, timeout, null, parameters);
+	}
+
+	@Override
+	public Future<String> put(URL url, IMediaType mediaType, int timeout, Parameter... parameters) {
+		return request(HttpMethod.PUT, url, mediaType, timeout, null, parameters);
+	}
+
+	@Override
+	public Future<String> patch(URL url, IMediaType mediaType, int timeout, Parameter... parameters) {
+		return request(HttpMethod.PATCH, url, mediaType, timeout, null, parameters);
+	}
+
+	@Override
+	public Future<String> delete(URL url, IMediaType mediaType, int timeout, Parameter... parameters) {
+		return request(HttpMethod.DELETE, url, mediaType, timeout, null, parameters);
+	}
+
+	@Override
+	public Future<String> delete(URL url, int timeout) {
+		return request(HttpMethod.DELETE, url, null, timeout, null);
+	}
+
+	@Override
+	public Future<String> request(final HttpMethod httpMethod, final URL url, final IMediaType mediaType,
+			final int timeout, IHttpCallback callback, final Parameter... parameters) {
+		ResponseFuture future = new ResponseFuture(new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				return dispatch(httpMethod, url, mediaType, timeout, parameters);
+			}
+		}, callback);
+		executor.execute(future);
+		return future;
+	}
+
+	private String dispatch(HttpMethod httpMethod, URL url, IMediaType mediaType, int timeout,
+			Parameter... parameters) throws Exception {
+		switch (httpMethod) {
+		case GET:
+			return client.get(url, timeout);
+		case HEAD:
+			return client.head(url, timeout);
+		case POST:
+			return client.post(url, mediaType, timeout, parameters);
+		case PUT:
+			return client.put(url, mediaType, timeout, parameters);
+		case DELETE:
+			if (mediaType == null) {
+				return client.delete(url, timeout);
+			}
+			return client.delete(url, mediaType, timeout, parameters);
+		case PATCH:
+			return client.patch(url, mediaType, timeout, parameters);
+		default:
+			throw new HttpClientException("Unexpected HTTP method " + httpMethod.toString());
+		}
+	}
+
+	@Override
+	public IHttpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * A future that notifies a callback once it's done.
+	 */
+	private static class ResponseFuture extends FutureTask<String> {
+
+		private final IHttpCallback callback;
+
+		private ResponseFuture(Callable<String> callable, IHttpCallback callback) {
+			super(callable);
+			this.callback = callback;
+		}
+
+		@Override
+		protected void done() {
+			if (callback == null) {
+				return;
+			}
+			try {
+				callback.completed(get());
+			} catch (ExecutionException e) {
+				callback.failed(toException(e.getCause()));
+			} catch (CancellationException e) {
+				callback.failed(e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				callback.failed(e);
+			}
+		}
+
+		private Exception toException(Throwable throwable) {
+			if (throwable instanceof Exception) {
+				return (Exception) throwable;
+			}
+			return new HttpClientException(throwable);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.openshift.client.ICredentialsProvider;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.utils.Base64Coder;
+
+/**
+ * Provides basic authorization for the given username and password or the
+ * broker auth key and iv if there are no username and password. The headers
+ * are computed once when the provider is created.
+ * 
+ * @author Andre Dietisheim
+ */
+public class BasicCredentialsProvider implements ICredentialsProvider {
+
+	private final Map<String, String> headers;
+
+	public BasicCredentialsProvider(String username, String password) {
+		this(username, password, null, null);
+	}
+
+	public BasicCredentialsProvider(String username, String password, String authKey, String authIV) {
+		this.headers = createHeaders(username, password, authKey, authIV);
+	}
+
+	private Map<String, String> createHeaders(String username, String password, String authKey, String authIV) {
+		Map<String, String> headers = new HashMap<String, String>();
+		if (username == null || username.trim().length() == 0
+				|| password == null || password.trim().length() == 0) {
+			if (authKey != null && authIV != null) {
+				headers.put(IHttpClient.PROPERTY_AUTHKEY, authKey);
+				headers.put(IHttpClient.PROPERTY_AUTHIV, authIV);
+			}
+		} else {
+			String credentials = Base64Coder.encode(
+					new StringBuilder().append(username).append(IHttpClient.COLON).append(password).toString().getBytes());
+			headers.put(IHttpClient.PROPERTY_AUTHORIZATION,
+					new StringBuilder().append(IHttpClient.AUTHORIZATION_BASIC).append(IHttpClient.SPACE)
+							.append(credentials).toString());
+		}
+		return Collections.unmodifiableMap(headers);
+	}
+
+	@Override
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+}
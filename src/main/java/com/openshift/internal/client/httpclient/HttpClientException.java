@@ -17,16 +17,35 @@ public class HttpClientException extends RuntimeException {
 
 	private static final long serialVersionUID = 1L;
 
+	public static final int NO_RESPONSE_CODE = -1;
+
+	private final int responseCode;
+
 	public  HttpClientException(String message, Throwable cause) {
+		this(message, NO_RESPONSE_CODE, cause);
+	}
+
+	public HttpClientException(String message, int responseCode, Throwable cause) {
 		super(message, cause);
+		this.responseCode = responseCode;
 	}
 
 	public HttpClientException(String message) {
 		super(message);
+		this.responseCode = NO_RESPONSE_CODE;
 	}
 
 	public HttpClientException(Throwable cause) {
 		super(cause);
+		this.responseCode = NO_RESPONSE_CODE;
+	}
+
+	/**
+	 * Returns the http status code that the server responded with or
+	 * {@link #NO_RESPONSE_CODE} if it is unknown.
+	 */
+	public int getResponseCode() {
+		return responseCode;
 	}
 
 }
@@ -0,0 +1,439 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A pool of persistent (keep-alive) http connections. The sockets themselves
+ * are kept by the jdk keep-alive cache, this pool makes sure connections are
+ * handed back to that cache (instead of being disconnected), bounds the
+ * number of concurrent connections per host and evicts ssl connections that
+ * were idle or alive for too long.
+ * <p>
+ * Ssl sockets are tracked by wrapping the socket factory that's used for
+ * https connections. Each socket tracks when it was last used, sockets that
+ * are reading or waiting for a response are never evicted.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see UrlConnectionHttpClientBuilder#setConnectionPool(HttpConnectionPool)
+ */
+public class HttpConnectionPool {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+	/** the default of the jdk keep-alive cache (http.maxConnections) */
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 5;
+	public static final long DEFAULT_IDLE_TIMEOUT = 30 * 1000;
+	public static final long DEFAULT_MAX_LIFETIME = 10 * 60 * 1000;
+
+	private static final int DRAIN_BUFFER_SIZE = 1024;
+
+	private final int maxConnectionsPerHost;
+	private final long idleTimeout;
+	private final long maxLifetime;
+
+	private final Map<String, Semaphore> permitsByHost = new HashMap<String, Semaphore>();
+	private final Map<SSLSocketFactory, PooledSSLSocketFactory> socketFactories =
+			new HashMap<SSLSocketFactory, PooledSSLSocketFactory>();
+	private final List<PooledSSLSocket> sockets = new ArrayList<PooledSSLSocket>();
+
+	private final AtomicInteger leased = new AtomicInteger();
+	private final AtomicLong leases = new AtomicLong();
+	private final AtomicLong waits = new AtomicLong();
+	private final AtomicLong opened = new AtomicLong();
+	private final AtomicLong evicted = new AtomicLong();
+
+	public HttpConnectionPool() {
+		this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_LIFETIME);
+	}
+
+	/**
+	 * Creates a pool with the given limits.
+	 *
+	 * @param maxConnectionsPerHost
+	 *            the maximum number of concurrent connections to a single host
+	 * @param idleTimeout
+	 *            the time in millis after which idle connections are closed
+	 * @param maxLifetime
+	 *            the time in millis after which connections are closed
+	 *            regardless of their usage
+	 */
+	public HttpConnectionPool(int maxConnectionsPerHost, long idleTimeout, long maxLifetime) {
+		Assert.isTrue(maxConnectionsPerHost > 0);
+		Assert.isTrue(idleTimeout > 0);
+		Assert.isTrue(maxLifetime > 0);
+
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+		this.idleTimeout = idleTimeout;
+		this.maxLifetime = maxLifetime;
+	}
+
+	/**
+	 * Leases a connection to the host of the given url. Blocks if the maximum
+	 * number of connections to this host are leased already and waits for at
+	 * most the given timeout.
+	 *
+	 * @param url
+	 *            the url to connect to
+	 * @param timeout
+	 *            the max time to wait in millis or
+	 *            {@link IHttpClient#NO_TIMEOUT}
+	 * @throws HttpClientException
+	 *             if no connection could be leased within the given timeout
+	 */
+	public void lease(URL url, int timeout) throws HttpClientException {
+		Semaphore permits = getPermits(url);
+		if (!permits.tryAcquire()) {
+			waits.incrementAndGet();
+			acquire(url, timeout, permits);
+		}
+		leased.incrementAndGet();
+		leases.incrementAndGet();
+		evictExpired();
+	}
+
+	private void acquire(URL url, int timeout, Semaphore permits) throws HttpClientException {
+		try {
+			if (timeout == IHttpClient.NO_TIMEOUT) {
+				permits.acquire();
+			} else if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+				throw new HttpClientException(
+						"Could not lease a connection to " + url + " within " + timeout + "ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HttpClientException("Interrupted while leasing a connection to " + url, e);
+		}
+	}
+
+	/**
+	 * Releases the given connection. If the server responded, the response
+	 * body (or error body) is consumed and the socket is returned to the jdk
+	 * keep-alive cache. Connections that got no response are disconnected,
+	 * asking them for their response would send the request once again.
+	 *
+	 * @param url
+	 *            the url that the connection was leased for
+	 * @param connection
+	 *            the connection to release, may be <code>null</code>
+	 * @param responded
+	 *            whether the server responded to the request
+	 */
+	public void release(URL url, HttpURLConnection connection, boolean responded) {
+		try {
+			if (connection != null) {
+				if (responded) {
+					drainAndClose(connection);
+				} else {
+					connection.disconnect();
+				}
+			}
+		} finally {
+			leased.decrementAndGet();
+			getPermits(url).release();
+			evictExpired();
+		}
+	}
+
+	private void drainAndClose(HttpURLConnection connection) {
+		try {
+			drainAndClose(connection.getInputStream());
+		} catch (IOException e) {
+			try {
+				drainAndClose(connection.getErrorStream());
+			} catch (IOException ioe) {
+				connection.disconnect();
+			}
+		}
+	}
+
+	private void drainAndClose(InputStream inputStream) throws IOException {
+		if (inputStream == null) {
+			return;
+		}
+		byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+		while (inputStream.read(buffer) != -1) {
+			// consume remaining content
+		}
+		inputStream.close();
+	}
+
+	private Semaphore getPermits(URL url) {
+		String key = getKey(url);
+		synchronized (permitsByHost) {
+			Semaphore permits = permitsByHost.get(key);
+			if (permits == null) {
+				permits = new Semaphore(maxConnectionsPerHost, true);
+				permitsByHost.put(key, permits);
+			}
+			return permits;
+		}
+	}
+
+	private String getKey(URL url) {
+		int port = url.getPort();
+		if (port == -1) {
+			port = url.getDefaultPort();
+		}
+		return new StringBuilder(url.getProtocol())
+				.append(IHttpClient.COLON).append(url.getHost())
+				.append(IHttpClient.COLON).append(port)
+				.toString();
+	}
+
+	/**
+	 * Returns a socket factory that tracks the sockets that the given factory
+	 * creates. The same wrapper is returned for the same factory so that the
+	 * jdk keep-alive cache (which is keyed by socket factory) is able to reuse
+	 * connections.
+	 *
+	 * @param socketFactory
+	 *            the factory to wrap
+	 * @return the tracking socket factory
+	 */
+	public SSLSocketFactory getSocketFactory(SSLSocketFactory socketFactory) {
+		Assert.notNull(socketFactory);
+
+		synchronized (socketFactories) {
+			PooledSSLSocketFactory pooledFactory = socketFactories.get(socketFactory);
+			if (pooledFactory == null) {
+				pooledFactory = new PooledSSLSocketFactory(socketFactory, this);
+				socketFactories.put(socketFactory, pooledFactory);
+			}
+			return pooledFactory;
+		}
+	}
+
+	/**
+	 * Forgets the wrapper for the given socket factory. Used once a client
+	 * discards a socket factory that it created.
+	 * 
+	 * @param socketFactory
+	 *            the factory that's not used any more
+	 */
+	public void removeSocketFactory(SSLSocketFactory socketFactory) {
+		synchronized (socketFactories) {
+			socketFactories.remove(socketFactory);
+		}
+	}
+
+	protected Socket add(Socket socket) {
+		if (socket == null) {
+			return null;
+		}
+		opened.incrementAndGet();
+		if (!(socket instanceof SSLSocket)) {
+			return socket;
+		}
+		PooledSSLSocket pooledSocket = new PooledSSLSocket((SSLSocket) socket);
+		synchronized (sockets) {
+			sockets.add(pooledSocket);
+		}
+		return pooledSocket;
+	}
+
+	/**
+	 * Forgets the sockets that were closed and closes the ones that were idle
+	 * for longer than the idle timeout or that exceeded their maximum
+	 * lifetime. Sockets that are in use are left alone. This is done whenever
+	 * a connection is leased or released, clients may call it in regular
+	 * intervals to release idle sockets earlier.
+	 */
+	public void evictExpired() {
+		long now = System.currentTimeMillis();
+		synchronized (sockets) {
+			for (Iterator<PooledSSLSocket> it = sockets.iterator(); it.hasNext();) {
+				PooledSSLSocket pooledSocket = it.next();
+				if (pooledSocket.isClosed()) {
+					it.remove();
+				} else if (pooledSocket.isIdle(now, idleTimeout)
+						|| pooledSocket.isExpired(now, maxLifetime)) {
+					close(pooledSocket);
+					evicted.incrementAndGet();
+					it.remove();
+				}
+			}
+		}
+	}
+
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public long getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	public Statistics getStatistics() {
+		int open = 0;
+		synchronized (sockets) {
+			for (PooledSSLSocket socket : sockets) {
+				if (!socket.isClosed()) {
+					open++;
+				}
+			}
+		}
+		return new Statistics(leases.get(), waits.get(), opened.get(), evicted.get(), leased.get(), open);
+	}
+
+	private void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			LOGGER.debug("Could not close pooled socket", e);
+		}
+	}
+
+	private static class PooledSSLSocketFactory extends SSLSocketFactory {
+
+		private final SSLSocketFactory factory;
+		private final HttpConnectionPool pool;
+
+		private PooledSSLSocketFactory(SSLSocketFactory factory, HttpConnectionPool pool) {
+			this.factory = factory;
+			this.pool = pool;
+		}
+
+		@Override
+		public Socket createSocket() throws IOException {
+			return pool.add(factory.createSocket());
+		}
+
+		@Override
+		public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+			return pool.add(factory.createSocket(socket, host, port, autoClose));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port) throws IOException {
+			return pool.add(factory.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+			return pool.add(factory.createSocket(host, port, localHost, localPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port) throws IOException {
+			return pool.add(factory.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+				throws IOException {
+			return pool.add(factory.createSocket(address, port, localAddress, localPort));
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites() {
+			return factory.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return factory.getSupportedCipherSuites();
+		}
+	}
+
+	/**
+	 * A snapshot of the usage of a connection pool.
+	 */
+	public static class Statistics {
+
+		private final long leases;
+		private final long waits;
+		private final long opened;
+		private final long evicted;
+		private final int leased;
+		private final int open;
+
+		private Statistics(long leases, long waits, long opened, long evicted, int leased, int open) {
+			this.leases = leases;
+			this.waits = waits;
+			this.opened = opened;
+			this.evicted = evicted;
+			this.leased = leased;
+			this.open = open;
+		}
+
+		/** the total number of connections that were leased */
+		public long getLeases() {
+			return leases;
+		}
+
+		/** the number of leases that had to wait for a free connection */
+		public long getWaits() {
+			return waits;
+		}
+
+		/** the number of ssl sockets that were opened */
+		public long getOpened() {
+			return opened;
+		}
+
+		/** the number of ssl sockets that were closed by eviction */
+		public long getEvicted() {
+			return evicted;
+		}
+
+		/** the number of connections that are currently leased */
+		public int getLeased() {
+			return leased;
+		}
+
+		/** the number of ssl sockets that are currently open */
+		public int getOpen() {
+			return open;
+		}
+
+		@Override
+		public String toString() {
+			return "Statistics ["
+					+ "leases=" + leases
+					+ ", waits=" + waits
+					+ ", opened=" + opened
+					+ ", evicted=" + evicted
+					+ ", leased=" + leased
+					+ ", open=" + open
+					+ "]";
+		}
+	}
+}
@@ -10,6 +10,8 @@
  ******************************************************************************/ 
 package com.openshift.internal.client.httpclient;
 
+import com.openshift.client.IHttpClient;
+
 /**
  * @author André Dietisheim
  */
@@ -24,4 +26,9 @@ public class InternalServerErrorException extends HttpClientException {
 	public InternalServerErrorException(String message) {
 		super(message);
 	}
+
+	@Override
+	public int getResponseCode() {
+		return IHttpClient.STATUS_INTERNAL_SERVER_ERROR;
+	}
 }
@@ -0,0 +1,467 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * An ssl socket that tracks when it was last used so that the connection pool
+ * may tell which sockets are idle. A socket is in use while a read is blocking
+ * (the server did not respond yet) or if a request was written that no
+ * response was read for yet. All other calls are delegated to the wrapped
+ * socket.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see HttpConnectionPool
+ */
+class PooledSSLSocket extends SSLSocket {
+
+	private static final boolean SNI_SUPPORTED = isSNISupported();
+
+	private final SSLSocket socket;
+	private final long created;
+	private volatile long lastUsed;
+	private volatile boolean awaitingResponse;
+	private final AtomicInteger reads = new AtomicInteger();
+
+	PooledSSLSocket(SSLSocket socket) {
+		this.socket = socket;
+		this.created = System.currentTimeMillis();
+		this.lastUsed = created;
+	}
+
+	/**
+	 * Returns <code>true</code> if this socket is neither reading nor waiting
+	 * for a response and was not used for longer than the given timeout.
+	 */
+	boolean isIdle(long now, long idleTimeout) {
+		return !isInUse()
+				&& now - lastUsed > idleTimeout;
+	}
+
+	/**
+	 * Returns <code>true</code> if this socket exceeded the given lifetime and
+	 * may be closed since it's not in use.
+	 */
+	boolean isExpired(long now, long maxLifetime) {
+		return !isInUse()
+				&& now - created > maxLifetime;
+	}
+
+	private boolean isInUse() {
+		return awaitingResponse
+				|| reads.get() > 0;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return new FilterInputStream(socket.getInputStream()) {
+
+			@Override
+			public int read() throws IOException {
+				reads.incrementAndGet();
+				try {
+					return read(super.read());
+				} finally {
+					reads.decrementAndGet();
+				}
+			}
+
+			@Override
+			public int read(byte[] data, int offset, int length) throws IOException {
+				reads.incrementAndGet();
+				try {
+					return read(super.read(data, offset, length));
+				} finally {
+					reads.decrementAndGet();
+				}
+			}
+
+			private int read(int read) {
+				if (read > 0) {
+					awaitingResponse = false;
+				}
+				lastUsed = System.currentTimeMillis();
+				return read;
+			}
+		};
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		return new FilterOutputStream(socket.getOutputStream()) {
+
+			@Override
+			public void write(int data) throws IOException {
+				written();
+				out.write(data);
+			}
+
+			@Override
+			public void write(byte[] data, int offset, int length) throws IOException {
+				written();
+				out.write(data, offset, length);
+			}
+
+			private void written() {
+				awaitingResponse = true;
+				lastUsed = System.currentTimeMillis();
+			}
+		};
+	}
+
+	@Override
+	public void connect(SocketAddress endpoint) throws IOException {
+		setServerName(endpoint);
+		socket.connect(endpoint);
+	}
+
+	@Override
+	public void connect(SocketAddress endpoint, int timeout) throws IOException {
+		setServerName(endpoint);
+		socket.connect(endpoint, timeout);
+	}
+
+	/**
+	 * Indicates the host name of the given endpoint to the server (SNI).
+	 * HttpsURLConnection only hands the host to the jdk ssl sockets, the
+	 * wrapped socket would otherwise depend on jsse picking the name up from
+	 * the address. Server names that were set already are kept.
+	 */
+	private void setServerName(SocketAddress endpoint) {
+		if (!SNI_SUPPORTED
+				|| !(endpoint instanceof InetSocketAddress)) {
+			return;
+		}
+		ServerNames.set(((InetSocketAddress) endpoint).getHostString(), socket);
+	}
+
+	@Override
+	public void bind(SocketAddress bindpoint) throws IOException {
+		socket.bind(bindpoint);
+	}
+
+	@Override
+	public InetAddress getInetAddress() {
+		return socket.getInetAddress();
+	}
+
+	@Override
+	public InetAddress getLocalAddress() {
+		return socket.getLocalAddress();
+	}
+
+	@Override
+	public int getPort() {
+		return socket.getPort();
+	}
+
+	@Override
+	public int getLocalPort() {
+		return socket.getLocalPort();
+	}
+
+	@Override
+	public SocketAddress getRemoteSocketAddress() {
+		return socket.getRemoteSocketAddress();
+	}
+
+	@Override
+	public SocketAddress getLocalSocketAddress() {
+		return socket.getLocalSocketAddress();
+	}
+
+	@Override
+	public void setTcpNoDelay(boolean on) throws SocketException {
+		socket.setTcpNoDelay(on);
+	}
+
+	@Override
+	public boolean getTcpNoDelay() throws SocketException {
+		return socket.getTcpNoDelay();
+	}
+
+	@Override
+	public void setSoLinger(boolean on, int linger) throws SocketException {
+		socket.setSoLinger(on, linger);
+	}
+
+	@Override
+	public int getSoLinger() throws SocketException {
+		return socket.getSoLinger();
+	}
+
+	@Override
+	public void setSoTimeout(int timeout) throws SocketException {
+		socket.setSoTimeout(timeout);
+	}
+
+	@Override
+	public int getSoTimeout() throws SocketException {
+		return socket.getSoTimeout();
+	}
+
+	@Override
+	public void setSendBufferSize(int size) throws SocketException {
+		socket.setSendBufferSize(size);
+	}
+
+	@Override
+	public int getSendBufferSize() throws SocketException {
+		return socket.getSendBufferSize();
+	}
+
+	@Override
+	public void setReceiveBufferSize(int size) throws SocketException {
+		socket.setReceiveBufferSize(size);
+	}
+
+	@Override
+	public int getReceiveBufferSize() throws SocketException {
+		return socket.getReceiveBufferSize();
+	}
+
+	@Override
+	public void setKeepAlive(boolean on) throws SocketException {
+		socket.setKeepAlive(on);
+	}
+
+	@Override
+	public boolean getKeepAlive() throws SocketException {
+		return socket.getKeepAlive();
+	}
+
+	@Override
+	public void setTrafficClass(int tc) throws SocketException {
+		socket.setTrafficClass(tc);
+	}
+
+	@Override
+	public int getTrafficClass() throws SocketException {
+		return socket.getTrafficClass();
+	}
+
+	@Override
+	public void setReuseAddress(boolean on) throws SocketException {
+		socket.setReuseAddress(on);
+	}
+
+	@Override
+	public boolean getReuseAddress() throws SocketException {
+		return socket.getReuseAddress();
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+	@Override
+	public void shutdownInput() throws IOException {
+		socket.shutdownInput();
+	}
+
+	@Override
+	public void shutdownOutput() throws IOException {
+		socket.shutdownOutput();
+	}
+
+	@Override
+	public boolean isConnected() {
+		return socket.isConnected();
+	}
+
+	@Override
+	public boolean isBound() {
+		return socket.isBound();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return socket.isClosed();
+	}
+
+	@Override
+	public boolean isInputShutdown() {
+		return socket.isInputShutdown();
+	}
+
+	@Override
+	public boolean isOutputShutdown() {
+		return socket.isOutputShutdown();
+	}
+
+	@Override
+	public String[] getSupportedCipherSuites() {
+		return socket.getSupportedCipherSuites();
+	}
+
+	@Override
+	public String[] getEnabledCipherSuites() {
+		return socket.getEnabledCipherSuites();
+	}
+
+	@Override
+	public void setEnabledCipherSuites(String[] suites) {
+		socket.setEnabledCipherSuites(suites);
+	}
+
+	@Override
+	public String[] getSupportedProtocols() {
+		return socket.getSupportedProtocols();
+	}
+
+	@Override
+	public String[] getEnabledProtocols() {
+		return socket.getEnabledProtocols();
+	}
+
+	@Override
+	public void setEnabledProtocols(String[] protocols) {
+		socket.setEnabledProtocols(protocols);
+	}
+
+	@Override
+	public SSLSession getSession() {
+		return socket.getSession();
+	}
+
+	@Override
+	public void addHandshakeCompletedListener(HandshakeCompletedListener listener) {
+		socket.addHandshakeCompletedListener(listener);
+	}
+
+	@Override
+	public void removeHandshakeCompletedListener(HandshakeCompletedListener listener) {
+		socket.removeHandshakeCompletedListener(listener);
+	}
+
+	@Override
+	public void startHandshake() throws IOException {
+		socket.startHandshake();
+	}
+
+	@Override
+	public void setUseClientMode(boolean mode) {
+		socket.setUseClientMode(mode);
+	}
+
+	@Override
+	public boolean getUseClientMode() {
+		return socket.getUseClientMode();
+	}
+
+	@Override
+	public void setNeedClientAuth(boolean need) {
+		socket.setNeedClientAuth(need);
+	}
+
+	@Override
+	public boolean getNeedClientAuth() {
+		return socket.getNeedClientAuth();
+	}
+
+	@Override
+	public void setWantClientAuth(boolean want) {
+		socket.setWantClientAuth(want);
+	}
+
+	@Override
+	public boolean getWantClientAuth() {
+		return socket.getWantClientAuth();
+	}
+
+	@Override
+	public void setEnableSessionCreation(boolean flag) {
+		socket.setEnableSessionCreation(flag);
+	}
+
+	@Override
+	public boolean getEnableSessionCreation() {
+		return socket.getEnableSessionCreation();
+	}
+
+	@Override
+	public SSLParameters getSSLParameters() {
+		return socket.getSSLParameters();
+	}
+
+	@Override
+	public void setSSLParameters(SSLParameters params) {
+		socket.setSSLParameters(params);
+	}
+
+	@Override
+	public String toString() {
+		return socket.toString();
+	}
+
+	private static boolean isSNISupported() {
+		try {
+			// java 8 and later
+			Class.forName("javax.net.ssl.SNIHostName");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Sets the server names (java 8 and later), only loaded if they're
+	 * supported.
+	 */
+	private static class ServerNames {
+
+		private static final Pattern IP_ADDRESS = Pattern.compile("[0-9.]+|.*:.*");
+
+		private static void set(String host, SSLSocket socket) {
+			if (host == null
+					|| host.indexOf('.') <= 0
+					|| host.endsWith(".")
+					|| IP_ADDRESS.matcher(host).matches()) {
+				// not a fully qualified host name
+				return;
+			}
+			SSLParameters parameters = socket.getSSLParameters();
+			if (parameters == null
+					|| (parameters.getServerNames() != null
+					&& !parameters.getServerNames().isEmpty())) {
+				return;
+			}
+			try {
+				parameters.setServerNames(Collections.<SNIServerName> singletonList(new SNIHostName(host)));
+			} catch (IllegalArgumentException e) {
+				// not a valid server name
+				return;
+			}
+			socket.setSSLParameters(parameters);
+		}
+	}
+}
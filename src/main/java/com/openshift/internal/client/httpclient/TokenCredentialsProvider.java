@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.openshift.client.ICredentialsProvider;
+import com.openshift.client.IHttpClient;
+
+/**
+ * Provides bearer token authorization. The token may be replaced at any time
+ * (ex. by a job that refreshes it in the background), requests that are
+ * running keep the token that they started with.
+ * 
+ * @author Andre Dietisheim
+ */
+public class TokenCredentialsProvider implements ICredentialsProvider {
+
+	private volatile Map<String, String> headers;
+
+	public TokenCredentialsProvider(String token) {
+		setToken(token);
+	}
+
+	/**
+	 * Sets the token that subsequent requests are authorized with.
+	 */
+	public void setToken(String token) {
+		if (token == null
+				|| token.trim().length() == 0) {
+			this.headers = Collections.emptyMap();
+		} else {
+			this.headers = Collections.singletonMap(IHttpClient.PROPERTY_AUTHORIZATION,
+					new StringBuilder().append(IHttpClient.AUTHORIZATION_BEARER).append(IHttpClient.SPACE)
+							.append(token).toString());
+		}
+	}
+
+	@Override
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+}
@@ -11,6 +11,7 @@
 package com.openshift.internal.client.httpclient;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URL;
@@ -22,6 +23,10 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -36,11 +41,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.openshift.client.HttpMethod;
-import com.openshift.client.IHttpClient;
-import com.openshift.client.utils.Base64Coder;
+import com.openshift.client.ICredentialsProvider;
+import com.openshift.client.IStreamingHttpClient;
 import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.ParameterValueMap;
+import com.openshift.internal.client.utils.Assert;
+import com.openshift.internal.client.utils.CountingInputStream;
 import com.openshift.internal.client.utils.StreamUtils;
 import com.openshift.internal.client.utils.StringUtils;
 
@@ -49,19 +56,34 @@ import com.openshift.internal.client.utils.StringUtils;
  * @author Nicolas Spano
  * @author Corey Daley
  */
-public class UrlConnectionHttpClient implements IHttpClient {
+public class UrlConnectionHttpClient implements IStreamingHttpClient {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(UrlConnectionHttpClient.class);
 
+	private static final IResponseReader<String> STRING_READER = new IResponseReader<String>() {
+
+		@Override
+		public String read(InputStream inputStream) throws IOException {
+			return StreamUtils.readToString(inputStream, StreamUtils.UTF_8);
+		}
+	};
+
 	protected String userAgent;
 	protected String username;
 	protected String password;
 	protected String authKey;
 	protected String authIV;
+	protected volatile ICredentialsProvider credentialsProvider;
 	protected String acceptedMediaType;
 	protected String acceptedVersion;
 	protected ISSLCertificateCallback sslAuthorizationCallback;
 	protected Integer configTimeout;
+	protected HttpConnectionPool connectionPool;
+	private SSLSocketFactory callbackSocketFactory;
+	private boolean compressionEnabled;
+	private final AtomicLong compressedBytes = new AtomicLong();
+	private final AtomicLong uncompressedBytes = new AtomicLong();
+	private final HostnameVerifier callbackHostnameVerifier = new CallbackHostnameVerifier();
 
 	public UrlConnectionHttpClient(
 			String username, String password, String userAgent, String acceptedMediaType, String version) {
@@ -75,6 +97,19 @@ public class UrlConnectionHttpClient implements IHttpClient {
 
 	public UrlConnectionHttpClient(String username, String password, String userAgent, String acceptedMediaType,
 			String version, String authKey, String authIV, ISSLCertificateCallback callback, Integer configTimeout) {
+		this(username, password, userAgent, acceptedMediaType, version, authKey, authIV, callback, configTimeout, null);
+	}
+
+	/**
+	 * Creates a client that keeps its connections alive and reuses them
+	 * (along with their ssl sessions) if a connection pool is given.
+	 * Connections are disconnected after each request otherwise.
+	 * 
+	 * @see HttpConnectionPool
+	 */
+	public UrlConnectionHttpClient(String username, String password, String userAgent, String acceptedMediaType,
+			String version, String authKey, String authIV, ISSLCertificateCallback callback, Integer configTimeout,
+			HttpConnectionPool connectionPool) {
 		this.username = username;
 		this.password = password;
 		this.userAgent = userAgent;
@@ -82,8 +117,23 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		this.acceptedVersion = version;
 		this.authKey = authKey;
 		this.authIV = authIV;
+		this.credentialsProvider = new BasicCredentialsProvider(username, password, authKey, authIV);
 		this.sslAuthorizationCallback = callback;
 		this.configTimeout = configTimeout;
+		this.connectionPool = connectionPool;
+	}
+
+	/**
+	 * Sets the provider of the headers that requests are authorized with. It
+	 * replaces the username and password (or auth key and iv) that this client
+	 * was created with.
+	 * 
+	 * @param credentialsProvider
+	 *            the provider to use
+	 */
+	public void setCredentialsProvider(ICredentialsProvider credentialsProvider) {
+		Assert.notNull(credentialsProvider);
+		this.credentialsProvider = credentialsProvider;
 	}
 
 	@Override
@@ -135,39 +185,128 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	protected String request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
 			ParameterValueMap parameters)
 			throws SocketTimeoutException, HttpClientException {
+		return request(httpMethod, url, requestMediaType, timeout, STRING_READER, parameters);
+	}
+
+	@Override
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			IResponseReader<T> reader, Parameter... parameters)
+			throws SocketTimeoutException, HttpClientException {
+		return request(httpMethod, url, requestMediaType, timeout, reader, new ParameterValueMap(parameters));
+	}
+
+	protected <T> T request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			final IResponseReader<T> reader, ParameterValueMap parameters)
+			throws SocketTimeoutException, HttpClientException {
+		return request(httpMethod, url, requestMediaType, timeout, null, new IHttpResponseReader<T>() {
+
+			@Override
+			public T read(IHttpResponse response) throws IOException {
+				return reader.read(response.getInputStream());
+			}
+		}, parameters);
+	}
+
+	@Override
+	public <T> T request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			Map<String, String> headers, IHttpResponseReader<T> reader, Parameter... parameters)
+			throws SocketTimeoutException, HttpClientException {
+		return request(httpMethod, url, requestMediaType, timeout, headers, reader,
+				new ParameterValueMap(parameters));
+	}
+
+	protected <T> T request(HttpMethod httpMethod, URL url, IMediaType requestMediaType, int timeout,
+			Map<String, String> headers, IHttpResponseReader<T> reader, ParameterValueMap parameters)
+			throws SocketTimeoutException, HttpClientException {
 		HttpURLConnection connection = null;
+		boolean responded = false;
+		lease(url, timeout);
 		try {
 			connection = createConnection(
-					url, username, password, authKey, authIV, userAgent, acceptedVersion, acceptedMediaType, sslAuthorizationCallback, timeout);
+					url, credentialsProvider, userAgent, acceptedVersion, acceptedMediaType, sslAuthorizationCallback, timeout);
 			// PATCH not yet supported by JVM
 			if (httpMethod == HttpMethod.PATCH) {
 				httpMethod = HttpMethod.POST;
 				connection.setRequestProperty("X-Http-Method-Override", "PATCH");
 			}
 			connection.setRequestMethod(httpMethod.toString());
+			setRequestHeaders(headers, connection);
 			if (!parameters.isEmpty()) {
 				connection.setDoOutput(true);
 				setRequestMediaType(requestMediaType, connection);
 				requestMediaType.writeTo(parameters, connection.getOutputStream());
 			}
-			return StreamUtils.readToString(connection.getInputStream(), StreamUtils.UTF_8);
+			connection.getResponseCode();
+			responded = true;
+			return reader.read(new UrlConnectionResponse(connection));
 		} catch (SocketTimeoutException e) {
 			throw e;
 		} catch (IOException e) {
-			throw createException(e, connection);
+			throw createException(e, connection, responded);
 		} finally {
+			release(url, connection, responded);
+		}
+	}
+
+	private void setRequestHeaders(Map<String, String> headers, HttpURLConnection connection) {
+		if (headers == null) {
+			return;
+		}
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+	}
+
+	private InputStream getInputStream(HttpURLConnection connection) throws IOException {
+		return decode(connection.getInputStream(), connection);
+	}
+
+	/**
+	 * Decompresses the given stream while it's read if the response is gzip
+	 * or deflate encoded.
+	 */
+	private InputStream decode(InputStream inputStream, HttpURLConnection connection) throws IOException {
+		String encoding = connection.getContentEncoding();
+		if (inputStream == null
+				|| encoding == null) {
+			return inputStream;
+		}
+		if (ENCODING_GZIP.equalsIgnoreCase(encoding)) {
+			return new CountingInputStream(
+					new GZIPInputStream(new CountingInputStream(inputStream, compressedBytes)), uncompressedBytes);
+		} else if (ENCODING_DEFLATE.equalsIgnoreCase(encoding)) {
+			return new CountingInputStream(
+					new InflaterInputStream(new CountingInputStream(inputStream, compressedBytes)), uncompressedBytes);
+		}
+		return inputStream;
+	}
+
+	private void lease(URL url, int timeout) {
+		if (connectionPool != null) {
+			connectionPool.lease(url, getTimeout(timeout));
+		}
+	}
+
+	private void release(URL url, HttpURLConnection connection, boolean responded) {
+		if (connectionPool != null) {
+			connectionPool.release(url, connection, responded);
+		} else {
 			disconnect(connection);
 		}
 	}
-	
+
 	private void disconnect(HttpURLConnection connection) {
 		if (connection != null) {
 			connection.disconnect();
 		}
 	}
 
-	private HttpClientException createException(IOException ioe, HttpURLConnection connection)
+	private HttpClientException createException(IOException ioe, HttpURLConnection connection, boolean responded)
 			throws SocketTimeoutException {
+		if (!responded) {
+			// asking for the response would send the request once again
+			return new HttpClientException(ioe);
+		}
 		try {
 			int responseCode = connection.getResponseCode();
 			String errorMessage = createErrorMessage(ioe, connection);
@@ -181,7 +320,7 @@ public class UrlConnectionHttpClient implements IHttpClient {
 			case STATUS_NOT_FOUND:
 				return new NotFoundException(errorMessage, ioe);
 			default:
-				return new HttpClientException(errorMessage, ioe);
+				return new HttpClientException(errorMessage, responseCode, ioe);
 			}
 		} catch (SocketTimeoutException e) {
 			throw e;
@@ -191,7 +330,7 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	}
 
 	protected String createErrorMessage(IOException ioe, HttpURLConnection connection) throws IOException {
-		String errorMessage = StreamUtils.readToString(connection.getErrorStream());
+		String errorMessage = StreamUtils.readToString(decode(connection.getErrorStream(), connection));
 		if (!StringUtils.isEmpty(errorMessage)) {
 			return errorMessage;
 		}
@@ -214,9 +353,16 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		LOGGER.trace(
 				"creating connection to {} using username \"{}\" and password \"{}\"",
 				new Object[] { url, username, password });
+		return createConnection(url, new BasicCredentialsProvider(username, password, authKey, authIV), userAgent,
+				acceptedVersion, acceptedMediaType, callback, timeout);
+	}
+
+	protected HttpURLConnection createConnection(URL url, ICredentialsProvider credentialsProvider, String userAgent,
+			String acceptedVersion, String acceptedMediaType, ISSLCertificateCallback callback, int timeout)
+			throws IOException {
 		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 		setSSLCallback(url, connection);
-		setAuthorisation(username, password, authKey, authIV, connection);
+		setAuthorisation(credentialsProvider, connection);
 		connection.setUseCaches(false);
 		connection.setDoInput(true);
 		connection.setAllowUserInteraction(false);
@@ -227,6 +373,7 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		connection.setInstanceFollowRedirects(true);
 		setUserAgent(userAgent, authKey, connection);
 		setAcceptHeader(acceptedVersion, acceptedMediaType, connection);
+		setAcceptEncoding(connection);
 
 		return connection;
 	}
@@ -252,37 +399,91 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		connection.setRequestProperty(PROPERTY_ACCEPT, builder.toString());
 	}
 
-	private void setAuthorisation(String username, String password, String authKey, String authIV,
-			HttpURLConnection connection) {
-		if (username == null || username.trim().length() == 0
-				|| password == null || password.trim().length() == 0) {
-			if (authKey != null && authIV != null) {
-				connection.setRequestProperty(PROPERTY_AUTHKEY, authKey);
-				connection.setRequestProperty(PROPERTY_AUTHIV, authIV);
-			}
-		} else {
-			String credentials = Base64Coder.encode(
-					new StringBuilder().append(username).append(COLON).append(password).toString().getBytes());
-			connection.setRequestProperty(PROPERTY_AUTHORIZATION,
-					new StringBuilder().append(AUTHORIZATION_BASIC).append(SPACE).append(credentials).toString());
+	private void setAcceptEncoding(HttpURLConnection connection) {
+		if (compressionEnabled) {
+			connection.setRequestProperty(PROPERTY_ACCEPT_ENCODING,
+					new StringBuilder(ENCODING_GZIP).append(COMMA).append(SPACE).append(ENCODING_DEFLATE).toString());
+		}
+	}
+
+	private void setAuthorisation(ICredentialsProvider credentialsProvider, HttpURLConnection connection) {
+		if (credentialsProvider == null) {
+			return;
+		}
+		for (Map.Entry<String, String> header : credentialsProvider.getHeaders().entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
 		}
 	}
 
 	private void setSSLCallback(URL url, HttpURLConnection connection) {
-		if (isHttps(url)
-				&& sslAuthorizationCallback != null) {
-			HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
-			httpsConnection.setHostnameVerifier(new CallbackHostnameVerifier());
-			setupTrustManagerCallback(httpsConnection);;
+		if (!isHttps(url)) {
+			return;
+		}
+		HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+		if (sslAuthorizationCallback != null) {
+			httpsConnection.setHostnameVerifier(callbackHostnameVerifier);
+			setupTrustManagerCallback(httpsConnection);
+		} else if (connectionPool != null) {
+			httpsConnection.setSSLSocketFactory(
+					connectionPool.getSocketFactory(httpsConnection.getSSLSocketFactory()));
 		}
 	}
 
 	/**
-	 * Sets the trust manager callbacks to the given connection
+	 * Sets the trust manager callbacks to the given connection. The socket
+	 * factory is created once and reused for all requests so that the ssl
+	 * sessions may be resumed.
 	 * 
 	 * @see ISSLCertificateCallback
+	 * @see #invalidateSSLContext()
 	 */
 	private void setupTrustManagerCallback(HttpsURLConnection connection) {
+		SSLSocketFactory socketFactory = getCallbackSocketFactory();
+		if (socketFactory == null) {
+			return;
+		}
+		if (connectionPool != null) {
+			socketFactory = connectionPool.getSocketFactory(socketFactory);
+		}
+		connection.setSSLSocketFactory(socketFactory);
+	}
+
+	private synchronized SSLSocketFactory getCallbackSocketFactory() {
+		if (callbackSocketFactory == null) {
+			this.callbackSocketFactory = createCallbackSocketFactory();
+		}
+		return callbackSocketFactory;
+	}
+
+	/**
+	 * Discards the ssl socket factory that this client created for its
+	 * certificate callback. A new one is created for the next https request,
+	 * picking up changes in the default trust store.
+	 * 
+	 * @see #setSSLCertificateCallback(ISSLCertificateCallback)
+	 */
+	public synchronized void invalidateSSLContext() {
+		if (callbackSocketFactory != null
+				&& connectionPool != null) {
+			connectionPool.removeSocketFactory(callbackSocketFactory);
+		}
+		this.callbackSocketFactory = null;
+	}
+
+	/**
+	 * Sets the callback that's asked for certificates and hostnames that are
+	 * not trusted. The ssl socket factory of this client is recreated for the
+	 * next https request.
+	 * 
+	 * @param callback
+	 *            the callback to use
+	 */
+	public synchronized void setSSLCertificateCallback(ISSLCertificateCallback callback) {
+		this.sslAuthorizationCallback = callback;
+		invalidateSSLContext();
+	}
+
+	private SSLSocketFactory createCallbackSocketFactory() {
 		try {
 			SSLContext sslContext = SSLContext.getInstance("SSL");
 			X509TrustManager trustManager = getCurrentTrustManager();
@@ -291,12 +492,12 @@ public class UrlConnectionHttpClient implements IHttpClient {
 			} else {
 				sslContext.init(null, new TrustManager[] { 
 						new CallbackTrustManager(trustManager, sslAuthorizationCallback) }, null);
-				SSLSocketFactory socketFactory = sslContext.getSocketFactory();
-				((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+				return sslContext.getSocketFactory();
 			}
 		} catch (GeneralSecurityException e) {
 			LOGGER.warn("Could not install trust manager callback", e);;
 		}
+		return null;
 	}
 	
 	private void setConnectTimeout(int timeout, URLConnection connection) {
@@ -368,6 +569,50 @@ public class UrlConnectionHttpClient implements IHttpClient {
 	public void setAcceptedMediaType(String acceptedMediaType) {
 		this.acceptedMediaType = acceptedMediaType;
 	}
+
+	/**
+	 * Asks the server to compress its responses (gzip or deflate) if enabled.
+	 * Compressed responses are decompressed while they're read.
+	 * 
+	 * @param compressionEnabled
+	 *            whether compressed responses are accepted
+	 */
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	/**
+	 * Returns the number of compressed bytes that this client received.
+	 * 
+	 * @see #getUncompressedBytes()
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes.get();
+	}
+
+	/**
+	 * Returns the number of bytes that the compressed responses of this client
+	 * were decompressed to.
+	 * 
+	 * @see #getCompressedBytes()
+	 */
+	public long getUncompressedBytes() {
+		return uncompressedBytes.get();
+	}
+
+	/**
+	 * Returns the pool that this client is keeping its connections in or
+	 * <code>null</code> if connections are not kept alive.
+	 * 
+	 * @return the connection pool
+	 */
+	public HttpConnectionPool getConnectionPool() {
+		return connectionPool;
+	}
 	
 	public class CallbackTrustManager implements X509TrustManager {
 
@@ -398,6 +643,35 @@ public class UrlConnectionHttpClient implements IHttpClient {
 		}
 	}
 
+	/**
+	 * The response of a connection. Reading the body of an error response
+	 * throws an IOException, which is then turned into a
+	 * {@link HttpClientException}.
+	 */
+	private class UrlConnectionResponse implements IHttpResponse {
+
+		private final HttpURLConnection connection;
+
+		private UrlConnectionResponse(HttpURLConnection connection) {
+			this.connection = connection;
+		}
+
+		@Override
+		public int getStatus() throws IOException {
+			return connection.getResponseCode();
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return connection.getHeaderField(name);
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return UrlConnectionHttpClient.this.getInputStream(connection);
+		}
+	}
+
 	private class CallbackHostnameVerifier implements HostnameVerifier {
 
 		@Override
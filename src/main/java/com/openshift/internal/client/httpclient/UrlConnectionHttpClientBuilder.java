@@ -10,6 +10,10 @@
  ******************************************************************************/
 package com.openshift.internal.client.httpclient;
 
+import java.util.concurrent.Executor;
+
+import com.openshift.client.IAsyncHttpClient;
+import com.openshift.client.ICredentialsProvider;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IHttpClient.ISSLCertificateCallback;
 
@@ -24,10 +28,13 @@ public class UrlConnectionHttpClientBuilder {
 	private String password;
 	private String authKey;
 	private String authIV;
+	private ICredentialsProvider credentialsProvider;
 	private String acceptedMediaType;
 	private String version;
 	private Integer configTimeout;
 	private ISSLCertificateCallback callback;
+	private HttpConnectionPool connectionPool;
+	private boolean compression;
 
 	public UrlConnectionHttpClientBuilder setUserAgent(String userAgent) {
 		this.userAgent = userAgent;
@@ -45,6 +52,21 @@ public class UrlConnectionHttpClientBuilder {
 		this.authIV = authIV;
 		return this;
 	}
+	/**
+	 * Authorizes the requests with the headers of the given provider instead
+	 * of the credentials.
+	 * 
+	 * @param credentialsProvider
+	 *            the provider of the authorization headers
+	 * @return this builder
+	 * 
+	 * @see TokenCredentialsProvider
+	 */
+	public UrlConnectionHttpClientBuilder setCredentialsProvider(ICredentialsProvider credentialsProvider) {
+		this.credentialsProvider = credentialsProvider;
+		return this;
+	}
+
 	public UrlConnectionHttpClientBuilder setConfigTimeout (Integer configTimeout) {
 		this.configTimeout = configTimeout;
 		return this;
@@ -65,8 +87,58 @@ public class UrlConnectionHttpClientBuilder {
 		return this;
 	}
 
+	/**
+	 * Keeps connections alive in the given pool and reuses them for subsequent
+	 * requests. Connections are closed after each request if no pool is set.
+	 * 
+	 * @param connectionPool
+	 *            the pool to keep the connections in
+	 * @return this builder
+	 */
+	public UrlConnectionHttpClientBuilder setConnectionPool(HttpConnectionPool connectionPool) {
+		this.connectionPool = connectionPool;
+		return this;
+	}
+
+	/**
+	 * Asks the server for gzip or deflate compressed responses if
+	 * <code>true</code>. Responses are decompressed while they're read.
+	 * 
+	 * @param compression
+	 *            whether compressed responses are accepted
+	 * @return this builder
+	 */
+	public UrlConnectionHttpClientBuilder setCompression(boolean compression) {
+		this.compression = compression;
+		return this;
+	}
+
+	public UrlConnectionHttpClientBuilder usePooledConnections() {
+		return setConnectionPool(new HttpConnectionPool());
+	}
+
 	public IHttpClient client() {
-		return new UrlConnectionHttpClient(
-				username, password, userAgent, acceptedMediaType, version, authKey, authIV, callback, configTimeout);
+		UrlConnectionHttpClient client = new UrlConnectionHttpClient(
+				username, password, userAgent, acceptedMediaType, version, authKey, authIV, callback, configTimeout,
+				connectionPool);
+		client.setCompressionEnabled(compression);
+		if (credentialsProvider != null) {
+			client.setCredentialsProvider(credentialsProvider);
+		}
+		return client;
+	}
+
+	/**
+	 * Returns an async client that dispatches its requests to the client that
+	 * this builder creates on the given executor.
+	 * 
+	 * @param executor
+	 *            the executor to run the requests on
+	 * @return the async client
+	 * 
+	 * @see AsyncHttpClient
+	 */
+	public IAsyncHttpClient asyncClient(Executor executor) {
+		return new AsyncHttpClient(client(), executor);
 	}
 }
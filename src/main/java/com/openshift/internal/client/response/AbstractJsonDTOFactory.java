@@ -10,6 +10,11 @@
  ******************************************************************************/
 package com.openshift.internal.client.response;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -25,6 +30,7 @@ import com.openshift.client.Message;
 import com.openshift.client.Messages;
 import com.openshift.client.OpenShiftException;
 import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
+import com.openshift.internal.client.utils.StreamUtils;
 import com.openshift.internal.client.utils.StringUtils;
 
 /**
@@ -37,6 +43,8 @@ public abstract class AbstractJsonDTOFactory implements IRestResponseFactory {
 
 	private final Logger LOGGER = LoggerFactory.getLogger(AbstractJsonDTOFactory.class);
 
+	private static final int BUFFER_SIZE = 8 * 1024;
+
 	@Override
 	public RestResponse get(final String json) throws OpenShiftException {
 		// in case the server answers with 'no-content'
@@ -44,7 +52,56 @@ public abstract class AbstractJsonDTOFactory implements IRestResponseFactory {
 			return null;
 		}
 		LOGGER.trace("Unmarshalling response\n{}", json);
-		final ModelNode rootNode = getModelNode(json);
+		return createRestResponse(getModelNode(json));
+	}
+
+	@Override
+	public RestResponse get(final InputStream inputStream) throws OpenShiftException, IOException {
+		if (LOGGER.isTraceEnabled()) {
+			String json = StreamUtils.readToString(inputStream, StreamUtils.UTF_8);
+			try {
+				return get(json);
+			} catch (IllegalArgumentException e) {
+				throw new OpenShiftException(e, "Could not unmarshall response: {0}", e.getMessage());
+			}
+		}
+		ReadFailureInputStream sourceStream = new ReadFailureInputStream(inputStream);
+		PushbackInputStream jsonStream = new PushbackInputStream(
+				new BufferedInputStream(sourceStream, BUFFER_SIZE));
+		// in case the server answers with 'no-content'
+		if (!skipWhitespace(jsonStream)) {
+			return null;
+		}
+		ModelNode node = null;
+		try {
+			node = getModelNode(jsonStream);
+		} catch (IOException e) {
+			if (sourceStream.hasFailed()) {
+				throw e;
+			}
+			// the parser reports invalid json as IOException, too
+			throw new OpenShiftException(e, "Could not unmarshall response: {0}", e.getMessage());
+		}
+		return createRestResponse(node);
+	}
+
+	/**
+	 * Skips leading whitespace in the given stream.
+	 * 
+	 * @return <code>true</code> if there's content left in the stream
+	 */
+	private boolean skipWhitespace(PushbackInputStream inputStream) throws IOException {
+		int data = -1;
+		while ((data = inputStream.read()) != -1) {
+			if (!Character.isWhitespace(data)) {
+				inputStream.unread(data);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private RestResponse createRestResponse(final ModelNode rootNode) {
 		final String type = getAsString(rootNode, IOpenShiftJsonConstants.PROPERTY_TYPE);
 		final String status = getAsString(rootNode, IOpenShiftJsonConstants.PROPERTY_STATUS);
 		final Messages messages = createMessages(rootNode.get(IOpenShiftJsonConstants.PROPERTY_MESSAGES));
@@ -67,7 +124,7 @@ public abstract class AbstractJsonDTOFactory implements IRestResponseFactory {
 	 *            the messages node
 	 * @return the list< string>
 	 */
-	private Messages createMessages(ModelNode messagesNode) {
+	protected Messages createMessages(ModelNode messagesNode) {
 		Map<IField, List<Message>> messagesByField = new LinkedHashMap<IField, List<Message>>();
 		if (messagesNode.getType() == ModelType.LIST) {
 			for (ModelNode messageNode : messagesNode.asList()) {
@@ -112,6 +169,14 @@ public abstract class AbstractJsonDTOFactory implements IRestResponseFactory {
 		return node;
 	}
 
+	protected ModelNode getModelNode(final InputStream inputStream) throws OpenShiftException, IOException {
+		final ModelNode node = ModelNode.fromJSONStream(inputStream);
+		if (!node.isDefined()) {
+			throw new OpenShiftException("Could not unmarshall response: erroneous content.");
+		}
+		return node;
+	}
+
 	/**
 	 * Returns the property identified by the given name in the given model
 	 * node, or null if the named property is undefined.
@@ -161,4 +226,52 @@ public abstract class AbstractJsonDTOFactory implements IRestResponseFactory {
 		return node != null
 				&& node.isDefined();
 	}
+
+	/**
+	 * A stream that remembers if reading the underlying stream failed. Allows
+	 * to tell a broken connection from invalid json, the parser reports both
+	 * as {@link IOException}.
+	 */
+	private static class ReadFailureInputStream extends FilterInputStream {
+
+		private boolean failed;
+
+		private ReadFailureInputStream(InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return super.read();
+			} catch (IOException e) {
+				this.failed = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			try {
+				return super.read(buffer, offset, length);
+			} catch (IOException e) {
+				this.failed = true;
+				throw e;
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			try {
+				return super.skip(n);
+			} catch (IOException e) {
+				this.failed = true;
+				throw e;
+			}
+		}
+
+		private boolean hasFailed() {
+			return failed;
+		}
+	}
 }
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.StreamUtils;
+import com.openshift.internal.client.utils.StringUtils;
+
+/**
+ * A factory for responses that hold a list of applications, domains or
+ * cartridges. The dtos are created while the data array is read, the
+ * response is never turned into a tree of nodes as a whole. The data, the
+ * status and the messages have the same shape as the ones that
+ * {@link OpenShiftJsonDTOFactory} creates.
+ * 
+ * @author Andre Dietisheim
+ * 
+ * @see JsonDataArrayReader
+ */
+public class DataListJsonDTOFactory extends OpenShiftJsonDTOFactory {
+
+	public static final DataListJsonDTOFactory APPLICATIONS = new DataListJsonDTOFactory(EnumDataType.applications);
+	public static final DataListJsonDTOFactory DOMAINS = new DataListJsonDTOFactory(EnumDataType.domains);
+	public static final DataListJsonDTOFactory CARTRIDGES = new DataListJsonDTOFactory(EnumDataType.cartridges);
+
+	private final EnumDataType dataType;
+
+	private DataListJsonDTOFactory(EnumDataType dataType) {
+		this.dataType = dataType;
+	}
+
+	@Override
+	public RestResponse get(String json) throws OpenShiftException {
+		// in case the server answers with 'no-content'
+		if (StringUtils.isEmpty(json)) {
+			return null;
+		}
+		try {
+			return get(new ByteArrayInputStream(json.getBytes(StreamUtils.UTF_8)));
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Could not unmarshall response: {0}", e.getMessage());
+		}
+	}
+
+	@Override
+	public RestResponse get(InputStream inputStream) throws OpenShiftException, IOException {
+		JsonDataArrayReader reader = new JsonDataArrayReader(inputStream);
+		Object data = createData(reader);
+		return new RestResponse(reader.getStatus(), createMessages(reader.getMessages()), data, dataType);
+	}
+
+	private Object createData(JsonDataArrayReader reader) throws IOException {
+		switch (dataType) {
+		case applications:
+			List<ApplicationResourceDTO> applications = new ArrayList<ApplicationResourceDTO>();
+			for (ModelNode node = null; (node = reader.next()) != null;) {
+				add((ApplicationResourceDTO) createData(EnumDataType.application, null, node), applications);
+			}
+			return applications;
+		case domains:
+			List<DomainResourceDTO> domains = new ArrayList<DomainResourceDTO>();
+			for (ModelNode node = null; (node = reader.next()) != null;) {
+				add((DomainResourceDTO) createData(EnumDataType.domain, null, node), domains);
+			}
+			return domains;
+		case cartridges:
+			Map<String, CartridgeResourceDTO> cartridgesByName = new LinkedHashMap<String, CartridgeResourceDTO>();
+			for (ModelNode node = null; (node = reader.next()) != null;) {
+				CartridgeResourceDTO cartridge = (CartridgeResourceDTO) createData(EnumDataType.cartridge, null, node);
+				if (cartridge != null) {
+					cartridgesByName.put(cartridge.getName(), cartridge);
+				}
+			}
+			return cartridgesByName;
+		default:
+			return null;
+		}
+	}
+
+	private <T> void add(T dto, List<T> dtos) {
+		if (dto != null) {
+			dtos.add(dto);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+/**
+ * A callback that gets notified of each resource dto as soon as it was read
+ * from a response.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see OpenShiftJsonDTOFactory#getApplications(java.io.InputStream,
+ *      IResourceDTOCallback)
+ */
+public interface IResourceDTOCallback<T> {
+
+	public void received(T dto);
+
+}
@@ -10,6 +10,9 @@
  ******************************************************************************/
 package com.openshift.internal.client.response;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 import com.openshift.client.OpenShiftException;
 
 public interface IRestResponseFactory {
@@ -23,5 +26,21 @@ public interface IRestResponseFactory {
 	 * @see RestResponse
 	 */
 	public RestResponse get(final String restResponse) throws OpenShiftException;
+
+	/**
+	 * Returns a {@link RestResponse} instance for a given rest response
+	 * stream. The response is parsed while it's read, it is not buffered.
+	 * 
+	 * @param restResponse
+	 *            rest response stream
+	 * @return RestResponse instance or <code>null</code> if the stream is
+	 *         empty
+	 * @throws OpenShiftException
+	 * @throws IOException
+	 *             if the stream could not be read
+	 * 
+	 * @see RestResponse
+	 */
+	public RestResponse get(final InputStream restResponse) throws OpenShiftException, IOException;
 	
 }
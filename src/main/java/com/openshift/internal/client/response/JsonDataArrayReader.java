@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.response;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.utils.IOpenShiftJsonConstants;
+import com.openshift.internal.client.utils.StreamUtils;
+
+/**
+ * A pull reader that walks the envelope of an OpenShift response and returns
+ * the elements of its <code>data</code> array one by one. Only the element
+ * that's currently read is turned into a {@link ModelNode}, the remaining
+ * elements are still in the stream. The status and the messages of the
+ * envelope are kept, all other properties (type, version etc.) are skipped.
+ *
+ * @author Andre Dietisheim
+ */
+public class JsonDataArrayReader {
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+	private static final int NONE = -2;
+
+	private enum State {
+		START, ELEMENTS, END
+	}
+
+	private final Reader reader;
+	private State state = State.START;
+	private int peeked = NONE;
+	private String status;
+	private ModelNode messages = new ModelNode();
+
+	public JsonDataArrayReader(InputStream inputStream) throws IOException {
+		this.reader = new BufferedReader(new InputStreamReader(inputStream, StreamUtils.UTF_8), BUFFER_SIZE);
+	}
+
+	/**
+	 * Returns the next element in the data array or <code>null</code> if
+	 * there are no elements left.
+	 *
+	 * @return the next element or <code>null</code>
+	 * @throws IOException
+	 * @throws OpenShiftException
+	 *             if the response is not valid json
+	 */
+	public ModelNode next() throws IOException, OpenShiftException {
+		if (state == State.START) {
+			state = seekDataArray() ? State.ELEMENTS : State.END;
+		}
+		if (state == State.END) {
+			return null;
+		}
+		if (peekToken() == ']') {
+			read();
+			readEnvelopeEnd();
+			return null;
+		}
+		StringBuilder builder = new StringBuilder();
+		readValue(builder);
+		int delimiter = readToken();
+		if (delimiter == ']') {
+			readEnvelopeEnd();
+		} else if (delimiter != ',') {
+			throw unexpected(delimiter);
+		}
+		return toModelNode(builder);
+	}
+
+	/**
+	 * Returns the status of the response. It is known once all elements of
+	 * the data array were read.
+	 *
+	 * @return the status or <code>null</code>
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the messages of the response. They are known once all elements
+	 * of the data array were read.
+	 *
+	 * @return the messages node, undefined if there are no messages
+	 */
+	public ModelNode getMessages() {
+		return messages;
+	}
+
+	/**
+	 * Moves to the first element of the data array. Returns <code>false</code>
+	 * if the response has no (or a <code>null</code>) data property.
+	 */
+	private boolean seekDataArray() throws IOException {
+		int c = readToken();
+		if (c == -1) {
+			// no-content
+			return false;
+		} else if (c != '{') {
+			throw unexpected(c);
+		}
+		if (peekToken() == '}') {
+			read();
+			return false;
+		}
+		return readProperties();
+	}
+
+	/**
+	 * Reads the remaining properties of the envelope once the data array was
+	 * read.
+	 */
+	private void readEnvelopeEnd() throws IOException {
+		this.state = State.END;
+		int c = readToken();
+		if (c == ',') {
+			if (readProperties()) {
+				throw new OpenShiftException("Could not unmarshall response: duplicate data.");
+			}
+		} else if (c != '}') {
+			throw unexpected(c);
+		}
+	}
+
+	/**
+	 * Reads the properties of the envelope until the data array starts or the
+	 * envelope ends. Returns <code>true</code> if positioned at the first
+	 * element of the data array, <code>false</code> otherwise.
+	 */
+	private boolean readProperties() throws IOException {
+		while (true) {
+			String key = readKey();
+			if (IOpenShiftJsonConstants.PROPERTY_DATA.equals(key)) {
+				int next = peekToken();
+				if (next == '[') {
+					read();
+					if (peekToken() != ']') {
+						return true;
+					}
+					read();
+				} else if (next == 'n') {
+					readValue(null);
+				} else {
+					throw new OpenShiftException("Could not unmarshall response: data is not a list.");
+				}
+			} else if (IOpenShiftJsonConstants.PROPERTY_STATUS.equals(key)) {
+				StringBuilder builder = new StringBuilder();
+				readValue(builder);
+				ModelNode node = toModelNode(builder);
+				this.status = node.isDefined() ? node.asString() : null;
+			} else if (IOpenShiftJsonConstants.PROPERTY_MESSAGES.equals(key)) {
+				StringBuilder builder = new StringBuilder();
+				readValue(builder);
+				this.messages = toModelNode(builder);
+			} else {
+				readValue(null);
+			}
+			int c = readToken();
+			if (c == '}') {
+				return false;
+			} else if (c != ',') {
+				throw unexpected(c);
+			}
+		}
+	}
+
+	private ModelNode toModelNode(StringBuilder builder) {
+		try {
+			return ModelNode.fromJSONString(builder.toString());
+		} catch (IllegalArgumentException e) {
+			throw new OpenShiftException(e, "Could not unmarshall response: {0}", e.getMessage());
+		}
+	}
+
+	private String readKey() throws IOException {
+		int c = readToken();
+		if (c != '"') {
+			throw unexpected(c);
+		}
+		StringBuilder builder = new StringBuilder();
+		readString(builder);
+		c = readToken();
+		if (c != ':') {
+			throw unexpected(c);
+		}
+		// strip the closing quote
+		return builder.substring(0, builder.length() - 1);
+	}
+
+	/**
+	 * Reads the next json value and appends it to the given builder. The value
+	 * is skipped if the builder is <code>null</code>.
+	 */
+	private void readValue(StringBuilder builder) throws IOException {
+		int c = readToken();
+		switch (c) {
+		case '"':
+			append('"', builder);
+			readString(builder);
+			break;
+		case '{':
+		case '[':
+			append((char) c, builder);
+			readStructure(builder);
+			break;
+		default:
+			readLiteral(c, builder);
+		}
+	}
+
+	/**
+	 * Reads an object or array whose opening bracket was already consumed.
+	 */
+	private void readStructure(StringBuilder builder) throws IOException {
+		int depth = 1;
+		while (depth > 0) {
+			int c = read();
+			switch (c) {
+			case -1:
+				throw unexpected(c);
+			case '"':
+				append('"', builder);
+				readString(builder);
+				continue;
+			case '{':
+			case '[':
+				depth++;
+				break;
+			case '}':
+			case ']':
+				depth--;
+				break;
+			}
+			append((char) c, builder);
+		}
+	}
+
+	/**
+	 * Reads a string whose opening quote was already consumed.
+	 */
+	private void readString(StringBuilder builder) throws IOException {
+		while (true) {
+			int c = read();
+			if (c == -1) {
+				throw unexpected(c);
+			}
+			append((char) c, builder);
+			if (c == '\\') {
+				c = read();
+				if (c == -1) {
+					throw unexpected(c);
+				}
+				append((char) c, builder);
+			} else if (c == '"') {
+				return;
+			}
+		}
+	}
+
+	private void readLiteral(int c, StringBuilder builder) throws IOException {
+		if (c == -1
+				|| c == ','
+				|| c == '}'
+				|| c == ']') {
+			throw unexpected(c);
+		}
+		append((char) c, builder);
+		while ((c = peek()) != -1
+				&& c != ','
+				&& c != '}'
+				&& c != ']'
+				&& !Character.isWhitespace(c)) {
+			append((char) read(), builder);
+		}
+	}
+
+	private void append(char c, StringBuilder builder) {
+		if (builder != null) {
+			builder.append(c);
+		}
+	}
+
+	private int readToken() throws IOException {
+		int c = peekToken();
+		peeked = NONE;
+		return c;
+	}
+
+	private int peekToken() throws IOException {
+		int c = peek();
+		while (c != -1
+				&& Character.isWhitespace(c)) {
+			read();
+			c = peek();
+		}
+		return c;
+	}
+
+	private int peek() throws IOException {
+		if (peeked == NONE) {
+			peeked = reader.read();
+		}
+		return peeked;
+	}
+
+	private int read() throws IOException {
+		if (peeked != NONE) {
+			int c = peeked;
+			peeked = NONE;
+			return c;
+		}
+		return reader.read();
+	}
+
+	private OpenShiftException unexpected(int c) {
+		if (c == -1) {
+			return new OpenShiftException("Could not unmarshall response: unexpected end of content.");
+		}
+		return new OpenShiftException("Could not unmarshall response: unexpected character ''{0}''.", (char) c);
+	}
+}
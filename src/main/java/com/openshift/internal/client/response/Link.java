@@ -39,6 +39,9 @@ public class Link {
 
 	private final Pattern PATH_VAR_PATTERN = Pattern.compile(":([a-z_]+)");
 
+	/** The name that the resource lists this link by (ex. ADD_APPLICATION) */
+	private final String name;
+
 	/** The related resource (destination) this link points to */
 	private final String rel;
 
@@ -54,6 +57,9 @@ public class Link {
 	/** The optional params of this link. */
 	private final List<LinkParameter> optionalParams;
 
+	/** Whether requesting this link several times has the same effect as once. */
+	private final boolean idempotent;
+
 	public Link(final String href, final HttpMethod httpMethod) {
 		this(null, href, httpMethod);
 	}
@@ -62,6 +68,16 @@ public class Link {
 		this(rel, href, httpMethod, null, null);
 	}
 
+	/**
+	 * Instantiates a new Link object that may be marked as idempotent.
+	 * Idempotent links may be retried regardless of their http method.
+	 * 
+	 * @see com.openshift.internal.client.RetryPolicy
+	 */
+	public Link(final String rel, final String href, final HttpMethod httpMethod, final boolean idempotent) {
+		this(rel, href, httpMethod, null, null, idempotent);
+	}
+
 	protected Link(final String rel, final String href, final String httpMethod,
 			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams) {
 		this(rel, href, HttpMethod.valueOf(httpMethod), requiredParams, optionalParams);
@@ -83,11 +99,57 @@ public class Link {
 	 */
 	protected Link(final String rel, final String href, final HttpMethod httpMethod,
 			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams) {
+		this(rel, href, httpMethod, requiredParams, optionalParams, false);
+	}
+
+	protected Link(final String rel, final String href, final HttpMethod httpMethod,
+			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams,
+			final boolean idempotent) {
+		this(null, rel, href, httpMethod, requiredParams, optionalParams, idempotent);
+	}
+
+	/**
+	 * Instantiates a new Link object that the resource lists by the given
+	 * name.
+	 * 
+	 * @param name
+	 *            the name that the resource lists this link by (ex.
+	 *            ADD_APPLICATION)
+	 * @param rel
+	 *            the related resource this link points to
+	 * @param href
+	 *            the href the url/href this link points to
+	 * @param httpMethod
+	 *            the http method that this link operates on
+	 * @param requiredParams
+	 *            the required params
+	 * @param optionalParams
+	 *            the optional params
+	 * @param idempotent
+	 *            whether requesting this link several times has the same
+	 *            effect as once
+	 */
+	protected Link(final String name, final String rel, final String href, final HttpMethod httpMethod,
+			final List<LinkParameter> requiredParams, final List<LinkParameter> optionalParams,
+			final boolean idempotent) {
+		this.name = name;
 		this.rel = rel;
 		this.href = href;
 		this.httpMethod = httpMethod;
 		this.requiredParams = requiredParams;
 		this.optionalParams = optionalParams;
+		this.idempotent = idempotent;
+	}
+
+	/**
+	 * Gets the name that the resource lists this link by (ex.
+	 * ADD_APPLICATION). Links that were not read from a response have no
+	 * name.
+	 * 
+	 * @return the name or <code>null</code>
+	 */
+	public final String getName() {
+		return name;
 	}
 
 	/**
@@ -127,6 +189,15 @@ public class Link {
 		return httpMethod;
 	}
 
+	/**
+	 * Returns <code>true</code> if this link was marked as idempotent.
+	 * 
+	 * @return whether this link is idempotent
+	 */
+	public final boolean isIdempotent() {
+		return idempotent;
+	}
+
 	/**
 	 * Gets the required params.
 	 * 
@@ -46,14 +46,22 @@ import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPER
 import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_VALID_OPTIONS;
 import static com.openshift.internal.client.utils.IOpenShiftJsonConstants.PROPERTY_VALUE;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
@@ -61,6 +69,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.openshift.client.ApplicationScale;
+import com.openshift.client.HttpMethod;
 import com.openshift.client.IGearProfile;
 import com.openshift.client.Messages;
 import com.openshift.client.OpenShiftException;
@@ -79,6 +88,10 @@ public class OpenShiftJsonDTOFactory extends AbstractJsonDTOFactory {
 
 	private final Logger LOGGER = LoggerFactory.getLogger(OpenShiftJsonDTOFactory.class);
 
+	private static final Set<HttpMethod> IDEMPOTENT_METHODS = EnumSet.of(HttpMethod.PUT, HttpMethod.DELETE);
+	private static final Set<String> IDEMPOTENT_POST_LINKS = new HashSet<String>(Arrays.asList(
+			"START", "STOP", "FORCE_STOP"));
+
 	@Override
 	protected Object createData(EnumDataType dataType, Messages messages, ModelNode dataNode) {
 		switch (dataType) {
@@ -114,6 +127,102 @@ public class OpenShiftJsonDTOFactory extends AbstractJsonDTOFactory {
 		}
 	}
 
+	/**
+	 * Returns an iterator that reads the applications in the given response
+	 * stream one by one. Contrary to {@link #get(InputStream)} the response
+	 * is not turned into a tree of nodes as a whole, only the application
+	 * that is currently read is held in memory.
+	 *
+	 * @param inputStream
+	 *            the response stream, positioned at the very beginning
+	 * @return the iterator over the application dtos
+	 * @throws IOException
+	 */
+	public Iterator<ApplicationResourceDTO> getApplications(InputStream inputStream) throws IOException {
+		return new ResourceDTOIterator<ApplicationResourceDTO>(inputStream) {
+
+			@Override
+			protected ApplicationResourceDTO create(ModelNode node) {
+				return createApplication(node, null);
+			}
+		};
+	}
+
+	/**
+	 * Reads the applications in the given response stream one by one and
+	 * notifies the given callback of each of them.
+	 *
+	 * @see #getApplications(InputStream)
+	 */
+	public void getApplications(InputStream inputStream, IResourceDTOCallback<ApplicationResourceDTO> callback)
+			throws IOException {
+		notifyCallback(getApplications(inputStream), callback);
+	}
+
+	/**
+	 * Returns an iterator that reads the domains in the given response stream
+	 * one by one.
+	 *
+	 * @see #getApplications(InputStream)
+	 */
+	public Iterator<DomainResourceDTO> getDomains(InputStream inputStream) throws IOException {
+		return new ResourceDTOIterator<DomainResourceDTO>(inputStream) {
+
+			@Override
+			protected DomainResourceDTO create(ModelNode node) {
+				return createDomain(node, null);
+			}
+		};
+	}
+
+	/**
+	 * Reads the domains in the given response stream one by one and notifies
+	 * the given callback of each of them.
+	 *
+	 * @see #getDomains(InputStream)
+	 */
+	public void getDomains(InputStream inputStream, IResourceDTOCallback<DomainResourceDTO> callback)
+			throws IOException {
+		notifyCallback(getDomains(inputStream), callback);
+	}
+
+	/**
+	 * Returns an iterator that reads the cartridges in the given response
+	 * stream one by one.
+	 *
+	 * @see #getApplications(InputStream)
+	 */
+	public Iterator<CartridgeResourceDTO> getCartridges(InputStream inputStream) throws IOException {
+		return new ResourceDTOIterator<CartridgeResourceDTO>(inputStream) {
+
+			@Override
+			protected CartridgeResourceDTO create(ModelNode node) {
+				return createCartridge(node, null);
+			}
+		};
+	}
+
+	/**
+	 * Reads the cartridges in the given response stream one by one and
+	 * notifies the given callback of each of them.
+	 *
+	 * @see #getCartridges(InputStream)
+	 */
+	public void getCartridges(InputStream inputStream, IResourceDTOCallback<CartridgeResourceDTO> callback)
+			throws IOException {
+		notifyCallback(getCartridges(inputStream), callback);
+	}
+
+	private <T> void notifyCallback(Iterator<T> iterator, IResourceDTOCallback<T> callback) throws IOException {
+		try {
+			while (iterator.hasNext()) {
+				callback.received(iterator.next());
+			}
+		} catch (StreamReadException e) {
+			throw e.getCause();
+		}
+	}
+
 	/**
 	 * Creates a new ResourceDTO object.
 	 * 
@@ -195,22 +304,34 @@ public class OpenShiftJsonDTOFactory extends AbstractJsonDTOFactory {
 				final String linkName = linkNode.asProperty().getName();
 				final ModelNode valueNode = linkNode.asProperty().getValue();
 				if (valueNode.isDefined()) {
-					links.put(linkName, createLink(valueNode));
+					links.put(linkName, createLink(linkName, valueNode));
 				}
 			}
 		}
 		return links;
 	}
 
-	private Link createLink(final ModelNode valueNode) {
+	private Link createLink(final String linkName, final ModelNode valueNode) {
 		final String rel = getAsString(valueNode, PROPERTY_REL);
 		final String href = valueNode.get(PROPERTY_HREF).asString();
-		final String method = valueNode.get(PROPERTY_METHOD).asString();
+		final HttpMethod method = HttpMethod.valueOf(valueNode.get(PROPERTY_METHOD).asString());
 		final List<LinkParameter> requiredParams =
 				createLinkParameters(valueNode.get(PROPERTY_REQUIRED_PARAMS));
 		final List<LinkParameter> optionalParams =
 				createLinkParameters(valueNode.get(PROPERTY_OPTIONAL_PARAMS));
-		return new Link(rel, href, method, requiredParams, optionalParams);
+		return new Link(linkName, rel, href, method, requiredParams, optionalParams,
+				isIdempotent(linkName, method));
+	}
+
+	/**
+	 * Returns <code>true</code> if sending the given link several times has
+	 * the same effect as sending it once: PUT and DELETE by definition (RFC
+	 * 7231) and the POSTs that set the state of an application or cartridge.
+	 */
+	private boolean isIdempotent(final String linkName, final HttpMethod method) {
+		return IDEMPOTENT_METHODS.contains(method)
+				|| (method == HttpMethod.POST
+					&& IDEMPOTENT_POST_LINKS.contains(linkName));
 	}
 
 	/**
@@ -573,4 +694,66 @@ public class OpenShiftJsonDTOFactory extends AbstractJsonDTOFactory {
 		final Map<String, Link> links = createLinks(environmentVariableNode.get(PROPERTY_LINKS));
 		return new EnvironmentVariableResourceDTO(name, value, links, messages);
 	}
+
+	/**
+	 * An iterator that creates the dtos while it reads the data array of a
+	 * response. Elements that don't map to a dto are skipped.
+	 */
+	private abstract static class ResourceDTOIterator<T> implements Iterator<T> {
+
+		private final JsonDataArrayReader reader;
+		private T next;
+
+		private ResourceDTOIterator(InputStream inputStream) throws IOException {
+			this.reader = new JsonDataArrayReader(inputStream);
+		}
+
+		@Override
+		public boolean hasNext() {
+			try {
+				ModelNode node = null;
+				while (next == null
+						&& (node = reader.next()) != null) {
+					this.next = create(node);
+				}
+				return next != null;
+			} catch (IOException e) {
+				throw new StreamReadException(e);
+			}
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T dto = next;
+			this.next = null;
+			return dto;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		protected abstract T create(ModelNode node);
+	}
+
+	/**
+	 * Reports a failure to read the response stream while iterating.
+	 */
+	public static class StreamReadException extends OpenShiftException {
+
+		private static final long serialVersionUID = 1L;
+
+		private StreamReadException(IOException e) {
+			super(e, "Could not read response: {0}", e.getMessage());
+		}
+
+		@Override
+		public IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
 }
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.ssh;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.openshift.client.IApplication;
+import com.openshift.client.OpenShiftSSHOperationException;
+import com.openshift.internal.client.utils.Assert;
+
+/**
+ * A pool of authenticated ssh sessions keyed by ssh url (ex.
+ * <code>ssh://5190d701500446506a0000e4@foobarz.rhcloud.com</code>). A session
+ * is opened once per url and then shared by all the commands, snapshots and
+ * port forwardings to it, each of them opening its own channel. Sessions send
+ * keep-alives while they're idle and are reopened if they were disconnected.
+ * <p>
+ * A session is leased by {@link #getSession(String)} until it is given back
+ * with {@link #release(String)}. The least recently used idle session (no
+ * leases left) is disconnected once the pool exceeds its maximum size.
+ * Sessions that are in use are never disconnected, the pool may thus
+ * temporarily hold more sessions than its maximum.
+ * <p>
+ * The sessions are created by the given {@link JSch} which has to be
+ * configured with the identities (private keys) and known hosts of the user.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see com.openshift.client.OpenShiftConnectionFactory#setSSHSessionPool(SSHSessionPool)
+ */
+public class SSHSessionPool {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SSHSessionPool.class);
+
+	public static final int DEFAULT_MAX_SESSIONS = 20;
+	public static final int DEFAULT_KEEP_ALIVE_INTERVAL = 30 * 1000;
+	public static final int DEFAULT_KEEP_ALIVE_COUNT_MAX = 3;
+	public static final int DEFAULT_CONNECT_TIMEOUT = 30 * 1000;
+
+	private static final int SSH_PORT = 22;
+	private static final String SSH_SCHEME = "ssh://";
+
+	private final JSch jsch;
+	private final int maxSessions;
+	private final int keepAliveInterval;
+	private final Properties config = new Properties();
+	private volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+	private final LinkedHashMap<String, PooledSession> sessions =
+			new LinkedHashMap<String, PooledSession>(16, 0.75f, true);
+	private long connects;
+	private long reuses;
+
+	public SSHSessionPool(JSch jsch) {
+		this(jsch, DEFAULT_MAX_SESSIONS, DEFAULT_KEEP_ALIVE_INTERVAL);
+	}
+
+	/**
+	 * @param jsch
+	 *            the jsch that creates the sessions
+	 * @param maxSessions
+	 *            the maximum number of sessions in this pool
+	 * @param keepAliveInterval
+	 *            the idle time (in millis) after which a session sends a
+	 *            keep-alive
+	 */
+	public SSHSessionPool(JSch jsch, int maxSessions, int keepAliveInterval) {
+		Assert.notNull(jsch);
+		Assert.isTrue(maxSessions > 0);
+		Assert.isTrue(keepAliveInterval > 0);
+
+		this.jsch = jsch;
+		this.maxSessions = maxSessions;
+		this.keepAliveInterval = keepAliveInterval;
+	}
+
+	/**
+	 * Returns a connected session to the given application. Opens it if there
+	 * is none yet or if it was disconnected. The session is leased until it
+	 * is released.
+	 *
+	 * @throws OpenShiftSSHOperationException
+	 *             if the session could not be opened
+	 */
+	public Session getSession(IApplication application) throws OpenShiftSSHOperationException {
+		Assert.notNull(application);
+
+		return getSession(application.getSshUrl());
+	}
+
+	/**
+	 * Returns a connected session to the given ssh url (ex. the url of an
+	 * application or a gear). Opens it if there is none yet or if it was
+	 * disconnected. The session is leased until it is released.
+	 *
+	 * @throws OpenShiftSSHOperationException
+	 *             if the session could not be opened
+	 *
+	 * @see #release(String)
+	 */
+	public Session getSession(String sshUrl) throws OpenShiftSSHOperationException {
+		Assert.notNull(sshUrl);
+
+		while (true) {
+			PooledSession pooledSession = lease(sshUrl);
+			boolean connected = false;
+			try {
+				// connect outside of the pool lock, other urls must not wait for the handshake
+				Session session = pooledSession.get();
+				if (session != null) {
+					connected = true;
+					return session;
+				}
+				// pool was disconnected meanwhile, lease a new one
+			} finally {
+				if (!connected) {
+					release(pooledSession);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gives back a session to the given application that was leased by
+	 * {@link #getSession(IApplication)}.
+	 */
+	public void release(IApplication application) {
+		Assert.notNull(application);
+
+		release(application.getSshUrl());
+	}
+
+	/**
+	 * Gives back a session to the given ssh url that was leased by
+	 * {@link #getSession(String)}. The session stays connected and pooled, it
+	 * may be disconnected once it's idle and the pool exceeds its maximum
+	 * size.
+	 */
+	public void release(String sshUrl) {
+		Assert.notNull(sshUrl);
+
+		PooledSession session;
+		synchronized (this) {
+			session = sessions.get(sshUrl);
+		}
+		if (session != null) {
+			release(session);
+		}
+	}
+
+	private void release(PooledSession session) {
+		List<PooledSession> evicted;
+		synchronized (this) {
+			// evicted sessions aren't leased any more
+			if (sessions.get(session.sshUrl) == session
+					&& session.leases > 0) {
+				session.leases--;
+			}
+			evicted = evictIdle();
+		}
+		disconnect(evicted);
+	}
+
+	private PooledSession lease(String sshUrl) {
+		List<PooledSession> evicted;
+		PooledSession session;
+		synchronized (this) {
+			session = sessions.get(sshUrl);
+			if (session == null) {
+				session = new PooledSession(sshUrl);
+				sessions.put(sshUrl, session);
+			}
+			session.leases++;
+			evicted = evictIdle();
+		}
+		disconnect(evicted);
+		return session;
+	}
+
+	/**
+	 * Removes the least recently used idle sessions until the pool fits its
+	 * maximum size. Must be called while holding the pool lock.
+	 */
+	private List<PooledSession> evictIdle() {
+		List<PooledSession> evicted = new ArrayList<PooledSession>();
+		Iterator<PooledSession> iterator = sessions.values().iterator();
+		while (sessions.size() > maxSessions
+				&& iterator.hasNext()) {
+			PooledSession session = iterator.next();
+			if (session.leases == 0) {
+				evicted.add(session);
+				iterator.remove();
+			}
+		}
+		return evicted;
+	}
+
+	private void disconnect(List<PooledSession> evicted) {
+		for (PooledSession session : evicted) {
+			session.evict();
+		}
+	}
+
+	/**
+	 * Creates and connects a session to the given ssh url. Override to
+	 * customize the sessions further.
+	 */
+	protected Session connect(String sshUrl) throws JSchException {
+		URI uri = toURI(sshUrl);
+		int port = uri.getPort() == -1 ? SSH_PORT : uri.getPort();
+		Session session = jsch.getSession(uri.getUserInfo(), uri.getHost(), port);
+		synchronized (config) {
+			session.setConfig(config);
+		}
+		session.setServerAliveInterval(keepAliveInterval);
+		session.setServerAliveCountMax(DEFAULT_KEEP_ALIVE_COUNT_MAX);
+		session.connect(connectTimeout);
+		return session;
+	}
+
+	private URI toURI(String sshUrl) throws JSchException {
+		if (!sshUrl.contains("://")) {
+			sshUrl = SSH_SCHEME + sshUrl;
+		}
+		try {
+			URI uri = new URI(sshUrl);
+			if (uri.getUserInfo() == null
+					|| uri.getHost() == null) {
+				throw new JSchException("Invalid ssh url " + sshUrl);
+			}
+			return uri;
+		} catch (URISyntaxException e) {
+			throw new JSchException("Invalid ssh url " + sshUrl, e);
+		}
+	}
+
+	/**
+	 * Sets a jsch configuration (ex. <code>StrictHostKeyChecking</code>) for
+	 * the sessions that this pool opens from now on.
+	 */
+	public void setConfig(String key, String value) {
+		synchronized (config) {
+			config.setProperty(key, value);
+		}
+	}
+
+	/**
+	 * Sets the timeout (in millis) for opening a session.
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Disconnects all sessions in this pool.
+	 */
+	public void disconnect() {
+		List<PooledSession> disconnected;
+		synchronized (this) {
+			disconnected = new ArrayList<PooledSession>(sessions.values());
+			sessions.clear();
+		}
+		disconnect(disconnected);
+	}
+
+	/**
+	 * Returns the number of sessions in this pool.
+	 */
+	public synchronized int getCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * Returns the number of sessions that were opened (full handshakes).
+	 */
+	public synchronized long getConnects() {
+		return connects;
+	}
+
+	/**
+	 * Returns the number of times that a connected session was handed out
+	 * again.
+	 */
+	public synchronized long getReuses() {
+		return reuses;
+	}
+
+	private synchronized void connected() {
+		connects++;
+	}
+
+	private synchronized void reused() {
+		reuses++;
+	}
+
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+	/**
+	 * The session to a single ssh url. Callers for the same url wait for the
+	 * handshake of the first one. An evicted session is never reconnected,
+	 * it's not in the pool any more and would leak.
+	 */
+	private class PooledSession {
+
+		private final String sshUrl;
+		private Session session;
+		private boolean evicted;
+		/** guarded by the pool lock */
+		private int leases;
+
+		private PooledSession(String sshUrl) {
+			this.sshUrl = sshUrl;
+		}
+
+		/**
+		 * Returns the connected session or <code>null</code> if this session
+		 * was evicted.
+		 */
+		private synchronized Session get() throws OpenShiftSSHOperationException {
+			if (evicted) {
+				return null;
+			}
+			if (session != null
+					&& session.isConnected()) {
+				reused();
+				return session;
+			}
+			if (session != null) {
+				LOGGER.debug("Session to {} was disconnected, reconnecting", sshUrl);
+			}
+			try {
+				this.session = connect(sshUrl);
+				connected();
+				return session;
+			} catch (JSchException e) {
+				this.session = null;
+				throw new OpenShiftSSHOperationException(e, "Could not open ssh session to {0}", sshUrl);
+			}
+		}
+
+		private synchronized void evict() {
+			this.evicted = true;
+			if (session != null) {
+				session.disconnect();
+				this.session = null;
+			}
+		}
+	}
+}
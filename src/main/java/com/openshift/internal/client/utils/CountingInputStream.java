@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An input stream that adds the number of bytes that were read to a given
+ * counter.
+ * 
+ * @author Andre Dietisheim
+ */
+public class CountingInputStream extends FilterInputStream {
+
+	private final AtomicLong counter;
+
+	public CountingInputStream(InputStream inputStream, AtomicLong counter) {
+		super(inputStream);
+		this.counter = counter;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int data = super.read();
+		if (data != -1) {
+			counter.incrementAndGet();
+		}
+		return data;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		int read = super.read(buffer, offset, length);
+		if (read > 0) {
+			counter.addAndGet(read);
+		}
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		counter.addAndGet(skipped);
+		return skipped;
+	}
+}
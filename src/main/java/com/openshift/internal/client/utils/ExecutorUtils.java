@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.openshift.client.OpenShiftException;
+
+/**
+ * @author Andre Dietisheim
+ */
+public class ExecutorUtils {
+
+	public static final int SHARED_POOL_SIZE = 10;
+	private static final long SHARED_POOL_KEEP_ALIVE = 60;
+
+	private static final String VIRTUAL_THREAD_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
+
+	private static ExecutorService sharedExecutor;
+	private static ExecutorService streamExecutor;
+
+	private ExecutorUtils() {
+	}
+
+	/**
+	 * Returns the executor that connections share by default. Its threads
+	 * are daemons, they're bounded in number and terminate when they're
+	 * idle. Tasks queue up if all threads are busy. Tasks that its threads
+	 * submit to a connection are run on the submitting thread so that waiting
+	 * for them cannot exhaust the pool. The shared executor must not be shut
+	 * down.
+	 * 
+	 * @see ReentrantExecutorService
+	 */
+	public static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(SHARED_POOL_SIZE, SHARED_POOL_SIZE,
+					SHARED_POOL_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					ReentrantExecutorService.newThreadFactory(newDaemonThreadFactory("openshift-java-client")));
+			executor.allowCoreThreadTimeOut(true);
+			sharedExecutor = executor;
+		}
+		return sharedExecutor;
+	}
+
+	/**
+	 * Returns the executor for tasks that run for a long time (ex. reading a
+	 * remote log that's tailed). Its threads are daemons that are created on
+	 * demand and terminate when they're idle, tasks thus never queue up
+	 * behind each other. The stream executor must not be shut down.
+	 */
+	public static synchronized ExecutorService getStreamExecutor() {
+		if (streamExecutor == null) {
+			streamExecutor = Executors.newCachedThreadPool(newDaemonThreadFactory("openshift-java-client-stream"));
+		}
+		return streamExecutor;
+	}
+
+	/**
+	 * Returns <code>true</code> if the running jvm supports virtual threads
+	 * (java 21 and later).
+	 */
+	public static boolean isVirtualThreadsSupported() {
+		return getVirtualThreadExecutorFactory() != null;
+	}
+
+	/**
+	 * Returns an executor that runs each task in a new virtual thread.
+	 * 
+	 * @throws OpenShiftException
+	 *             if the running jvm does not support virtual threads
+	 * 
+	 * @see #isVirtualThreadsSupported()
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor() throws OpenShiftException {
+		Method factory = getVirtualThreadExecutorFactory();
+		if (factory == null) {
+			throw new OpenShiftException("Could not create executor: virtual threads are not supported by java {0}",
+					System.getProperty("java.version"));
+		}
+		try {
+			return (ExecutorService) factory.invoke(null);
+		} catch (Exception e) {
+			throw new OpenShiftException(e, "Could not create virtual thread executor");
+		}
+	}
+
+	private static Method getVirtualThreadExecutorFactory() {
+		try {
+			return Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_FACTORY);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a factory for daemon threads that are named with the given
+	 * prefix and a sequence number.
+	 */
+	public static ThreadFactory newDaemonThreadFactory(final String prefix) {
+		return new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.utils;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An executor service that runs tasks on the given executor unless they're
+ * submitted by a task that is running on a pool thread already. These nested
+ * tasks run on the calling thread. A task that submits further tasks and
+ * waits for them (ex. a bulk operation that refreshes applications) thus never
+ * waits for a pool thread while it's holding one: a bounded pool would
+ * deadlock once all its threads are waiting.
+ * <p>
+ * This executor service cannot be shut down, the executor that it delegates
+ * to is shut down by its owner.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see ExecutorUtils#getSharedExecutor()
+ */
+public class ReentrantExecutorService extends AbstractExecutorService {
+
+	private static final ThreadLocal<Boolean> IN_TASK = new ThreadLocal<Boolean>() {
+
+		@Override
+		protected Boolean initialValue() {
+			return Boolean.FALSE;
+		}
+	};
+
+	private final ExecutorService executor;
+
+	public ReentrantExecutorService(ExecutorService executor) {
+		Assert.notNull(executor);
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		if (isInTask()) {
+			task.run();
+		} else {
+			executor.execute(asTask(task));
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the calling thread is running a task of a
+	 * reentrant executor service or is a thread of a pool whose threads were
+	 * created by {@link #newThreadFactory(ThreadFactory)}.
+	 */
+	public static boolean isInTask() {
+		return IN_TASK.get();
+	}
+
+	/**
+	 * Returns a factory whose threads run nested tasks on the calling thread,
+	 * regardless of the task that they were given.
+	 */
+	public static ThreadFactory newThreadFactory(final ThreadFactory threadFactory) {
+		return new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				return threadFactory.newThread(asTask(runnable));
+			}
+		};
+	}
+
+	private static Runnable asTask(final Runnable runnable) {
+		return new Runnable() {
+
+			@Override
+			public void run() {
+				boolean inTask = IN_TASK.get();
+				IN_TASK.set(Boolean.TRUE);
+				try {
+					runnable.run();
+				} finally {
+					IN_TASK.set(inTask);
+				}
+			}
+		};
+	}
+
+	@Override
+	public void shutdown() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return executor.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return executor.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return executor.awaitTermination(timeout, unit);
+	}
+}
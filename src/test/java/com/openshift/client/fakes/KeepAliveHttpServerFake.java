@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.fakes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A http server fake that keeps connections open (HTTP/1.1 keep-alive) and
+ * answers any number of requests per connection. It records the requests it
+ * received and counts the connections it accepted.
+ *
+ * @author Andre Dietisheim
+ */
+public class KeepAliveHttpServerFake {
+
+	private static final Pattern CONTENT_LENGTH_PATTERN = Pattern.compile("Content-Length: ([0-9]+)",
+			Pattern.CASE_INSENSITIVE);
+
+	private final int port;
+	private final String response;
+	private ExecutorService executor;
+	private ServerSocket serverSocket;
+	private final AtomicInteger connections = new AtomicInteger();
+	private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+	/**
+	 * @param port
+	 *            the port to listen to (address is always localhost)
+	 * @param response
+	 *            the body to answer every request with
+	 */
+	public KeepAliveHttpServerFake(int port, String response) {
+		this.port = port;
+		this.response = response;
+	}
+
+	public void start() throws Exception {
+		this.serverSocket = createServerSocket(port);
+		this.executor = Executors.newCachedThreadPool();
+		executor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (!serverSocket.isClosed()) {
+						final Socket socket = serverSocket.accept();
+						connections.incrementAndGet();
+						executor.submit(new Runnable() {
+
+							@Override
+							public void run() {
+								serve(socket);
+							}
+						});
+					}
+				} catch (IOException e) {
+					// server socket closed
+				}
+			}
+		});
+	}
+
+	protected ServerSocket createServerSocket(int port) throws Exception {
+		return new ServerSocket(port);
+	}
+
+	private void serve(Socket socket) {
+		try {
+			InputStream inputStream = socket.getInputStream();
+			OutputStream outputStream = socket.getOutputStream();
+			String request = null;
+			while ((request = readRequest(inputStream)) != null) {
+				requests.add(request);
+				writeResponse(request, outputStream);
+			}
+		} catch (IOException e) {
+			// connection closed
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private String readRequest(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		int newLines = 0;
+		int data = -1;
+		while (newLines < 2
+				&& (data = inputStream.read()) != -1) {
+			if (data == '\n') {
+				newLines++;
+			} else if (data != '\r') {
+				newLines = 0;
+			}
+			header.write(data);
+		}
+		if (data == -1) {
+			return null;
+		}
+		String request = header.toString();
+		Matcher matcher = CONTENT_LENGTH_PATTERN.matcher(request);
+		if (matcher.find()) {
+			for (int i = Integer.parseInt(matcher.group(1)); i > 0; i--) {
+				inputStream.read();
+			}
+		}
+		return request;
+	}
+
+	protected void writeResponse(String request, OutputStream outputStream) throws IOException {
+		byte[] body = response.getBytes("UTF-8");
+		outputStream.write(new StringBuilder()
+				.append("HTTP/1.1 200 OK\r\n")
+				.append("Content-Type: application/json\r\n")
+				.append("Content-Length: ").append(body.length).append("\r\n")
+				.append("\r\n")
+				.toString().getBytes("UTF-8"));
+		outputStream.write(body);
+		outputStream.flush();
+	}
+
+	public URL getUrl() throws MalformedURLException {
+		return new URL(MessageFormat.format("http://localhost:{0}/", String.valueOf(port)));
+	}
+
+	/**
+	 * Returns the number of connections that this server accepted.
+	 */
+	public int getConnections() {
+		return connections.get();
+	}
+
+	/**
+	 * Returns the headers of the requests that this server received.
+	 */
+	public List<String> getRequests() {
+		return new ArrayList<String>(requests);
+	}
+
+	public void stop() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.client.fakes;
+
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.security.KeyStore;
+import java.text.MessageFormat;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * A keep-alive https server fake that uses the self-signed certificate in
+ * src/test/resources/server-keystore.jks.
+ *
+ * @author Andre Dietisheim
+ *
+ * @see HttpsServerFake
+ */
+public class KeepAliveHttpsServerFake extends KeepAliveHttpServerFake {
+
+	private static final String KEYSTORE_PASSWORD = "123456";
+	private static final String KEYSTORE_TYPE = "JKS";
+	private static final String KEYSTORE_FILE = "/server-keystore.jks";
+
+	private final int port;
+
+	public KeepAliveHttpsServerFake(int port, String response) {
+		super(port, response);
+		this.port = port;
+	}
+
+	@Override
+	protected ServerSocket createServerSocket(int port) throws Exception {
+		KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+		keyStore.load(getClass().getResourceAsStream(KEYSTORE_FILE), KEYSTORE_PASSWORD.toCharArray());
+
+		KeyManagerFactory keyManagerFactory =
+				KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+		return sslContext.getServerSocketFactory().createServerSocket(port);
+	}
+
+	@Override
+	public URL getUrl() throws MalformedURLException {
+		return new URL(MessageFormat.format("https://localhost:{0}/", String.valueOf(port)));
+	}
+}
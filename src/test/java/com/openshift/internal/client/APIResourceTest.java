@@ -10,19 +10,62 @@
  ******************************************************************************/
 package com.openshift.internal.client;
 
+import static com.openshift.client.utils.UrlEndsWithMatcher.urlEndsWith;
 import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.openshift.client.BulkOptions;
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IApplication;
+import com.openshift.client.IBulkResult;
+import com.openshift.client.IDomain;
+import com.openshift.client.IHttpClient;
+import com.openshift.client.IHttpClient.ISSLCertificateCallback;
 import com.openshift.client.IOpenShiftConnection;
+import com.openshift.client.OpenShiftConnectionFactory;
+import com.openshift.client.OpenShiftException;
+import com.openshift.client.PrefetchSpec;
 import com.openshift.client.cartridge.ICartridge;
 import com.openshift.client.cartridge.IEmbeddableCartridge;
 import com.openshift.client.cartridge.IStandaloneCartridge;
+import com.openshift.client.configuration.IOpenShiftConfiguration;
 import com.openshift.client.utils.CartridgeTestUtils;
+import com.openshift.client.utils.Samples;
 import com.openshift.client.utils.TestConnectionFactory;
+import com.openshift.internal.client.httpclient.request.IMediaType;
+import com.openshift.internal.client.httpclient.request.Parameter;
+import com.openshift.internal.client.response.Link;
+import com.openshift.internal.client.response.OpenShiftJsonDTOFactory;
+import com.openshift.internal.client.response.RestResponse;
+import com.openshift.internal.client.utils.ExecutorUtils;
 
 /**
  * @author Xavier Coulon
@@ -95,4 +138,382 @@ public class APIResourceTest extends TestTimer {
 						, CartridgeTestUtils.MYSQL_51_NAME
 						, CartridgeTestUtils.SWITCHYARD_06_NAME);
 	}
+
+	@Test
+	public void shouldLoadConfigurationOncePerConnectionFactory() throws Throwable {
+		// pre-conditions
+		final IOpenShiftConfiguration configuration = mock(IOpenShiftConfiguration.class);
+		when(configuration.getRhlogin()).thenReturn("foo@redhat.com");
+		when(configuration.getLibraServer()).thenReturn("https://openshift.redhat.com");
+		final AtomicInteger loads = new AtomicInteger();
+		final OpenShiftConnectionFactory connectionFactory = new OpenShiftConnectionFactory() {
+
+			@Override
+			protected IOpenShiftConfiguration createConfiguration() {
+				loads.incrementAndGet();
+				return configuration;
+			}
+
+			@Override
+			public IOpenShiftConnection getConnection(String clientId, String username, String password,
+					String authKey, String authIV, String serverUrl, ISSLCertificateCallback sslCertificateCallback) {
+				getConfiguration();
+				return connection;
+			}
+		};
+		int requests = 10;
+		final CyclicBarrier barrier = new CyclicBarrier(requests);
+		ExecutorService executor = Executors.newFixedThreadPool(requests);
+		List<Future<IOpenShiftConnection>> connections = new ArrayList<Future<IOpenShiftConnection>>();
+		try {
+			// operation
+			for (int i = 0; i < requests; i++) {
+				final boolean withUsername = i % 2 == 0;
+				connections.add(executor.submit(new Callable<IOpenShiftConnection>() {
+
+					@Override
+					public IOpenShiftConnection call() throws Exception {
+						barrier.await(10, TimeUnit.SECONDS);
+						if (withUsername) {
+							return connectionFactory.getConnection("test", "bar@redhat.com", "secret");
+						}
+						return connectionFactory.getConnection("test", "secret");
+					}
+				}));
+			}
+			// verifications
+			for (Future<IOpenShiftConnection> future : connections) {
+				assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(connection);
+			}
+			assertThat(loads.get()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldShareDefaultExecutorAmongConnections() throws Throwable {
+		// pre-conditions
+		IOpenShiftConnection otherConnection = new TestConnectionFactory().getConnection(mockDirector.client());
+		// operation
+		((APIResource) connection).disconnect();
+		// verifications
+		assertThat(connection.getExecutorService()).isSameAs(otherConnection.getExecutorService());
+		assertThat(otherConnection.getExecutorService().isShutdown()).isFalse();
+	}
+
+	@Test
+	public void shouldUseGivenExecutorAndNotShutItDown() throws Throwable {
+		// pre-conditions
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		TestConnectionFactory connectionFactory = new TestConnectionFactory();
+		connectionFactory.setExecutorService(executor);
+		// operation
+		IOpenShiftConnection connection = connectionFactory.getConnection(mockDirector.client());
+		((APIResource) connection).disconnect();
+		// verifications
+		assertThat(connection.getExecutorService()).isSameAs(executor);
+		assertThat(executor.isShutdown()).isFalse();
+		executor.shutdown();
+	}
+
+	@Test
+	public void shouldRunAsyncRequestsOnConnectionExecutor() throws Throwable {
+		// pre-conditions
+		final AtomicInteger threads = new AtomicInteger();
+		ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				threads.incrementAndGet();
+				return new Thread(runnable);
+			}
+		});
+		TestConnectionFactory connectionFactory = new TestConnectionFactory();
+		connectionFactory.setExecutorService(executor);
+		IOpenShiftConnection connection = connectionFactory.getConnection(mockDirector.client());
+		try {
+			// operation
+			RestResponse response = ((APIResource) connection).getService().requestAsync(
+					new Link("Get API", "/api", HttpMethod.GET), IHttpClient.NO_TIMEOUT,
+					new OpenShiftJsonDTOFactory(), Collections.<Parameter> emptyList(),
+					Collections.<Parameter> emptyList())
+					.get(10, TimeUnit.SECONDS);
+			// verifications
+			assertThat(response).isNotNull();
+			assertThat(threads.get()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldReuseCachedApiLinksAndClient() throws Throwable {
+		// pre-conditions
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+		ConnectionCache connectionCache = new ConnectionCache();
+		TestConnectionFactory connectionFactory = new TestConnectionFactory();
+		connectionFactory.setConnectionCache(connectionCache);
+		// operation
+		IOpenShiftConnection connection = connectionFactory.getConnection(mockDirector.client());
+		IOpenShiftConnection otherConnection = connectionFactory.getConnection(mockDirector.client());
+		// verifications
+		mockDirector.verifyGetAny(1);
+		assertThat(otherConnection).isNotSameAs(connection);
+		assertThat(((APIResource) otherConnection).getService()).isSameAs(((APIResource) connection).getService());
+		assertThat(connectionCache.getHits()).isEqualTo(1);
+		assertThat(connectionCache.getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotReuseCachedConnectionForOtherHttpClient() throws Throwable {
+		// pre-conditions
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+		HttpClientMockDirector otherMockDirector = new HttpClientMockDirector();
+		ConnectionCache connectionCache = new ConnectionCache();
+		TestConnectionFactory connectionFactory = new TestConnectionFactory();
+		connectionFactory.setConnectionCache(connectionCache);
+		IOpenShiftConnection connection = connectionFactory.getConnection(mockDirector.client());
+		// operation
+		IOpenShiftConnection otherConnection = connectionFactory.getConnection(otherMockDirector.client());
+		// verifications
+		mockDirector.verifyGetAny(1);
+		otherMockDirector.verifyGetAny(1);
+		assertThat(((APIResource) otherConnection).getService()).isNotSameAs(((APIResource) connection).getService());
+		assertThat(connectionCache.getHits()).isEqualTo(0);
+		assertThat(connectionCache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRequestApiLinksAgainIfCachedConnectionExpired() throws Throwable {
+		// pre-conditions
+		HttpClientMockDirector mockDirector = new HttpClientMockDirector();
+		ConnectionCache connectionCache = new ConnectionCache(50, 10);
+		TestConnectionFactory connectionFactory = new TestConnectionFactory();
+		connectionFactory.setConnectionCache(connectionCache);
+		connectionFactory.getConnection(mockDirector.client());
+		// operation
+		Thread.sleep(100);
+		connectionFactory.getConnection(mockDirector.client());
+		// verifications
+		mockDirector.verifyGetAny(2);
+		assertThat(connectionCache.getHits()).isEqualTo(0);
+		assertThat(connectionCache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldPrefetchResourceGraph() throws Throwable {
+		// pre-conditions
+		mockDirector
+				// applications of domain foogoo
+				.mockGetAny(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_NOAPPS.getContentAsString())
+				.mockGetUser(Samples.GET_USER)
+				.mockGetCartridges(Samples.GET_CARTRIDGES)
+				.mockGetDomains(Samples.GET_DOMAINS)
+				.mockGetApplications("foobarz", Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED);
+		// operation
+		connection.prefetch(new PrefetchSpec().user().embeddedCartridges().cartridges());
+		// verifications
+		mockDirector
+				.verifyGetUser()
+				.verifyGetDomains()
+				.verifyGetApplications("foobarz", 1)
+				// api, user, cartridges, domains and the applications of 2 domains
+				.verifyGetAny(6);
+		// prefetched resources are not requested again
+		IDomain domain = connection.getDomains().get(0);
+		assertThat(domain.getApplications()).hasSize(2);
+		assertThat(connection.getUser()).isNotNull();
+		assertThat(connection.getCartridges()).isNotEmpty();
+		mockDirector.verifyGetAny(6);
+	}
+
+	@Test
+	public void shouldLoadCartridgesOnceIfRequestedConcurrently() throws Throwable {
+		// pre-conditions
+		final CountDownLatch requested = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger requests = new AtomicInteger();
+		when(mockDirector.client().get(urlEndsWith("/cartridges"), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				requests.incrementAndGet();
+				requested.countDown();
+				release.await();
+				return Samples.GET_CARTRIDGES.getContentAsString();
+			}
+		});
+		Thread loader = new Thread() {
+
+			@Override
+			public void run() {
+				connection.getStandaloneCartridges();
+			}
+		};
+		loader.start();
+		requested.await(10, TimeUnit.SECONDS);
+		Thread otherLoader = new Thread() {
+
+			@Override
+			public void run() {
+				connection.getEmbeddableCartridges();
+			}
+		};
+		otherLoader.start();
+		// operation
+		// wait for the other loader to block on the cartridges that are loading
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+		while (otherLoader.getState() != Thread.State.BLOCKED
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+		loader.join(TimeUnit.SECONDS.toMillis(10));
+		otherLoader.join(TimeUnit.SECONDS.toMillis(10));
+		// verifications
+		assertThat(requests.get()).isEqualTo(1);
+		assertThat(connection.getStandaloneCartridges()).hasSize(15);
+		assertThat(connection.getEmbeddableCartridges()).hasSize(11);
+	}
+
+	@Test
+	public void shouldRestartAllApplicationsAndReportEachOutcome() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = mockApplications(5);
+		IApplication failing = applications.get(2);
+		doThrow(new OpenShiftException("restart failed (mock)")).when(failing).restart();
+		// operation
+		IBulkResult result = connection.getBulkOperations()
+				.restart(applications, new BulkOptions().parallelism(2));
+		// verifications
+		for (IApplication application : applications) {
+			verify(application).restart();
+		}
+		assertThat(result.isSuccessful()).isFalse();
+		assertThat(result.isStopped()).isFalse();
+		assertThat(result.getSucceeded()).hasSize(4).excludes(failing);
+		assertThat(result.getFailed()).hasSize(1);
+		assertThat(result.getFailed().get(failing)).isNotNull();
+		assertThat(result.getSkipped()).isEmpty();
+	}
+
+	@Test
+	public void shouldStopBulkOperationOnFailureRatio() throws Throwable {
+		// pre-conditions
+		List<IApplication> applications = mockApplications(5);
+		doThrow(new OpenShiftException("restart failed (mock)")).when(applications.get(0)).restart();
+		doThrow(new OpenShiftException("restart failed (mock)")).when(applications.get(1)).restart();
+		// operation
+		IBulkResult result = connection.getBulkOperations()
+				.restart(applications, new BulkOptions()
+						.parallelism(1)
+						.rollingWindow(2, 0)
+						.stopOnFailureRatio(0.5, 2));
+		// verifications
+		verify(applications.get(2), never()).restart();
+		assertThat(result.isStopped()).isTrue();
+		assertThat(result.getFailed()).hasSize(2);
+		assertThat(result.getSucceeded()).isEmpty();
+		assertThat(result.getSkipped()).containsExactly(applications.get(2), applications.get(3), applications.get(4));
+	}
+
+	@Test
+	public void shouldDestroyApplicationsOfOneDomainConcurrently() throws Throwable {
+		// pre-conditions
+		mockDirector
+				.mockGetDomains(Samples.GET_DOMAINS)
+				.mockGetApplications("foobarz", Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED);
+		IDomain domain = connection.getUser().getDomain("foobarz");
+		List<IApplication> applications = domain.getApplications();
+		assertThat(applications).hasSize(2);
+		// let the deletes answer at the same time so that the applications
+		// are removed from the domain concurrently
+		final CyclicBarrier barrier = new CyclicBarrier(applications.size());
+		when(mockDirector.client().delete(any(URL.class), any(IMediaType.class), anyInt(),
+				Matchers.<Parameter> anyVararg())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				barrier.await(10, TimeUnit.SECONDS);
+				return "{}";
+			}
+		});
+		// operation
+		IBulkResult result = connection.getBulkOperations()
+				.destroy(applications, new BulkOptions().parallelism(applications.size()));
+		// verifications
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(result.getSucceeded()).hasSize(2);
+		assertThat(domain.getApplications()).isEmpty();
+	}
+
+	@Test
+	public void shouldRunNestedBulkOperationsInSaturatedSharedPool() throws Throwable {
+		// pre-conditions
+		final List<IApplication> applications = mockApplications(2);
+		ExecutorService executor = connection.getExecutorService();
+		assertThat(executor).isSameAs(ExecutorUtils.getSharedExecutor());
+		List<Future<IBulkResult>> results = new ArrayList<Future<IBulkResult>>();
+		// operation
+		// occupy all pool threads with tasks that wait for further pool tasks
+		for (int i = 0; i < ExecutorUtils.SHARED_POOL_SIZE; i++) {
+			results.add(executor.submit(new Callable<IBulkResult>() {
+
+				@Override
+				public IBulkResult call() throws Exception {
+					return connection.getBulkOperations()
+							.restart(applications, new BulkOptions().parallelism(applications.size()));
+				}
+			}));
+		}
+		// verifications
+		for (Future<IBulkResult> result : results) {
+			assertThat(result.get(10, TimeUnit.SECONDS).getSucceeded()).hasSize(applications.size());
+		}
+	}
+
+	@Test(timeout = 10 * 1000)
+	public void shouldRunNestedBulkOperationsOnCallingPoolThread() throws Throwable {
+		// pre-conditions
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		TestConnectionFactory connectionFactory = new TestConnectionFactory();
+		connectionFactory.setExecutorService(executor);
+		final IOpenShiftConnection connection = connectionFactory.getConnection(mockDirector.client());
+		final List<IApplication> nestedApplications = mockApplications(2);
+		List<IApplication> applications = mockApplications(2);
+		for (IApplication application : applications) {
+			doAnswer(new Answer<Void>() {
+
+				@Override
+				public Void answer(InvocationOnMock invocation) throws Throwable {
+					// nested in a task that holds the only pool thread
+					IBulkResult result = connection.getBulkOperations()
+							.restart(nestedApplications, new BulkOptions().parallelism(nestedApplications.size()));
+					assertThat(result.isSuccessful()).isTrue();
+					return null;
+				}
+			}).when(application).restart();
+		}
+		try {
+			// operation
+			IBulkResult result = connection.getBulkOperations()
+					.restart(applications, new BulkOptions().parallelism(applications.size()));
+			// verifications
+			assertThat(result.isSuccessful()).isTrue();
+			for (IApplication application : nestedApplications) {
+				verify(application, times(2)).restart();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<IApplication> mockApplications(int count) {
+		List<IApplication> applications = new ArrayList<IApplication>();
+		for (int i = 0; i < count; i++) {
+			applications.add(mock(IApplication.class));
+		}
+		return applications;
+	}
 }
@@ -21,6 +21,7 @@ import static org.junit.Assert.fail;
 import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -609,6 +610,47 @@ public class ApplicationResourceTest extends TestTimer {
 		assertThat(app.getEnvironmentVariables()).hasSize(2);
 	}
 	
+	@Test
+	public void shouldRefreshSelectedFacetsOnly() throws Throwable {
+		// pre-conditions
+		mockDirector
+				.mockGetEnvironmentVariables("foobarz", "springeap6",
+						GET_1_ENVIRONMENT_VARIABLES_FOOBARZ_SPRINGEAP6, GET_2_ENVIRONMENT_VARIABLES_FOOBARZ_SPRINGEAP6);
+		final IApplication app = domain.getApplicationByName("springeap6");
+		assertThat(app.getEnvironmentVariables()).hasSize(1);
+		// operation
+		app.refresh(EnumSet.of(ApplicationFacet.ENVIRONMENT_VARIABLES));
+		// verification
+		assertThat(app.getEnvironmentVariables()).hasSize(2);
+		mockDirector.verifyGetApplicationCartridges(0, "foobarz", "springeap6");
+	}
+
+	@Test
+	public void shouldRefreshRemainingFacetsAndReportAllFailures() throws Throwable {
+		// pre-conditions
+		mockDirector
+				.mockGetApplicationCartridges("foobarz", "springeap6",
+						new InternalServerErrorException("cartridges failed (mock)", null))
+				.mockGetGearGroups("foobarz", "springeap6",
+						new InternalServerErrorException("gear groups failed (mock)", null))
+				.mockGetEnvironmentVariables("foobarz", "springeap6",
+						GET_1_ENVIRONMENT_VARIABLES_FOOBARZ_SPRINGEAP6, GET_2_ENVIRONMENT_VARIABLES_FOOBARZ_SPRINGEAP6);
+		final IApplication app = domain.getApplicationByName("springeap6");
+		assertThat(app.getEnvironmentVariables()).hasSize(1);
+		// operation
+		try {
+			app.refresh(EnumSet.of(
+					ApplicationFacet.CARTRIDGES, ApplicationFacet.GEARS, ApplicationFacet.ENVIRONMENT_VARIABLES));
+			fail("OpenShiftException expected");
+		} catch (OpenShiftException e) {
+			// verification
+			assertThat(e.getMessage())
+					.contains(ApplicationFacet.CARTRIDGES.name())
+					.contains(ApplicationFacet.GEARS.name());
+		}
+		assertThat(app.getEnvironmentVariables()).hasSize(2);
+	}
+
 	@Test
 	public void shouldGetEnvironmentVariableByNameFromApplication() throws Throwable {
 		// precondition
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.jcraft.jsch.ChannelExec;
+
+/**
+ * Measures the throughput of {@link ApplicationSSHSession.ChannelResponse}
+ * when reading a snapshot. A thread stands in for the ssh server: it writes
+ * the snapshot in packets into a pipe (like jsch does with the channel data)
+ * and pauses every now and then. Not part of the test suite, run it manually
+ * and look at the console output.
+ * 
+ * @author Andre Dietisheim
+ */
+public class ApplicationSSHSessionBenchmark {
+
+	private static final int SNAPSHOT_SIZE = 64 * 1024 * 1024;
+	private static final int PACKET_SIZE = 32 * 1024;
+	private static final int PIPE_SIZE = 32 * 1024;
+	private static final int PACKETS_PER_STALL = 256;
+	private static final int STALL_DURATION = 50;
+
+	@Test
+	public void measureChannelResponseThroughput() throws Exception {
+		// warm up
+		read(new byte[8 * 1024]);
+
+		long singleBytes = readSingleBytes();
+		long chunks = read(new byte[8 * 1024]);
+		int stalls = SNAPSHOT_SIZE / PACKET_SIZE / PACKETS_PER_STALL;
+
+		System.out.println(String.format(
+				"%dMB snapshot, %d stalls of %dms:\n"
+						+ "  single bytes: %dms (%.1fMB/s)\n"
+						+ "  8k chunks:    %dms (%.1fMB/s)",
+				SNAPSHOT_SIZE / (1024 * 1024), stalls, STALL_DURATION,
+				singleBytes, throughput(singleBytes),
+				chunks, throughput(chunks)));
+		// a stall must not cost more than the stall itself
+		assertThat(chunks).isLessThan(stalls * STALL_DURATION + 10 * 1000);
+	}
+
+	private long readSingleBytes() throws Exception {
+		InputStream response = createResponse();
+		long start = System.currentTimeMillis();
+		int read = 0;
+		while (response.read() != -1) {
+			read++;
+		}
+		long duration = System.currentTimeMillis() - start;
+		assertThat(read).isEqualTo(SNAPSHOT_SIZE);
+		return duration;
+	}
+
+	private long read(byte[] chunk) throws Exception {
+		InputStream response = createResponse();
+		long start = System.currentTimeMillis();
+		int read = 0;
+		for (int count = -1; (count = response.read(chunk)) != -1;) {
+			read += count;
+		}
+		long duration = System.currentTimeMillis() - start;
+		assertThat(read).isEqualTo(SNAPSHOT_SIZE);
+		return duration;
+	}
+
+	private double throughput(long duration) {
+		return SNAPSHOT_SIZE / (1024d * 1024d) / (Math.max(duration, 1) / 1000d);
+	}
+
+	private InputStream createResponse() throws Exception {
+		final PipedInputStream channelData = new PipedInputStream(PIPE_SIZE);
+		final PipedOutputStream server = new PipedOutputStream(channelData);
+		final AtomicBoolean closed = new AtomicBoolean();
+		ChannelExec channel = Mockito.mock(ChannelExec.class);
+		Mockito.when(channel.getErrStream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+		Mockito.when(channel.getExitStatus()).thenReturn(0);
+		Mockito.when(channel.isClosed()).thenAnswer(new Answer<Boolean>() {
+
+			@Override
+			public Boolean answer(InvocationOnMock invocation) throws Throwable {
+				return closed.get();
+			}
+		});
+		new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				byte[] packet = new byte[PACKET_SIZE];
+				try {
+					for (int i = 0; i < SNAPSHOT_SIZE / PACKET_SIZE; i++) {
+						if (i > 0
+								&& i % PACKETS_PER_STALL == 0) {
+							Thread.sleep(STALL_DURATION);
+						}
+						server.write(packet);
+					}
+					server.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					closed.set(true);
+				}
+			}
+		}, "ssh server stand-in").start();
+		return new ApplicationSSHSession.ChannelResponse(channelData, channel);
+	}
+}
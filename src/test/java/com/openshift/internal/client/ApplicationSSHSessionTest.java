@@ -15,20 +15,51 @@ import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATION
 import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_1EMBEDDED;
 import static com.openshift.client.utils.Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_CARTRIDGES_1EMBEDDED;
 import static org.fest.assertions.Assertions.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.openshift.client.IApplication;
 import com.openshift.client.IApplicationPortForwarding;
 import com.openshift.client.IApplicationSSHSession;
+import com.openshift.client.GearState;
 import com.openshift.client.IDomain;
+import com.openshift.client.IGear;
+import com.openshift.client.IGearExecCallback;
+import com.openshift.client.IGearExecResult;
+import com.openshift.client.IGearGroup;
+import com.openshift.client.IStreamSubscriber;
+import com.openshift.client.IStreamingExec;
+import com.openshift.client.IUploadListener;
+import com.openshift.client.OpenShiftException;
+import com.openshift.internal.client.ssh.SSHSessionPool;
 
 /**
  * @author Corey Daley
@@ -188,4 +219,404 @@ public class ApplicationSSHSessionTest extends TestTimer {
 						"OPENSHIFT_BROKER_HOST=openshift.redhat.com",
 						"OPENSHIFT_APP_NAME=springeap6");
 	}
+
+	@Test
+	public void shouldReadChannelResponseInChunks() throws Throwable {
+		// pre-conditions
+		byte[] data = new byte[100 * 1024 + 17];
+		new Random().nextBytes(data);
+		ChannelExec channel = mockChannel(0, "");
+		InputStream response = new ApplicationSSHSession.ChannelResponse(new ByteArrayInputStream(data), channel);
+		// operation
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		// single bytes, small and large chunks
+		out.write(response.read());
+		byte[] chunk = new byte[64 * 1024];
+		for (int read = -1; (read = response.read(chunk, 0, out.size() % 2 == 0 ? chunk.length : 13)) != -1;) {
+			out.write(chunk, 0, read);
+		}
+		// verification
+		assertThat(out.toByteArray()).isEqualTo(data);
+		assertThat(response.read()).isEqualTo(-1);
+	}
+
+	@Test
+	public void shouldReportErrorOutputOfFailedCommand() throws Throwable {
+		// pre-conditions
+		ChannelExec channel = mockChannel(1, "snapshot failed (mock)");
+		InputStream response =
+				new ApplicationSSHSession.ChannelResponse(new ByteArrayInputStream("partial".getBytes()), channel);
+		byte[] chunk = new byte[1024];
+		assertThat(response.read(chunk, 0, chunk.length)).isEqualTo("partial".length());
+		// operation
+		try {
+			response.read(chunk, 0, chunk.length);
+			fail("IOException expected");
+		} catch (IOException e) {
+			// verification
+			assertThat(e.getMessage()).contains("snapshot failed (mock)");
+		}
+	}
+
+	@Test
+	public void shouldUploadInputAndReportProgress() throws Throwable {
+		// pre-conditions
+		byte[] data = new byte[100 * 1024 + 17];
+		new Random().nextBytes(data);
+		ByteArrayOutputStream remoteStdIn = new ByteArrayOutputStream();
+		IUploadListener listener = Mockito.mock(IUploadListener.class);
+		// operation
+		long sent = new ApplicationSSHSession.StdInUpload(new ByteArrayInputStream(data), remoteStdIn, listener).call();
+		// verification
+		assertThat(sent).isEqualTo(data.length);
+		assertThat(remoteStdIn.toByteArray()).isEqualTo(data);
+		Mockito.verify(listener, Mockito.atLeastOnce()).progressed(Mockito.anyLong(), Mockito.anyLong());
+		Mockito.verify(listener).completed(Mockito.eq((long) data.length), Mockito.anyLong());
+	}
+
+	@Test
+	public void shouldUploadFileThroughItsChannel() throws Throwable {
+		// pre-conditions
+		byte[] data = new byte[1024 * 1024 + 17];
+		new Random().nextBytes(data);
+		File file = File.createTempFile("snapshot", ".tar.gz");
+		file.deleteOnExit();
+		FileOutputStream fileOut = new FileOutputStream(file);
+		fileOut.write(data);
+		fileOut.close();
+		ByteArrayOutputStream remoteStdIn = new ByteArrayOutputStream();
+		// operation
+		long sent = new ApplicationSSHSession.StdInUpload(new FileInputStream(file), remoteStdIn, null).call();
+		// verification
+		assertThat(sent).isEqualTo(data.length);
+		assertThat(remoteStdIn.toByteArray()).isEqualTo(data);
+	}
+
+	@Test
+	public void shouldReportUploadFailureOnceOutputEnded() throws Throwable {
+		// pre-conditions
+		ChannelExec channel = mockChannel(0, "");
+		ApplicationSSHSession.ChannelResponse response =
+				new ApplicationSSHSession.ChannelResponse(new ByteArrayInputStream(new byte[0]), channel);
+		FutureTask<Long> upload = new FutureTask<Long>(new Callable<Long>() {
+
+			@Override
+			public Long call() throws Exception {
+				throw new IOException("pipe closed (mock)");
+			}
+		});
+		upload.run();
+		response.setUpload(upload);
+		// operation
+		try {
+			response.read();
+			fail("IOException expected");
+		} catch (IOException e) {
+			// verification
+			assertThat(e.getMessage()).contains("pipe closed (mock)");
+		}
+	}
+
+	@Test
+	public void shouldReportCommandFailureBeforeUploadFailure() throws Throwable {
+		// pre-conditions
+		ChannelExec channel = mockChannel(1, "restore failed (mock)");
+		ApplicationSSHSession.ChannelResponse response =
+				new ApplicationSSHSession.ChannelResponse(new ByteArrayInputStream(new byte[0]), channel);
+		FutureTask<Long> upload = new FutureTask<Long>(new Callable<Long>() {
+
+			@Override
+			public Long call() throws Exception {
+				throw new IOException("pipe closed (mock)");
+			}
+		});
+		upload.run();
+		response.setUpload(upload);
+		// operation
+		try {
+			response.read();
+			fail("IOException expected");
+		} catch (IOException e) {
+			// verification
+			assertThat(e.getMessage()).contains("restore failed (mock)");
+		}
+	}
+
+	@Test
+	public void shouldReuseConnectedPooledSession() throws Throwable {
+		// pre-conditions
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(2);
+		// operation
+		Session session = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		Session reused = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		// verification
+		assertThat(reused).isSameAs(session);
+		assertThat(pool.getConnects()).isEqualTo(1);
+		assertThat(pool.getReuses()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldReconnectDisconnectedPooledSession() throws Throwable {
+		// pre-conditions
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(2);
+		Session session = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		Mockito.when(session.isConnected()).thenReturn(false);
+		// operation
+		Session reconnected = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		// verification
+		assertThat(reconnected).isNotSameAs(session);
+		assertThat(pool.getConnects()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldDisconnectLeastRecentlyUsedPooledSession() throws Throwable {
+		// pre-conditions
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(1);
+		Session session = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		pool.release("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		// operation
+		pool.getSession("ssh://5190d701500446506a0000e5@jbossas7-foobarz.rhcloud.com");
+		// verification
+		Mockito.verify(session).disconnect();
+		assertThat(pool.getCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotDisconnectLeasedPooledSession() throws Throwable {
+		// pre-conditions
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(1);
+		Session session = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		// operation
+		pool.getSession("ssh://5190d701500446506a0000e5@jbossas7-foobarz.rhcloud.com");
+		// verification
+		Mockito.verify(session, Mockito.never()).disconnect();
+		assertThat(pool.getCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldDisconnectPooledSessionOnceReleased() throws Throwable {
+		// pre-conditions
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(1);
+		Session session = pool.getSession("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		pool.getSession("ssh://5190d701500446506a0000e5@jbossas7-foobarz.rhcloud.com");
+		// operation
+		pool.release("ssh://5190d701500446506a0000e4@springeap6-foobarz.rhcloud.com");
+		// verification
+		Mockito.verify(session).disconnect();
+		assertThat(pool.getCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldReleaseGearSessionsOnceExecuted() throws Throwable {
+		// pre-conditions
+		IApplication application = domain.getApplicationByName("springeap6");
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(1);
+		ApplicationSSHSession session = new ApplicationSSHSession(application, pool);
+		IGear gear1 = new Gear("1", new GearState("started"), "ssh://1@gear1-foobarz.rhcloud.com");
+		IGear gear2 = new Gear("2", new GearState("started"), "ssh://2@gear2-foobarz.rhcloud.com");
+		IGearGroup gearGroup = Mockito.mock(IGearGroup.class);
+		Mockito.when(gearGroup.getGears()).thenReturn(Arrays.asList(gear1, gear2));
+		// operation
+		session.execOnGears("uptime", gearGroup, 1, null);
+		// verification
+		// the application session is still leased, the idle gear sessions were evicted
+		assertThat(pool.getCount()).isEqualTo(1);
+		assertThat(session.isConnected()).isTrue();
+	}
+
+	@Test
+	public void shouldGetApplicationSessionFromPoolOfConnection() throws Throwable {
+		// pre-conditions
+		ApplicationResource application = (ApplicationResource) domain.getApplicationByName("springeap6");
+		SSHSessionPoolFake pool = new SSHSessionPoolFake(2);
+		((APIResource) domain.getUser().getConnection()).setSSHSessionPool(pool);
+		// operation
+		Session session = application.getSSHSession();
+		// verification
+		assertThat(session).isSameAs(pool.getSession(application));
+		assertThat(pool.getConnects()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldExecOnAllGearsOfGearGroup() throws Throwable {
+		// pre-conditions
+		IApplication application = domain.getApplicationByName("springeap6");
+		ApplicationSSHSession session = new ApplicationSSHSession(application, new SSHSessionPoolFake(10));
+		IGear gear1 = new Gear("1", new GearState("started"), "ssh://1@gear1-foobarz.rhcloud.com");
+		IGear gear2 = new Gear("2", new GearState("started"), "ssh://2@failing-foobarz.rhcloud.com");
+		IGear gear3 = new Gear("3", new GearState("started"), "ssh://3@unreachable-foobarz.rhcloud.com");
+		IGearGroup gearGroup = Mockito.mock(IGearGroup.class);
+		Mockito.when(gearGroup.getGears()).thenReturn(Arrays.asList(gear1, gear2, gear3));
+		final List<String> lines = new ArrayList<String>();
+		// operation
+		IGearExecResult result = session.execOnGears("tail -n 2 app-root/logs/jbosseap.log", gearGroup, 2,
+				new IGearExecCallback() {
+
+					@Override
+					public void output(IGear gear, String line) {
+						lines.add(gear.getId() + ": " + line);
+					}
+
+					@Override
+					public void completed(IGear gear, int exitStatus, String errorOutput) {
+					}
+
+					@Override
+					public void failed(IGear gear, OpenShiftException e) {
+					}
+				});
+		// verification
+		assertThat(lines).hasSize(4).contains("1: foo", "1: bar", "2: foo", "2: bar");
+		assertThat(result.getExitStatus()).hasSize(2);
+		assertThat(result.getExitStatus().get(gear1)).isEqualTo(0);
+		assertThat(result.getExitStatus().get(gear2)).isEqualTo(1);
+		assertThat(result.getFailed()).hasSize(1);
+		assertThat(result.getFailed().get(gear3)).isNotNull();
+		assertThat(result.isSuccessful()).isFalse();
+	}
+
+	@Test
+	public void shouldCompleteGearThatThrewError() throws Throwable {
+		// pre-conditions
+		IApplication application = domain.getApplicationByName("springeap6");
+		ApplicationSSHSession session = new ApplicationSSHSession(application, new SSHSessionPoolFake(10));
+		IGear gear1 = new Gear("1", new GearState("started"), "ssh://1@broken-foobarz.rhcloud.com");
+		IGear gear2 = new Gear("2", new GearState("started"), "ssh://2@gear2-foobarz.rhcloud.com");
+		IGearGroup gearGroup = Mockito.mock(IGearGroup.class);
+		Mockito.when(gearGroup.getGears()).thenReturn(Arrays.asList(gear1, gear2));
+		// operation
+		IGearExecResult result = session.execOnGears("uptime", gearGroup, 1, null);
+		// verification
+		assertThat(result.getFailed().get(gear1)).isNotNull();
+		assertThat(result.getExitStatus().get(gear2)).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldTailFilesOfApplication() throws Throwable {
+		// pre-conditions
+		IApplication application = domain.getApplicationByName("springeap6");
+		ChannelExec channel = mockChannel(0, "");
+		Mockito.when(channel.getInputStream()).thenReturn(new ByteArrayInputStream("foo\nbar\n".getBytes()));
+		Session session = Mockito.mock(Session.class);
+		Mockito.when(session.isConnected()).thenReturn(true);
+		Mockito.when(session.openChannel(Mockito.anyString())).thenReturn(channel);
+		StreamSubscriberFake subscriber = new StreamSubscriberFake();
+		// operation
+		IStreamingExec tail = new ApplicationSSHSession(application, session)
+				.tailFiles("app-root/logs/*", 10, subscriber);
+		// verification
+		assertThat(tail.waitFor(10 * 1000)).isTrue();
+		Mockito.verify(channel).setCommand("tail -n 10 -f -- 'app-root/logs/'*");
+		assertThat(subscriber.lines).containsExactly("foo", "bar");
+		assertThat(subscriber.exitStatus).isEqualTo(0);
+		assertThat(tail.getExitStatus()).isEqualTo(0);
+		assertThat(tail.isCancelled()).isFalse();
+	}
+
+	@Test
+	public void shouldQuoteTailedFilesButWildcards() throws Throwable {
+		// pre-conditions
+		// operation
+		// verification
+		assertThat(ApplicationSSHSession.quoteShellPath("app-root/logs/*.log"))
+				.isEqualTo("'app-root/logs/'*'.log'");
+		assertThat(ApplicationSSHSession.quoteShellPath("logs/a b;rm -rf $HOME`id`?"))
+				.isEqualTo("'logs/a b;rm -rf $HOME`id`'?");
+		assertThat(ApplicationSSHSession.quoteShellPath("it's.log"))
+				.isEqualTo("'it'\\''s.log'");
+	}
+
+	@Test
+	public void shouldStopStreamingWhenCancelled() throws Throwable {
+		// pre-conditions
+		IApplication application = domain.getApplicationByName("springeap6");
+		ChannelExec channel = mockChannel(0, "");
+		Mockito.when(channel.isClosed()).thenReturn(false);
+		PipedOutputStream remoteOutput = new PipedOutputStream();
+		Mockito.when(channel.getInputStream()).thenReturn(new PipedInputStream(remoteOutput));
+		Session session = Mockito.mock(Session.class);
+		Mockito.when(session.isConnected()).thenReturn(true);
+		Mockito.when(session.openChannel(Mockito.anyString())).thenReturn(channel);
+		StreamSubscriberFake subscriber = new StreamSubscriberFake();
+		IStreamingExec exec = new ApplicationSSHSession(application, session)
+				.execStreaming("tail -f app-root/logs/jbosseap.log", 1, subscriber);
+		remoteOutput.write("foo\n".getBytes());
+		remoteOutput.flush();
+		assertThat(subscriber.received.await(10, TimeUnit.SECONDS)).isTrue();
+		// operation
+		exec.cancel();
+		// verification
+		assertThat(exec.waitFor(10 * 1000)).isTrue();
+		assertThat(exec.isCancelled()).isTrue();
+		Mockito.verify(channel, Mockito.atLeastOnce()).disconnect();
+		assertThat(subscriber.lines).containsExactly("foo");
+		assertThat(subscriber.exitStatus).isNull();
+		assertThat(subscriber.failure).isNull();
+	}
+
+	private static class StreamSubscriberFake implements IStreamSubscriber<String> {
+
+		private final List<String> lines = new CopyOnWriteArrayList<String>();
+		private final CountDownLatch received = new CountDownLatch(1);
+		private volatile Integer exitStatus;
+		private volatile OpenShiftException failure;
+
+		@Override
+		public void received(String line) {
+			lines.add(line);
+			received.countDown();
+		}
+
+		@Override
+		public void completed(int exitStatus) {
+			this.exitStatus = exitStatus;
+		}
+
+		@Override
+		public void failed(OpenShiftException e) {
+			this.failure = e;
+		}
+	}
+
+	private static class SSHSessionPoolFake extends SSHSessionPool {
+
+		private SSHSessionPoolFake(int maxSessions) {
+			super(new JSch(), maxSessions, DEFAULT_KEEP_ALIVE_INTERVAL);
+		}
+
+		/**
+		 * Opens sessions whose commands print 2 lines. Urls containing
+		 * "unreachable" can't be connected to, urls containing "broken" throw
+		 * an error, commands exit with 1 on urls containing "failing".
+		 */
+		@Override
+		protected Session connect(final String sshUrl) throws JSchException {
+			if (sshUrl.contains("broken")) {
+				throw new LinkageError("broken jsch (mock)");
+			}
+			if (sshUrl.contains("unreachable")) {
+				throw new JSchException("host unreachable (mock)");
+			}
+			Session session = Mockito.mock(Session.class);
+			Mockito.when(session.isConnected()).thenReturn(true);
+			Mockito.when(session.openChannel(Mockito.anyString())).thenAnswer(new Answer<ChannelExec>() {
+
+				@Override
+				public ChannelExec answer(InvocationOnMock invocation) throws Throwable {
+					ChannelExec channel = mockChannel(sshUrl.contains("failing") ? 1 : 0, "");
+					Mockito.when(channel.getInputStream()).thenReturn(new ByteArrayInputStream("foo\nbar\n".getBytes()));
+					return channel;
+				}
+			});
+			return session;
+		}
+	}
+
+	private static ChannelExec mockChannel(int exitStatus, String errorOutput) throws IOException {
+		ChannelExec channel = Mockito.mock(ChannelExec.class);
+		Mockito.when(channel.getErrStream()).thenReturn(new ByteArrayInputStream(errorOutput.getBytes()));
+		Mockito.when(channel.isClosed()).thenReturn(true);
+		Mockito.when(channel.getExitStatus()).thenReturn(exitStatus);
+		return channel;
+	}
 }
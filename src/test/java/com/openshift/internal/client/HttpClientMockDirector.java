@@ -24,9 +24,12 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.util.concurrent.CountDownLatch;
 
 import org.mockito.Matchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.openshift.client.IDomain;
 import com.openshift.client.IHttpClient;
@@ -59,11 +62,38 @@ public class HttpClientMockDirector {
 		return this;
 	}
 
+	/**
+	 * Mocks any GET to answer with the given response once the given latch is
+	 * released.
+	 */
+	public HttpClientMockDirector mockGetAny(final String response, final CountDownLatch release)
+			throws SocketTimeoutException, HttpClientException {
+		when(client.get(any(URL.class), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				release.await();
+				return response;
+			}
+		});
+		return this;
+	}
+
 	public HttpClientMockDirector mockGetAny(Exception exception) throws SocketTimeoutException, HttpClientException {
 		when(client.get(any(URL.class), anyInt())).thenThrow(exception);
 		return this;
 	}
 
+	/**
+	 * Mocks any GET to fail with the given exception once and to answer with
+	 * the given response afterwards.
+	 */
+	public HttpClientMockDirector mockGetAny(Exception exception, String response)
+			throws SocketTimeoutException, HttpClientException {
+		when(client.get(any(URL.class), anyInt())).thenThrow(exception).thenReturn(response);
+		return this;
+	}
+
 	public HttpClientMockDirector mockHeadAny(String response) throws SocketTimeoutException, HttpClientException {
 		when(client.head(any(URL.class), anyInt())).thenReturn(response);
 		return this;
@@ -93,6 +123,17 @@ public class HttpClientMockDirector {
 		return this;
 	}
 
+	/**
+	 * Mocks any POST to fail with the given exception once and to answer with
+	 * the given response afterwards.
+	 */
+	public HttpClientMockDirector mockPostAny(Exception exception, String response)
+			throws SocketTimeoutException, HttpClientException, EncodingException {
+		when(client.post(any(URL.class), any(IMediaType.class), anyInt(), Matchers.<Parameter[]>anyVararg()))
+				.thenThrow(exception).thenReturn(response);
+		return this;
+	}
+
 	public HttpClientMockDirector mockPatchAny(Samples postRequestResponse)
 			throws SocketTimeoutException, HttpClientException, EncodingException {
 		return mockPatchAny(postRequestResponse.getContentAsString());
@@ -273,6 +314,26 @@ public class HttpClientMockDirector {
 		return this;
 	}
 
+	public HttpClientMockDirector mockGetApplicationCartridges(String domainId, String applicationName,
+			Exception exception)
+			throws SocketTimeoutException, HttpClientException {
+		when(client.get(
+				urlEndsWith("/domains/" + domainId + "/applications/" + applicationName + "/cartridges"),
+				anyInt()))
+				.thenThrow(exception);
+		return this;
+	}
+
+	public HttpClientMockDirector mockGetGearGroups(String domainId, String applicationName,
+			Exception exception)
+			throws SocketTimeoutException, HttpClientException {
+		when(client.get(
+				urlEndsWith("/domains/" + domainId + "/applications/" + applicationName + "/gear_groups"),
+				anyInt()))
+				.thenThrow(exception);
+		return this;
+	}
+
 	public HttpClientMockDirector mockGetGearGroups(String domainId, String applicationName,
 			Samples gearGroupsResourceResponse)
 			throws SocketTimeoutException, HttpClientException {
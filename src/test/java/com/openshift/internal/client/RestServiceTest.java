@@ -12,32 +12,66 @@ package com.openshift.internal.client;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.openshift.client.CircuitOpenOpenShiftException;
 import com.openshift.client.HttpMethod;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.Message;
+import com.openshift.client.NotFoundOpenShiftException;
 import com.openshift.client.OpenShiftEndpointException;
+import com.openshift.client.OpenShiftException;
 import com.openshift.client.OpenShiftRequestException;
+import com.openshift.client.OpenShiftTimeoutException;
+import com.openshift.client.RateLimitedOpenShiftException;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
 import com.openshift.client.utils.MessageAssert;
 import com.openshift.client.utils.OpenShiftTestConfiguration;
 import com.openshift.client.utils.Samples;
 import com.openshift.internal.client.httpclient.HttpClientException;
+import com.openshift.internal.client.httpclient.InternalServerErrorException;
 import com.openshift.internal.client.httpclient.NotFoundException;
+import com.openshift.internal.client.httpclient.UrlConnectionHttpClientBuilder;
+import com.openshift.internal.client.httpclient.request.IMediaType;
 import com.openshift.internal.client.httpclient.request.JsonMediaType;
 import com.openshift.internal.client.httpclient.request.Parameter;
 import com.openshift.internal.client.httpclient.request.StringParameter;
+import com.openshift.internal.client.response.DataListJsonDTOFactory;
+import com.openshift.internal.client.response.DomainResourceDTO;
+import com.openshift.internal.client.response.EnumDataType;
 import com.openshift.internal.client.response.Link;
 import com.openshift.internal.client.response.LinkParameter;
 import com.openshift.internal.client.response.LinkParameterType;
@@ -65,14 +99,7 @@ public class RestServiceTest extends TestTimer {
 				.mockDeleteAny(jsonResponse)
 				.client();
 
-		OpenShiftTestConfiguration configuration = new OpenShiftTestConfiguration();
-		this.service = new RestService(
-				configuration.getStagingServer(),
-				configuration.getClientId(),
-				new JsonMediaType(),
-				IHttpClient.MEDIATYPE_APPLICATION_JSON,
-				new OpenShiftJsonDTOFactory(),
-				clientMock);
+		this.service = createRestService();
 	}
 
 	@Test
@@ -136,6 +163,785 @@ public class RestServiceTest extends TestTimer {
 		mockDirector.verifyHeadAny(1);
 	}
 
+	@Test
+	public void shouldGetAsyncIfGetHttpMethod() throws Exception {
+		// pre-conditions
+		RestService service = createRestService();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		service.setAsyncExecutor(executor);
+		try {
+			// operation
+			RestResponse response = service.requestAsync(
+					new TestLink("0 required parameter", "http://www.redhat.com", HttpMethod.GET),
+					IHttpClient.NO_TIMEOUT, new OpenShiftJsonDTOFactory(),
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList())
+					.get(10, TimeUnit.SECONDS);
+			// verifications
+			assertThat(response).isNotNull();
+			mockDirector.verifyGetAny(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldReportNotFoundAsyncAsOpenShiftException() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new NotFoundException(Samples.GET_DOMAINS_FOOBAR_KO_NOTFOUND.getContentAsString()));
+		RestService service = createRestService();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		service.setAsyncExecutor(executor);
+		try {
+			// operation
+			service.requestAsync(
+					new TestLink("0 require parameter", "/broker/rest/adietisheim", HttpMethod.GET),
+					IHttpClient.NO_TIMEOUT, new OpenShiftJsonDTOFactory(),
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList())
+					.get(10, TimeUnit.SECONDS);
+			fail("ExecutionException expected, did not occurr");
+		} catch (ExecutionException e) {
+			// verifications
+			assertThat(e.getCause()).isInstanceOf(NotFoundOpenShiftException.class);
+			assertThat(((OpenShiftEndpointException) e.getCause()).getRestResponse()).isNotNull();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldRetryAsyncRequestAndUseGivenMediaType() throws Exception {
+		// pre-conditions
+		mockDirector.mockPostAny(new InternalServerErrorException("broker hiccup"), "{}");
+		RestService service = createRestService();
+		RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0, 0);
+		service.setRetryPolicy(retryPolicy);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		service.setAsyncExecutor(executor);
+		IMediaType mediaType = new JsonMediaType();
+		try {
+			// operation
+			RestResponse response = service.requestAsync(
+					new Link("idempotent", "/dummy", HttpMethod.POST, true),
+					IHttpClient.NO_TIMEOUT, mediaType, new OpenShiftJsonDTOFactory(),
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList(),
+					new StringParameter("name", "value"))
+					.get(10, TimeUnit.SECONDS);
+			// verifications
+			assertThat(response).isNotNull();
+			verify(clientMock, times(2)).post(
+					any(URL.class), same(mediaType), anyInt(), Matchers.<Parameter> anyVararg());
+			assertThat(retryPolicy.getRetries()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void shouldThrowIfNoAsyncExecutor() throws Exception {
+		// operation
+		service.requestAsync(
+				new TestLink("0 required parameter", "http://www.redhat.com", HttpMethod.GET),
+				IHttpClient.NO_TIMEOUT, new OpenShiftJsonDTOFactory(),
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+	}
+
+	@Test
+	public void shouldCoalesceConcurrentIdenticalGets() throws Exception {
+		// pre-conditions
+		CountDownLatch release = new CountDownLatch(1);
+		mockDirector.mockGetAny(Samples.GET_DOMAINS.getContentAsString(), release);
+		final RestService service = createRestService();
+		service.setCoalesceRequests(true);
+		final TestLink link = new TestLink("0 required parameter", "/domains", HttpMethod.GET);
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<RestResponse>> responses = new ArrayList<Future<RestResponse>>();
+			// operation
+			for (int i = 0; i < 5; i++) {
+				responses.add(executor.submit(new Callable<RestResponse>() {
+
+					@Override
+					public RestResponse call() throws Exception {
+						return service.request(link, IHttpClient.NO_TIMEOUT,
+								Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+					}
+				}));
+			}
+			// the GET only returns once the 4 others have joined it
+			long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+			while (service.getCoalescedRequests() < 4
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			release.countDown();
+			// verifications
+			RestResponse response = responses.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<RestResponse> future : responses) {
+				assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(response);
+			}
+			mockDirector.verifyGetAny(1);
+			assertThat(service.getCoalescedRequests()).isEqualTo(4);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldNotCoalesceSequentialGets() throws Exception {
+		// pre-conditions
+		RestService service = createRestService();
+		service.setCoalesceRequests(true);
+		TestLink link = new TestLink("0 required parameter", "/domains", HttpMethod.GET);
+		// operation
+		service.request(link, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		service.request(link, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		// verifications
+		mockDirector.verifyGetAny(2);
+		assertThat(service.getCoalescedRequests()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldRetryGetOnInternalServerError() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new InternalServerErrorException("broker hiccup"), "{}");
+		RestService service = createRestService();
+		RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0, 0);
+		service.setRetryPolicy(retryPolicy);
+		// operation
+		service.request(new TestLink("0 required parameter", "/dummy", HttpMethod.GET),
+				IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		// verifications
+		mockDirector.verifyGetAny(2);
+		assertThat(retryPolicy.getAttempts()).isEqualTo(2);
+		assertThat(retryPolicy.getRetries()).isEqualTo(1);
+		assertThat(retryPolicy.getExhausted()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldGiveUpRetryingAfterMaxAttempts() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new SocketTimeoutException());
+		RestService service = createRestService();
+		RetryPolicy retryPolicy = new RetryPolicy(3, 0, 0, 0);
+		service.setRetryPolicy(retryPolicy);
+		try {
+			// operation
+			service.request(new TestLink("0 required parameter", "/dummy", HttpMethod.GET),
+					IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("OpenShiftTimeoutException expected, did not occurr");
+		} catch (OpenShiftTimeoutException e) {
+			// verifications
+			mockDirector.verifyGetAny(3);
+			assertThat(retryPolicy.getFailedAttempts()).isEqualTo(3);
+			assertThat(retryPolicy.getExhausted()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldNotRetryPostUnlessLinkIsIdempotent() throws Exception {
+		// pre-conditions
+		mockDirector.mockPostAny(new InternalServerErrorException("broker hiccup"), "{}");
+		RestService service = createRestService();
+		service.setRetryPolicy(new RetryPolicy(3, 0, 0, 0));
+		try {
+			// operation
+			service.request(new TestLink("0 required parameter", "/dummy", HttpMethod.POST),
+					IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("OpenShiftEndpointException expected, did not occurr");
+		} catch (OpenShiftEndpointException e) {
+			// verifications
+			mockDirector.verifyPostAny(1);
+		}
+		// operation
+		mockDirector.mockPostAny(new InternalServerErrorException("broker hiccup"), "{}");
+		service.request(new Link("idempotent", "/dummy", HttpMethod.POST, true),
+				IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		// verifications
+		mockDirector.verifyPostAny(3);
+	}
+
+	@Test
+	public void shouldNotRetryClientErrors() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new NotFoundException("not found"), "{}");
+		RestService service = createRestService();
+		service.setRetryPolicy(new RetryPolicy(3, 0, 0, 0));
+		try {
+			// operation
+			service.request(new TestLink("0 required parameter", "/dummy", HttpMethod.GET),
+					IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("NotFoundOpenShiftException expected, did not occurr");
+		} catch (NotFoundOpenShiftException e) {
+			// verifications
+			mockDirector.verifyGetAny(1);
+		}
+	}
+
+	@Test
+	public void shouldBackOffExponentiallyUpToMaxDelay() throws Exception {
+		// pre-conditions
+		RetryPolicy retryPolicy = new RetryPolicy(10, 100, 300, 0);
+		RetryPolicy jitteredRetryPolicy = new RetryPolicy(10, 100, 300, 0.5);
+		// operation
+		// verifications
+		assertThat(retryPolicy.getDelay(1)).isEqualTo(100);
+		assertThat(retryPolicy.getDelay(2)).isEqualTo(200);
+		assertThat(retryPolicy.getDelay(3)).isEqualTo(300);
+		assertThat(retryPolicy.getDelay(42)).isEqualTo(300);
+		for (int i = 0; i < 100; i++) {
+			assertThat(jitteredRetryPolicy.getDelay(1)).isGreaterThanOrEqualTo(50).isLessThanOrEqualTo(100);
+		}
+	}
+
+	@Test
+	public void shouldFailFastWhileCircuitIsOpen() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new InternalServerErrorException("broker down"));
+		RestService service = createRestService();
+		CircuitBreaker circuitBreaker = new CircuitBreaker(4, 2, 0.5, 10 * 1000, 1, 10 * 1000, 1);
+		final List<CircuitBreaker.State> transitions = new ArrayList<CircuitBreaker.State>();
+		circuitBreaker.setListener(new CircuitBreaker.IStateListener() {
+
+			@Override
+			public void stateChanged(String server, CircuitBreaker.State previous, CircuitBreaker.State current) {
+				transitions.add(current);
+			}
+		});
+		service.setCircuitBreaker(circuitBreaker);
+		// operation
+		for (int i = 0; i < 2; i++) {
+			try {
+				requestDummy(service);
+				fail("OpenShiftEndpointException expected, did not occurr");
+			} catch (CircuitOpenOpenShiftException e) {
+				fail("circuit opened too early");
+			} catch (OpenShiftEndpointException e) {
+				// expected
+			}
+		}
+		try {
+			requestDummy(service);
+			fail("CircuitOpenOpenShiftException expected, did not occurr");
+		} catch (CircuitOpenOpenShiftException e) {
+			// verifications
+			mockDirector.verifyGetAny(2);
+			assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.OPEN);
+			assertThat(transitions).containsExactly(CircuitBreaker.State.OPEN);
+		}
+	}
+
+	@Test
+	public void shouldCloseCircuitIfProbeSucceeds() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new InternalServerErrorException("broker down"), "{}");
+		RestService service = createRestService();
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, 1, 1, 10 * 1000, 1, 50, 1);
+		service.setCircuitBreaker(circuitBreaker);
+		try {
+			requestDummy(service);
+			fail("OpenShiftEndpointException expected, did not occurr");
+		} catch (OpenShiftEndpointException e) {
+			assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.OPEN);
+		}
+		// operation
+		Thread.sleep(100);
+		requestDummy(service);
+		// verifications
+		mockDirector.verifyGetAny(2);
+		assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	public void shouldNotSpendRateLimitPermitWhileCircuitIsOpen() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new InternalServerErrorException("broker down"));
+		RestService service = createRestService();
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, 1, 1, 10 * 1000, 1, 10 * 1000, 1);
+		service.setCircuitBreaker(circuitBreaker);
+		TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1000, 10);
+		service.setRateLimiter(rateLimiter);
+		try {
+			requestDummy(service);
+			fail("OpenShiftEndpointException expected, did not occurr");
+		} catch (OpenShiftEndpointException e) {
+			assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.OPEN);
+		}
+		try {
+			// operation
+			requestDummy(service);
+			fail("CircuitOpenOpenShiftException expected, did not occurr");
+		} catch (CircuitOpenOpenShiftException e) {
+			// verifications
+			assertThat(rateLimiter.getPermits()).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void shouldReleaseProbeIfRateLimiterRejects() throws Exception {
+		// pre-conditions
+		mockDirector.mockPostAny(new InternalServerErrorException("broker down"), "{}");
+		RestService service = createRestService();
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, 1, 1, 10 * 1000, 1, 50, 1);
+		service.setCircuitBreaker(circuitBreaker);
+		TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1000, 10);
+		rateLimiter.setLinkRate("ADD_APPLICATION", 0.1, 1);
+		rateLimiter.setMaxWait(0);
+		service.setRateLimiter(rateLimiter);
+		Link addApplication = new TestLink("ADD_APPLICATION", "Create new application", "/applications",
+				HttpMethod.POST);
+		try {
+			service.request(addApplication, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("OpenShiftEndpointException expected, did not occurr");
+		} catch (OpenShiftEndpointException e) {
+			assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.OPEN);
+		}
+		Thread.sleep(100);
+		try {
+			// operation
+			service.request(addApplication, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("RateLimitedOpenShiftException expected, did not occurr");
+		} catch (RateLimitedOpenShiftException e) {
+			// expected
+		}
+		// verifications
+		service.request(new Link("ADD_DOMAIN", "/domains", HttpMethod.POST), IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	public void shouldNotOpenCircuitOnClientErrors() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny(new NotFoundException("not found"));
+		RestService service = createRestService();
+		CircuitBreaker circuitBreaker = new CircuitBreaker(2, 1, 0.5, 10 * 1000, 1, 10 * 1000, 1);
+		service.setCircuitBreaker(circuitBreaker);
+		// operation
+		for (int i = 0; i < 3; i++) {
+			try {
+				requestDummy(service);
+				fail("NotFoundOpenShiftException expected, did not occurr");
+			} catch (NotFoundOpenShiftException e) {
+				// expected
+			}
+		}
+		// verifications
+		mockDirector.verifyGetAny(3);
+		assertThat(circuitBreaker.getState(service.getPlatformUrl())).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	public void shouldRejectRequestsExceedingLinkBudget() throws Exception {
+		// pre-conditions
+		mockDirector.mockPostAny("{}");
+		RestService service = createRestService();
+		TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1000, 10);
+		rateLimiter.setLinkRate("ADD_APPLICATION", 0.1, 1);
+		rateLimiter.setMaxWait(50);
+		service.setRateLimiter(rateLimiter);
+		Link addApplication = getDomainLink("ADD_APPLICATION");
+		assertThat(addApplication.getRel()).isEqualTo("Create new application");
+		service.request(addApplication, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		try {
+			// operation
+			service.request(addApplication, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("RateLimitedOpenShiftException expected, did not occurr");
+		} catch (RateLimitedOpenShiftException e) {
+			// verifications
+			mockDirector.verifyPostAny(1);
+			assertThat(rateLimiter.getRejected()).isEqualTo(1);
+		}
+		// other links are only limited by the global budget
+		requestDummy(service);
+		assertThat(rateLimiter.getPermits()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRefundLinkTokenIfGlobalBudgetRejects() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny("{}");
+		mockDirector.mockPostAny("{}");
+		RestService service = createRestService();
+		TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(20, 1);
+		rateLimiter.setLinkRate("ADD_APPLICATION", 0.1, 1);
+		rateLimiter.setMaxWait(0);
+		service.setRateLimiter(rateLimiter);
+		Link addApplication = new TestLink("ADD_APPLICATION", "Create new application", "/applications",
+				HttpMethod.POST);
+		requestDummy(service);
+		try {
+			service.request(addApplication, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("RateLimitedOpenShiftException expected, did not occurr");
+		} catch (RateLimitedOpenShiftException e) {
+			// expected
+		}
+		Thread.sleep(100);
+		// operation
+		service.request(addApplication, IHttpClient.NO_TIMEOUT,
+				Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+		// verifications
+		mockDirector.verifyPostAny(1);
+		assertThat(rateLimiter.getRejected()).isEqualTo(1);
+		assertThat(rateLimiter.getPermits()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldDelayRequestsExceedingGlobalBudget() throws Exception {
+		// pre-conditions
+		mockDirector.mockGetAny("{}");
+		RestService service = createRestService();
+		TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(20, 2);
+		service.setRateLimiter(rateLimiter);
+		long start = System.currentTimeMillis();
+		// operation
+		for (int i = 0; i < 4; i++) {
+			requestDummy(service);
+		}
+		// verifications
+		// 2 requests in the burst, 2 more at 50ms each
+		assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(90);
+		mockDirector.verifyGetAny(4);
+		assertThat(rateLimiter.getDelayed()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldHedgeSlowGet() throws Exception {
+		// pre-conditions
+		mockSlowGet(11, 2000);
+		RestService service = createRestService();
+		HedgingPolicy hedgingPolicy = new HedgingPolicy(0.9, 10, 1);
+		service.setHedgingPolicy(hedgingPolicy);
+		for (int i = 0; i < 10; i++) {
+			requestDummy(service);
+		}
+		long start = System.currentTimeMillis();
+		// operation
+		requestDummy(service);
+		// verifications
+		assertThat(System.currentTimeMillis() - start).isLessThan(1000);
+		mockDirector.verifyGetAny(12);
+		assertThat(hedgingPolicy.getHedges()).isEqualTo(1);
+		assertThat(hedgingPolicy.getHedgeWins()).isEqualTo(1);
+		hedgingPolicy.shutdown();
+	}
+
+	@Test
+	public void shouldHedgeGivenLinksOnly() throws Exception {
+		// pre-conditions
+		HedgingPolicy hedgingPolicy = new HedgingPolicy();
+		Link listApplications = getDomainLink("LIST_APPLICATIONS");
+		Link getDomain = getDomainLink("GET");
+		// operation
+		hedgingPolicy.setHedgedLinks("LIST_APPLICATIONS");
+		// verifications
+		assertThat(listApplications.getRel()).isEqualTo("List applications");
+		assertThat(hedgingPolicy.isHedged(listApplications)).isTrue();
+		assertThat(hedgingPolicy.isHedged(getDomain)).isFalse();
+		assertThat(hedgingPolicy.isHedged(getDomainLink("ADD_APPLICATION"))).isFalse();
+		hedgingPolicy.setHedgedLinks();
+		assertThat(hedgingPolicy.isHedged(getDomain)).isTrue();
+		hedgingPolicy.shutdown();
+	}
+
+	@Test
+	public void shouldNotHedgeIfBudgetIsSpent() throws Exception {
+		// pre-conditions
+		mockSlowGet(11, 200);
+		RestService service = createRestService();
+		HedgingPolicy hedgingPolicy = new HedgingPolicy(0.9, 10, 0);
+		service.setHedgingPolicy(hedgingPolicy);
+		for (int i = 0; i < 10; i++) {
+			requestDummy(service);
+		}
+		// operation
+		requestDummy(service);
+		// verifications
+		mockDirector.verifyGetAny(11);
+		assertThat(hedgingPolicy.getHedges()).isEqualTo(0);
+		hedgingPolicy.shutdown();
+	}
+
+	/**
+	 * Lets the given GET request (starting at 1) answer after the given delay,
+	 * all others answer immediately.
+	 */
+	@Test
+	public void shouldSendUnhedgedRequestsOnCallingThread() throws Exception {
+		// pre-conditions
+		final List<Thread> threads = new ArrayList<Thread>();
+		when(clientMock.get(any(URL.class), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				threads.add(Thread.currentThread());
+				return "{}";
+			}
+		});
+		RestService service = createRestService();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>());
+		HedgingPolicy hedgingPolicy = new HedgingPolicy(0.9, 10, 0, executor);
+		service.setHedgingPolicy(hedgingPolicy);
+		try {
+			// operation
+			for (int i = 0; i < 11; i++) {
+				requestDummy(service);
+			}
+			// verifications
+			assertThat(threads).hasSize(11);
+			for (Thread thread : threads) {
+				assertThat(thread).isSameAs(Thread.currentThread());
+			}
+			assertThat(executor.getTaskCount()).isEqualTo(0);
+		} finally {
+			hedgingPolicy.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldSendOnCallingThreadIfHedgingExecutorIsSaturated() throws Exception {
+		// pre-conditions
+		final CountDownLatch release = new CountDownLatch(1);
+		RestService service = createRestService();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>());
+		HedgingPolicy hedgingPolicy = new HedgingPolicy(0.9, 10, 1, executor);
+		service.setHedgingPolicy(hedgingPolicy);
+		for (int i = 0; i < 10; i++) {
+			requestDummy(service);
+		}
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			// operation
+			RestResponse response = requestDummy(service);
+			// verifications
+			assertThat(response).isNotNull();
+			mockDirector.verifyGetAny(11);
+			assertThat(hedgingPolicy.getHedges()).isEqualTo(0);
+		} finally {
+			release.countDown();
+			hedgingPolicy.shutdown();
+		}
+	}
+
+	private void mockSlowGet(final int slowRequest, final long delay) throws Exception {
+		final AtomicInteger requests = new AtomicInteger();
+		when(clientMock.get(any(URL.class), anyInt())).thenAnswer(new Answer<String>() {
+
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				if (requests.incrementAndGet() == slowRequest) {
+					Thread.sleep(delay);
+				}
+				return "{}";
+			}
+		});
+	}
+
+	private RestResponse requestDummy(RestService service) throws Exception {
+		return service.request(new TestLink("0 required parameter", "/dummy", HttpMethod.GET),
+				IHttpClient.NO_TIMEOUT, Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+	}
+
+	@Test
+	public void shouldReturnCachedResponseIfNotModified() throws Exception {
+		// pre-conditions
+		KeepAliveHttpServerFake server = new KeepAliveHttpServerFake(new Random().nextInt(9 * 1024) + 1024,
+				null) {
+
+			@Override
+			protected void writeResponse(String request, OutputStream outputStream) throws IOException {
+				if (request.contains("If-None-Match: \"42\"")) {
+					outputStream.write("HTTP/1.1 304 Not Modified\r\nETag: \"42\"\r\n\r\n".getBytes("UTF-8"));
+				} else {
+					byte[] body = Samples.GET_DOMAINS.getContentAsString().getBytes("UTF-8");
+					outputStream.write(new StringBuilder()
+							.append("HTTP/1.1 200 OK\r\n")
+							.append("Content-Type: application/json\r\n")
+							.append("ETag: \"42\"\r\n")
+							.append("Content-Length: ").append(body.length).append("\r\n")
+							.append("\r\n")
+							.toString().getBytes("UTF-8"));
+					outputStream.write(body);
+				}
+				outputStream.flush();
+			}
+		};
+		server.start();
+		RestService service = createRestService(new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client());
+		RestResponseCache cache = new RestResponseCache();
+		service.setResponseCache(cache);
+		TestLink link = new TestLink("0 required parameter", server.getUrl().toString(), HttpMethod.GET);
+		try {
+			// operation
+			RestResponse response = service.request(link, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			RestResponse cachedResponse = service.request(link, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			// verifications
+			assertThat(response.getDataType()).isEqualTo(EnumDataType.domains);
+			assertThat(cachedResponse).isSameAs(response);
+			assertThat(server.getRequests().get(1)).contains("If-None-Match: \"42\"");
+			assertThat(cache.getHits()).isEqualTo(1);
+			assertThat(cache.getMisses()).isEqualTo(1);
+			assertThat(cache.getSize()).isGreaterThan(0);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldReportMalformedResponseAsUnmarshallingError() throws Exception {
+		// pre-conditions
+		KeepAliveHttpServerFake server = new KeepAliveHttpServerFake(new Random().nextInt(9 * 1024) + 1024,
+				null) {
+
+			@Override
+			protected void writeResponse(String request, OutputStream outputStream) throws IOException {
+				byte[] body = "{\"data\": [".getBytes("UTF-8");
+				outputStream.write(new StringBuilder()
+						.append("HTTP/1.1 200 OK\r\n")
+						.append("Content-Type: application/json\r\n")
+						.append("Content-Length: ").append(body.length).append("\r\n")
+						.append("\r\n")
+						.toString().getBytes("UTF-8"));
+				outputStream.write(body);
+				outputStream.flush();
+			}
+		};
+		server.start();
+		RestService service = createRestService(new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client());
+		TestLink link = new TestLink("0 required parameter", server.getUrl().toString(), HttpMethod.GET);
+		try {
+			// operation
+			service.request(link, IHttpClient.NO_TIMEOUT,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			fail("OpenShiftException expected");
+		} catch (OpenShiftException e) {
+			// verifications
+			assertThat(e instanceof OpenShiftEndpointException).isFalse();
+			assertThat(e.getCause() instanceof HttpClientException).isFalse();
+			assertThat(e.getMessage()).startsWith("Could not unmarshall response");
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedResponses() throws Exception {
+		// pre-conditions
+		RestResponseCache cache = new RestResponseCache(100);
+		OpenShiftJsonDTOFactory factory = new OpenShiftJsonDTOFactory();
+		RestResponse response = factory.get(Samples.GET_DOMAINS_EMPTY.getContentAsString());
+		// operation
+		cache.put("/0", factory, "0", null, response, 40);
+		cache.put("/1", factory, "1", null, response, 40);
+		cache.get("/0", factory);
+		cache.put("/2", factory, "2", null, response, 40);
+		cache.put("/3", factory, null, null, response, 10);
+		// verifications
+		assertThat(cache.get("/0", factory)).isNotNull();
+		assertThat(cache.get("/1", factory)).isNull();
+		assertThat(cache.get("/2", factory)).isNotNull();
+		assertThat(cache.get("/3", factory)).isNull();
+		assertThat(cache.getSize()).isEqualTo(80);
+		assertThat(cache.getEvictions()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldCacheResponsesPerResponseFactory() throws Exception {
+		// pre-conditions
+		KeepAliveHttpServerFake server = new KeepAliveHttpServerFake(new Random().nextInt(9 * 1024) + 1024,
+				null) {
+
+			@Override
+			protected void writeResponse(String request, OutputStream outputStream) throws IOException {
+				if (request.contains("If-None-Match: \"42\"")) {
+					outputStream.write("HTTP/1.1 304 Not Modified\r\nETag: \"42\"\r\n\r\n".getBytes("UTF-8"));
+				} else {
+					byte[] body = Samples.GET_DOMAINS.getContentAsString().getBytes("UTF-8");
+					outputStream.write(new StringBuilder()
+							.append("HTTP/1.1 200 OK\r\n")
+							.append("Content-Type: application/json\r\n")
+							.append("ETag: \"42\"\r\n")
+							.append("Content-Length: ").append(body.length).append("\r\n")
+							.append("\r\n")
+							.toString().getBytes("UTF-8"));
+					outputStream.write(body);
+				}
+				outputStream.flush();
+			}
+		};
+		server.start();
+		RestService service = createRestService(new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.client());
+		RestResponseCache cache = new RestResponseCache();
+		service.setResponseCache(cache);
+		TestLink link = new TestLink("0 required parameter", server.getUrl().toString(), HttpMethod.GET);
+		OpenShiftJsonDTOFactory treeFactory = new OpenShiftJsonDTOFactory();
+		try {
+			// operation
+			RestResponse treeResponse = service.request(link, IHttpClient.NO_TIMEOUT, treeFactory,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			RestResponse listResponse = service.request(link, IHttpClient.NO_TIMEOUT, DataListJsonDTOFactory.DOMAINS,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			RestResponse cachedTreeResponse = service.request(link, IHttpClient.NO_TIMEOUT, treeFactory,
+					Collections.<Parameter> emptyList(), Collections.<Parameter> emptyList());
+			// verifications
+			assertThat(listResponse).isNotSameAs(treeResponse);
+			assertThat(server.getRequests().get(1)).doesNotContain("If-None-Match");
+			assertThat(cachedTreeResponse).isSameAs(treeResponse);
+			assertThat(cache.getCount()).isEqualTo(2);
+			assertThat(cache.getHits()).isEqualTo(1);
+			assertThat(cache.getMisses()).isEqualTo(2);
+		} finally {
+			server.stop();
+		}
+	}
+
+	private Link getDomainLink(String name) throws Exception {
+		List<DomainResourceDTO> domains =
+				new OpenShiftJsonDTOFactory().get(Samples.GET_DOMAINS.getContentAsString()).getData();
+		return domains.get(0).getLink(name);
+	}
+
+	private RestService createRestService() throws IOException {
+		return createRestService(clientMock);
+	}
+
+	private RestService createRestService(IHttpClient client) throws IOException {
+		OpenShiftTestConfiguration configuration = new OpenShiftTestConfiguration();
+		return new RestService(
+				configuration.getStagingServer(),
+				configuration.getClientId(),
+				new JsonMediaType(),
+				IHttpClient.MEDIATYPE_APPLICATION_JSON,
+				new OpenShiftJsonDTOFactory(),
+				client);
+	}
+
 	@Test
 	public void shouldNotAddServerToAbsUrl() throws Exception {
 		// operation
@@ -424,6 +1230,10 @@ public class RestServiceTest extends TestTimer {
 			super(rel, href, httpMethod);
 		}
 
+		public TestLink(String name, String rel, String href, HttpMethod httpMethod) {
+			super(name, rel, href, httpMethod, null, null, false);
+		}
+
 		public TestLink(String rel, String href, String httpMethod, List<LinkParameter> requiredParams,
 				List<LinkParameter> optionalParams) {
 			super(rel, href, httpMethod, requiredParams, optionalParams);
@@ -13,13 +13,19 @@ package com.openshift.internal.client;
 import static org.fest.assertions.Assertions.assertThat;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.openshift.client.IApplication;
+import com.openshift.client.IDomain;
+import com.openshift.client.IDomainApplicationsCallback;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IOpenShiftConnection;
 import com.openshift.client.IUser;
+import com.openshift.client.utils.Samples;
 import com.openshift.client.utils.TestConnectionFactory;
 
 /**
@@ -71,4 +77,47 @@ public class UserTest extends TestTimer {
 		// verifications
 		assertThat(user.getMaxGears()).isEqualTo(10);
 	}
+
+	@Test
+	public void shouldGetAllApplications() throws Throwable {
+		// pre-conditions
+		mockDirector
+				// applications of domain foogoo
+				.mockGetAny(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_NOAPPS.getContentAsString())
+				.mockGetDomains(Samples.GET_DOMAINS)
+				.mockGetApplications("foobarz", Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED);
+		// operation
+		List<IApplication> applications = user.getAllApplications();
+		// verifications
+		assertThat(applications).hasSize(2);
+		assertThat(applications.get(0).getDomain().getId()).isEqualTo("foobarz");
+		mockDirector
+				.verifyGetDomains()
+				.verifyGetApplications("foobarz", 1);
+	}
+
+	@Test
+	public void shouldStreamApplicationsOfAllDomains() throws Throwable {
+		// pre-conditions
+		mockDirector
+				// applications of domain foogoo
+				.mockGetAny(Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_NOAPPS.getContentAsString())
+				.mockGetDomains(Samples.GET_DOMAINS)
+				.mockGetApplications("foobarz", Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_1EMBEDDED);
+		((UserResource) user).setMaxParallelRequests(1);
+		final List<IDomain> domains = new ArrayList<IDomain>();
+		final List<IApplication> applications = new ArrayList<IApplication>();
+		// operation
+		user.getAllApplications(new IDomainApplicationsCallback() {
+
+			@Override
+			public void received(IDomain domain, List<IApplication> domainApplications) {
+				domains.add(domain);
+				applications.addAll(domainApplications);
+			}
+		});
+		// verifications
+		assertThat(domains).hasSize(2);
+		assertThat(applications).hasSize(2);
+	}
 }
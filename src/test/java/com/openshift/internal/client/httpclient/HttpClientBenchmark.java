@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2014 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package com.openshift.internal.client.httpclient;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.client.IHttpClient;
+import com.openshift.client.NoopSSLCertificateCallback;
+import com.openshift.client.fakes.KeepAliveHttpServerFake;
+import com.openshift.client.fakes.KeepAliveHttpsServerFake;
+
+/**
+ * Compares the default (connection per request) client with the pooled
+ * (keep-alive) client when many threads request the same server
+ * concurrently and the cached callback ssl socket factory with one that's
+ * created for each request. Not part of the test suite, run it manually and
+ * look at the console output.
+ * <p>
+ * There is no multiplexed (http/2) client to compare with: the jdk only
+ * ships one from java 11 on. Connection reuse is therefore limited to
+ * http/1.1 keep-alive as done by {@link HttpConnectionPool}.
+ * 
+ * @author Andre Dietisheim
+ */
+public class HttpClientBenchmark {
+
+	private static final int THREADS = 20;
+	private static final int REQUESTS_PER_THREAD = 50;
+	private static final String RESPONSE = "{\"status\":\"ok\",\"data\":[]}";
+
+	private KeepAliveHttpServerFake server;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws Exception {
+		this.server = new KeepAliveHttpsServerFake(new Random().nextInt(9 * 1024) + 1024, RESPONSE);
+		server.start();
+		this.executor = Executors.newFixedThreadPool(THREADS);
+	}
+
+	@After
+	public void tearDown() {
+		server.stop();
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void compareDefaultAndPooledClient() throws Exception {
+		IHttpClient defaultClient = createBuilder().client();
+		IHttpClient pooledClient = createBuilder()
+				.setConnectionPool(new HttpConnectionPool(THREADS, 30 * 1000, 10 * 60 * 1000))
+				.client();
+
+		// warm up
+		run(defaultClient);
+		run(pooledClient);
+
+		int connections = server.getConnections();
+		long defaultDuration = run(defaultClient);
+		int defaultConnections = server.getConnections() - connections;
+
+		connections = server.getConnections();
+		long pooledDuration = run(pooledClient);
+		int pooledConnections = server.getConnections() - connections;
+
+		System.out.println(String.format(
+				"%d requests on %d threads:\n"
+						+ "  default: %dms, %d connections\n"
+						+ "  pooled:  %dms, %d connections",
+				THREADS * REQUESTS_PER_THREAD, THREADS,
+				defaultDuration, defaultConnections,
+				pooledDuration, pooledConnections));
+		assertThat(pooledConnections).isLessThan(defaultConnections);
+	}
+
+	@Test
+	public void compareCachedAndPerRequestCallbackSocketFactory() throws Exception {
+		UrlConnectionHttpClient client = (UrlConnectionHttpClient) createBuilder().client();
+		URL url = server.getUrl();
+
+		// warm up
+		runSequential(client, url, false);
+		runSequential(client, url, true);
+
+		long cachedDuration = runSequential(client, url, false);
+		long perRequestDuration = runSequential(client, url, true);
+
+		System.out.println(String.format(
+				"%d sequential requests:\n"
+						+ "  cached socket factory:      %dms\n"
+						+ "  per request socket factory: %dms",
+				REQUESTS_PER_THREAD, cachedDuration, perRequestDuration));
+	}
+
+	/**
+	 * Requests the given url in sequence, optionally dropping the callback
+	 * socket factory (and its ssl sessions) before each request.
+	 */
+	private long runSequential(UrlConnectionHttpClient client, URL url, boolean perRequestSocketFactory)
+			throws Exception {
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+			if (perRequestSocketFactory) {
+				client.invalidateSSLContext();
+			}
+			client.get(url, IHttpClient.NO_TIMEOUT);
+		}
+		return System.currentTimeMillis() - start;
+	}
+
+	private long run(final IHttpClient client) throws Exception {
+		final URL url = server.getUrl();
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+						client.get(url, IHttpClient.NO_TIMEOUT);
+					}
+					return null;
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		return System.currentTimeMillis() - start;
+	}
+
+	private UrlConnectionHttpClientBuilder createBuilder() {
+		return new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(IHttpClient.MEDIATYPE_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setCredentials("username", "password")
+				.setSSLCertificateCallback(new NoopSSLCertificateCallback());
+	}
+}
@@ -17,10 +17,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
@@ -29,6 +33,7 @@ import java.security.cert.X509Certificate;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -36,9 +41,15 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLParameters;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
 
 import com.openshift.client.configuration.*;
 import com.openshift.client.fakes.*;
@@ -48,9 +59,15 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 
+import com.openshift.client.HttpMethod;
+import com.openshift.client.IAsyncHttpClient;
+import com.openshift.client.IAsyncHttpClient.IHttpCallback;
 import com.openshift.client.IHttpClient;
 import com.openshift.client.IHttpClient.ISSLCertificateCallback;
+import com.openshift.client.NoopSSLCertificateCallback;
 import com.openshift.client.OpenShiftException;
 import com.openshift.client.utils.Base64Coder;
 import com.openshift.client.utils.ExceptionCauseMatcher;
@@ -215,6 +232,34 @@ public class HttpClientTest extends TestTimer {
 		client.get(httpsServerFake.getUrl(), IHttpClient.NO_TIMEOUT);
 	}
 	
+	@Test
+	public void shouldReuseSSLSocketFactoryForCallback() throws Throwable {
+		// pre-conditions
+		SSLCallbackClientFake client = new SSLCallbackClientFake(new NoopSSLCertificateCallback());
+		URL url = httpsServerFake.getUrl();
+
+		// operation
+		SSLSocketFactory socketFactory = client.getSSLSocketFactory(url);
+
+		// verification
+		assertNotNull(socketFactory);
+		assertThat(client.getSSLSocketFactory(url)).isSameAs(socketFactory);
+	}
+
+	@Test
+	public void shouldRecreateSSLSocketFactoryIfInvalidated() throws Throwable {
+		// pre-conditions
+		SSLCallbackClientFake client = new SSLCallbackClientFake(new NoopSSLCertificateCallback());
+		URL url = httpsServerFake.getUrl();
+		SSLSocketFactory socketFactory = client.getSSLSocketFactory(url);
+
+		// operation
+		client.invalidateSSLContext();
+
+		// verification
+		assertThat(client.getSSLSocketFactory(url)).isNotSameAs(socketFactory);
+	}
+
 	@Test
 	public void canAddAuthorization() throws SocketTimeoutException, HttpClientException, MalformedURLException {
 		String username = "andre.dietisheim@redhat.com";
@@ -237,6 +282,32 @@ public class HttpClientTest extends TestTimer {
 		assertEquals(username + ":" + password, cleartextCredentials);
 	}
 
+	@Test
+	public void shouldAuthorizeWithRefreshedToken() throws Exception {
+		// pre-conditions
+		TokenCredentialsProvider credentialsProvider = new TokenCredentialsProvider("token1");
+		IHttpClient httpClient = new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setCredentials("username", "password")
+				.setCredentialsProvider(credentialsProvider)
+				.client();
+		String response = httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
+		assertThat(response).contains("Authorization: Bearer token1");
+		HttpServerFake server = null;
+		try {
+			server = startHttpServerFake(null);
+			// operation
+			credentialsProvider.setToken("token2");
+			response = httpClient.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			// verifications
+			assertThat(response).contains("Authorization: Bearer token2");
+			assertThat(response).doesNotContain("Basic");
+		} finally {
+			server.stop();
+		}
+	}
+
 	@Test
 	public void shouldAcceptJson() throws SocketTimeoutException, HttpClientException, MalformedURLException {
 		String response = httpClient.get(serverFake.getUrl(), IHttpClient.NO_TIMEOUT);
@@ -623,6 +694,285 @@ public class HttpClientTest extends TestTimer {
 		}
 	}
 
+	@Test
+	public void shouldReuseConnectionIfPooled() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake server = startKeepAliveHttpServerFake("{}");
+		HttpConnectionPool pool = new HttpConnectionPool();
+		IHttpClient client = new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.setConnectionPool(pool)
+				.client();
+		try {
+			// operation
+			for (int i = 0; i < 5; i++) {
+				assertThat(client.get(server.getUrl(), IHttpClient.NO_TIMEOUT)).startsWith("{}");
+			}
+			// verification
+			assertThat(server.getConnections()).isEqualTo(1);
+			assertThat(server.getRequests()).hasSize(5);
+			assertThat(pool.getStatistics().getLeases()).isEqualTo(5);
+			assertThat(pool.getStatistics().getLeased()).isEqualTo(0);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldNotReuseConnectionIfNotPooled() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake server = startKeepAliveHttpServerFake("{}");
+		try {
+			// operation
+			for (int i = 0; i < 3; i++) {
+				httpClient.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			}
+			// verification
+			assertThat(server.getConnections()).isEqualTo(3);
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldThrowIfNoPooledConnectionAvailableWithinTimeout() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool(1, 1000, 1000);
+		URL url = serverFake.getUrl();
+		pool.lease(url, IHttpClient.NO_TIMEOUT);
+		try {
+			// operation
+			pool.lease(url, 100);
+			fail("HttpClientException expected");
+		} catch (HttpClientException e) {
+			// verification
+			assertThat(pool.getStatistics().getWaits()).isEqualTo(1);
+		} finally {
+			pool.release(url, null, false);
+		}
+	}
+
+	@Test
+	public void shouldDisconnectInsteadOfDrainingIfNoResponse() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool();
+		URL url = serverFake.getUrl();
+		HttpURLConnection connection = Mockito.mock(HttpURLConnection.class);
+		pool.lease(url, IHttpClient.NO_TIMEOUT);
+		// operation
+		pool.release(url, connection, false);
+		// verification
+		Mockito.verify(connection).disconnect();
+		Mockito.verify(connection, Mockito.never()).getInputStream();
+		assertThat(pool.getStatistics().getLeased()).isEqualTo(0);
+	}
+
+	@Test
+	public void shouldEvictIdleSocketsWhileConnectionsAreLeased() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool(5, 1, 60 * 1000);
+		URL url = serverFake.getUrl();
+		SSLSocket idleSocket = Mockito.mock(SSLSocket.class);
+		SSLSocket closedSocket = Mockito.mock(SSLSocket.class);
+		Mockito.when(closedSocket.isClosed()).thenReturn(true);
+		SSLSocketFactory socketFactory = Mockito.mock(SSLSocketFactory.class);
+		Mockito.when(socketFactory.createSocket()).thenReturn(idleSocket, closedSocket);
+		SSLSocketFactory pooledFactory = pool.getSocketFactory(socketFactory);
+		pooledFactory.createSocket();
+		pooledFactory.createSocket();
+		pool.lease(url, IHttpClient.NO_TIMEOUT);
+		pool.lease(url, IHttpClient.NO_TIMEOUT);
+		Thread.sleep(10);
+		// operation
+		pool.release(url, null, false);
+		// verification
+		Mockito.verify(idleSocket).close();
+		assertThat(pool.getStatistics().getEvicted()).isEqualTo(1);
+		assertThat(pool.getStatistics().getOpen()).isEqualTo(0);
+		assertThat(pool.getStatistics().getLeased()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldGetAsyncWithoutBlockingCaller() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake server = startKeepAliveHttpServerFake("{}");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		IAsyncHttpClient client = new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setUserAgent("com.openshift.client.test")
+				.asyncClient(executor);
+		try {
+			// operation
+			Future<String> response = client.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			// verification
+			assertThat(response.get(10, TimeUnit.SECONDS)).startsWith("{}");
+			assertThat(server.getRequests()).hasSize(1);
+		} finally {
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldReportAsyncFailureAsCauseOfExecutionException() throws Throwable {
+		// pre-conditions
+		IHttpClient blockingClient = Mockito.mock(IHttpClient.class);
+		URL url = new URL("https://openshift.redhat.com/broker/rest/domains/foobar");
+		Mockito.when(blockingClient.get(url, IHttpClient.NO_TIMEOUT)).thenThrow(new NotFoundException("not found (mock)"));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// operation
+			new AsyncHttpClient(blockingClient, executor).get(url, IHttpClient.NO_TIMEOUT).get(10, TimeUnit.SECONDS);
+			fail("ExecutionException expected");
+		} catch (ExecutionException e) {
+			// verification
+			assertThat(e.getCause()).isInstanceOf(NotFoundException.class);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldNotifyAsyncCallback() throws Throwable {
+		// pre-conditions
+		IHttpClient blockingClient = Mockito.mock(IHttpClient.class);
+		URL url = new URL("https://openshift.redhat.com/broker/rest/api");
+		URL notFoundUrl = new URL("https://openshift.redhat.com/broker/rest/domains/foobar");
+		Mockito.when(blockingClient.get(url, IHttpClient.NO_TIMEOUT)).thenReturn("{}");
+		NotFoundException notFound = new NotFoundException("not found (mock)");
+		Mockito.when(blockingClient.get(notFoundUrl, IHttpClient.NO_TIMEOUT)).thenThrow(notFound);
+		IHttpCallback callback = Mockito.mock(IHttpCallback.class);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		IAsyncHttpClient client = new AsyncHttpClient(blockingClient, executor);
+		try {
+			// operation
+			waitFor(client.request(HttpMethod.GET, url, null, IHttpClient.NO_TIMEOUT, callback));
+			waitFor(client.request(HttpMethod.GET, notFoundUrl, null, IHttpClient.NO_TIMEOUT, callback));
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+			// verification
+			Mockito.verify(callback).completed("{}");
+			Mockito.verify(callback).failed(notFound);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void waitFor(Future<String> response) throws InterruptedException, TimeoutException {
+		try {
+			response.get(10, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			// expected for failing requests
+		}
+	}
+
+	@Test
+	public void shouldIndicateServerNameOnPooledSockets() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool();
+		SSLSocket socket = Mockito.mock(SSLSocket.class);
+		Mockito.when(socket.getSSLParameters()).thenReturn(new SSLParameters());
+		SSLSocketFactory socketFactory = Mockito.mock(SSLSocketFactory.class);
+		Mockito.when(socketFactory.createSocket()).thenReturn(socket);
+		InetAddress address = InetAddress.getByAddress("openshift.redhat.com", new byte[] { 127, 0, 0, 1 });
+		// operation
+		pool.getSocketFactory(socketFactory).createSocket().connect(new InetSocketAddress(address, 443), 1000);
+		// verification
+		ArgumentCaptor<SSLParameters> parameters = ArgumentCaptor.forClass(SSLParameters.class);
+		Mockito.verify(socket).setSSLParameters(parameters.capture());
+		assertThat(parameters.getValue().getServerNames())
+				.containsOnly(new SNIHostName("openshift.redhat.com"));
+	}
+
+	@Test
+	public void shouldNotIndicateIpAddressAsServerName() throws Throwable {
+		// pre-conditions
+		HttpConnectionPool pool = new HttpConnectionPool();
+		SSLSocket socket = Mockito.mock(SSLSocket.class);
+		Mockito.when(socket.getSSLParameters()).thenReturn(new SSLParameters());
+		SSLSocketFactory socketFactory = Mockito.mock(SSLSocketFactory.class);
+		Mockito.when(socketFactory.createSocket()).thenReturn(socket);
+		// operation
+		pool.getSocketFactory(socketFactory).createSocket().connect(new InetSocketAddress("127.0.0.1", 443), 1000);
+		// verification
+		Mockito.verify(socket, Mockito.never()).setSSLParameters(Mockito.any(SSLParameters.class));
+	}
+
+	@Test
+	public void shouldAcceptCompressedResponseIfCompressionEnabled() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake server = startKeepAliveHttpServerFake("{}");
+		IHttpClient client = new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setCompression(true)
+				.client();
+		try {
+			// operation
+			client.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			// verification
+			assertThat(server.getRequests().get(0)).contains("Accept-Encoding: gzip, deflate");
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldNotAcceptCompressedResponseByDefault() throws Throwable {
+		// pre-conditions
+		KeepAliveHttpServerFake server = startKeepAliveHttpServerFake("{}");
+		try {
+			// operation
+			httpClient.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			// verification
+			assertThat(server.getRequests().get(0)).doesNotContain("Accept-Encoding: gzip");
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void shouldDecompressGzipResponse() throws Throwable {
+		// pre-conditions
+		final String response = "{\"data\":[\"a\",\"a\",\"a\",\"a\",\"a\",\"a\",\"a\",\"a\",\"a\",\"a\"]}";
+		KeepAliveHttpServerFake server = 
+				new KeepAliveHttpServerFake(new Random().nextInt(9 * 1024) + 1024, response) {
+
+			@Override
+			protected void writeResponse(String request, OutputStream outputStream) throws IOException {
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+				GZIPOutputStream gzipStream = new GZIPOutputStream(compressed);
+				gzipStream.write(response.getBytes("UTF-8"));
+				gzipStream.close();
+				outputStream.write(new StringBuilder()
+						.append("HTTP/1.1 200 OK\r\n")
+						.append("Content-Encoding: gzip\r\n")
+						.append("Content-Length: ").append(compressed.size()).append("\r\n")
+						.append("\r\n")
+						.toString().getBytes("UTF-8"));
+				outputStream.write(compressed.toByteArray());
+				outputStream.flush();
+			}
+		};
+		server.start();
+		UrlConnectionHttpClient client = (UrlConnectionHttpClient) new UrlConnectionHttpClientBuilder()
+				.setAcceptMediaType(ACCEPT_APPLICATION_JSON)
+				.setCompression(true)
+				.client();
+		try {
+			// operation
+			String received = client.get(server.getUrl(), IHttpClient.NO_TIMEOUT);
+			// verification
+			assertThat(received.trim()).isEqualTo(response);
+			assertThat(client.getUncompressedBytes()).isEqualTo(response.getBytes("UTF-8").length);
+			assertThat(client.getCompressedBytes())
+					.isGreaterThan(0)
+					.isLessThan(client.getUncompressedBytes());
+		} finally {
+			server.stop();
+		}
+	}
+
 	private HttpServerFake startHttpServerFake(String statusLine) throws Exception {
 		int port = new Random().nextInt(9 * 1024) + 1024;
 		HttpServerFake serverFake = null;
@@ -647,6 +997,13 @@ public class HttpClientTest extends TestTimer {
 		return serverFake;
 	}
 	
+	private KeepAliveHttpServerFake startKeepAliveHttpServerFake(String response) throws Exception {
+		int port = new Random().nextInt(9 * 1024) + 1024;
+		KeepAliveHttpServerFake serverFake = new KeepAliveHttpServerFake(port, response);
+		serverFake.start();
+		return serverFake;
+	}
+
 	private WaitingHttpServerFake startWaitingHttpServerFake(int delay) throws Exception {
 		WaitingHttpServerFake serverFake = new WaitingHttpServerFake(delay);
 		serverFake.start();
@@ -665,6 +1022,17 @@ public class HttpClientTest extends TestTimer {
 
 	}
 
+	private class SSLCallbackClientFake extends UrlConnectionHttpClientFake {
+
+		public SSLCallbackClientFake(ISSLCertificateCallback callback) {
+			super(null, null, callback);
+		}
+
+		public SSLSocketFactory getSSLSocketFactory(URL url) throws IOException {
+			return ((HttpsURLConnection) createConnection(url)).getSSLSocketFactory();
+		}
+	}
+
 	private class AcceptVersionClientFake extends UrlConnectionHttpClientFake {
 
 		public AcceptVersionClientFake(String acceptVersion) {
@@ -688,7 +1056,11 @@ public class HttpClientTest extends TestTimer {
 		}
 		
 		public HttpURLConnection createConnection() throws IOException, KeyStoreException {
-			return super.createConnection(new URL("http://localhost"), username, password, authKey, authIV,
+			return createConnection(new URL("http://localhost"));
+		}
+
+		public HttpURLConnection createConnection(URL url) throws IOException {
+			return super.createConnection(url, username, password, authKey, authIV,
 					userAgent, acceptedVersion, acceptedMediaType, sslAuthorizationCallback, NO_TIMEOUT);
 		}
 	};
@@ -13,7 +13,12 @@ package com.openshift.internal.client.response;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -26,12 +31,14 @@ import com.openshift.client.HttpMethod;
 import com.openshift.client.IField;
 import com.openshift.client.Message;
 import com.openshift.client.Messages;
+import com.openshift.client.OpenShiftException;
 import com.openshift.client.utils.CartridgeTestUtils;
 import com.openshift.client.utils.MessageAssert;
 import com.openshift.client.utils.ResourcePropertyAssert;
 import com.openshift.client.utils.Samples;
 import com.openshift.internal.client.CartridgeType;
 import com.openshift.internal.client.GearProfile;
+import com.openshift.internal.client.utils.StreamUtils;
 
 public class OpenShiftJsonDTOFactoryTest {
 
@@ -99,6 +106,33 @@ public class OpenShiftJsonDTOFactoryTest {
 		assertThat(key.getContent()).isEqualTo("ABBA");
 	}
 
+	@Test
+	public void shouldUnmarshallGetUserSingleKeyResponseStream() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_USER_KEYS_1KEY.getContentAsString();
+		assertNotNull(content);
+		// operation
+		RestResponse response = factory.get(new ByteArrayInputStream(content.getBytes(StreamUtils.UTF_8)));
+		// verifications
+		assertThat(response.getDataType()).isEqualTo(EnumDataType.keys);
+		List<KeyResourceDTO> keys = response.getData();
+		assertThat(keys).hasSize(1);
+		final KeyResourceDTO key = keys.get(0);
+		assertThat(key.getLinks()).hasSize(3);
+		assertThat(key.getName()).isEqualTo("somekey");
+		assertThat(key.getType()).isEqualTo("ssh-rsa");
+		assertThat(key.getContent()).isEqualTo("ABBA");
+	}
+
+	@Test
+	public void shouldReturnNullForBlankResponseStream() throws Throwable {
+		// pre-conditions
+		// operation
+		RestResponse response = factory.get(new ByteArrayInputStream(" \n\t ".getBytes(StreamUtils.UTF_8)));
+		// verifications
+		assertThat(response).isNull();
+	}
+
 	@Test
 	public void shouldUnmarshallGetUserMultipleKeyResponseBody() throws Throwable {
 		// pre-conditions
@@ -149,6 +183,7 @@ public class OpenShiftJsonDTOFactoryTest {
 		final Link link = domainDTO.getLink(LINK_ADD_APPLICATION);
 		assertThat(link).isNotNull();
 		assertThat(link.getHref()).isEqualTo("https://openshift.redhat.com/broker/rest/domains/foobarz/applications");
+		assertThat(link.getName()).isEqualTo(LINK_ADD_APPLICATION);
 		assertThat(link.getRel()).isEqualTo("Create new application");
 		assertThat(link.getHttpMethod()).isEqualTo(HttpMethod.POST);
 		final List<LinkParameter> requiredParams = link.getRequiredParams();
@@ -240,6 +275,146 @@ public class OpenShiftJsonDTOFactoryTest {
 				"username", "password", "database_name", "connection_url");
 	}
 
+	@Test
+	public void shouldIterateApplicationsInResponseStream() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString();
+		List<ApplicationResourceDTO> expected = factory.get(content).getData();
+		// operation
+		Iterator<ApplicationResourceDTO> applications =
+				new OpenShiftJsonDTOFactory().getApplications(toStream(content));
+		// verifications
+		for (ApplicationResourceDTO expectedApplication : expected) {
+			assertThat(applications.hasNext()).isTrue();
+			ApplicationResourceDTO application = applications.next();
+			assertThat(application.getName()).isEqualTo(expectedApplication.getName());
+			assertThat(application.getUuid()).isEqualTo(expectedApplication.getUuid());
+			assertThat(application.getAliases()).isEqualTo(expectedApplication.getAliases());
+			assertThat(application.getCartridges().keySet()).isEqualTo(expectedApplication.getCartridges().keySet());
+			assertThat(application.getLinks().keySet()).isEqualTo(expectedApplication.getLinks().keySet());
+		}
+		assertThat(applications.hasNext()).isFalse();
+	}
+
+	@Test
+	public void shouldNotifyCallbackOfEachCartridgeInResponseStream() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_SPRINGEAP6_CARTRIDGES_2EMBEDDED.getContentAsString();
+		final List<CartridgeResourceDTO> cartridges = new ArrayList<CartridgeResourceDTO>();
+		// operation
+		new OpenShiftJsonDTOFactory().getCartridges(toStream(content),
+				new IResourceDTOCallback<CartridgeResourceDTO>() {
+
+					@Override
+					public void received(CartridgeResourceDTO cartridge) {
+						cartridges.add(cartridge);
+					}
+				});
+		// verifications
+		assertThat(cartridges).onProperty("name").containsExactly(
+				CartridgeTestUtils.JBOSSEAP_6_NAME,
+				CartridgeTestUtils.MONGODB_22_NAME,
+				CartridgeTestUtils.MYSQL_51_NAME);
+	}
+
+	@Test
+	public void shouldMarkIdempotentLinks() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString();
+		// operation
+		List<ApplicationResourceDTO> applications = factory.get(content).getData();
+		// verifications
+		ApplicationResourceDTO application = applications.get(0);
+		assertThat(application.getLink("START").isIdempotent()).isTrue();
+		assertThat(application.getLink("STOP").isIdempotent()).isTrue();
+		assertThat(application.getLink("DELETE").isIdempotent()).isTrue();
+		assertThat(application.getLink("RESTART").isIdempotent()).isFalse();
+		assertThat(application.getLink("SCALE_UP").isIdempotent()).isFalse();
+		assertThat(application.getLink("ADD_CARTRIDGE").isIdempotent()).isFalse();
+		CartridgeResourceDTO cartridge = application.getCartridges().values().iterator().next();
+		assertThat(cartridge.getLinks().get("START").isIdempotent()).isTrue();
+		assertThat(cartridge.getLinks().get("RESTART").isIdempotent()).isFalse();
+	}
+
+	@Test
+	public void shouldCreateDataListsLikeTreeFactory() throws Throwable {
+		// pre-conditions
+		String applicationsContent = Samples.GET_DOMAINS_FOOBARZ_APPLICATIONS_2EMBEDDED.getContentAsString();
+		String domainsContent = Samples.GET_DOMAINS.getContentAsString();
+		String cartridgesContent = Samples.GET_CARTRIDGES.getContentAsString();
+		// operation
+		RestResponse applications = DataListJsonDTOFactory.APPLICATIONS.get(applicationsContent);
+		RestResponse domains = DataListJsonDTOFactory.DOMAINS.get(domainsContent);
+		RestResponse cartridges = DataListJsonDTOFactory.CARTRIDGES.get(cartridgesContent);
+		// verifications
+		assertThat(applications.getDataType()).isEqualTo(EnumDataType.applications);
+		RestResponse expectedApplicationsResponse = factory.get(applicationsContent);
+		assertThat(applications.getStatus()).isEqualTo(expectedApplicationsResponse.getStatus());
+		assertThat(applications.getMessages().getAll()).onProperty("text").containsExactly("Found 2 applications.");
+		assertThat(applications.getMessages().toString()).isEqualTo(
+				expectedApplicationsResponse.getMessages().toString());
+		List<ApplicationResourceDTO> expectedApplications = expectedApplicationsResponse.getData();
+		assertThat(applications.<List<ApplicationResourceDTO>> getData()).onProperty("name").isEqualTo(
+				getNames(expectedApplications));
+		assertThat(domains.getDataType()).isEqualTo(EnumDataType.domains);
+		assertThat(domains.getStatus()).isEqualTo("ok");
+		assertThat(domains.getMessages().size()).isEqualTo(0);
+		List<DomainResourceDTO> expectedDomains = factory.get(domainsContent).getData();
+		assertThat(domains.<List<DomainResourceDTO>> getData()).onProperty("id").isEqualTo(
+				getIds(expectedDomains));
+		assertThat(cartridges.getDataType()).isEqualTo(EnumDataType.cartridges);
+		Map<String, CartridgeResourceDTO> expectedCartridges = factory.get(cartridgesContent).getData();
+		assertThat(cartridges.<Map<String, CartridgeResourceDTO>> getData().keySet()).isEqualTo(
+				expectedCartridges.keySet());
+		assertThat(DataListJsonDTOFactory.DOMAINS.get("")).isNull();
+	}
+
+	@Test
+	public void shouldIterateNoDomainsInEmptyResponseStream() throws Throwable {
+		// pre-conditions
+		OpenShiftJsonDTOFactory factory = new OpenShiftJsonDTOFactory();
+		// operation
+		// verifications
+		assertThat(factory.getDomains(toStream(Samples.GET_DOMAINS_EMPTY.getContentAsString())).hasNext()).isFalse();
+		assertThat(factory.getDomains(toStream("")).hasNext()).isFalse();
+		assertThat(factory.getDomains(toStream("{\"data\":null,\"type\":\"domains\"}")).hasNext()).isFalse();
+	}
+
+	@Test
+	public void shouldKeepMessagesBeforeAndAfterDataList() throws Throwable {
+		// pre-conditions
+		String before = "{\"messages\":[{\"text\":\"before\",\"severity\":\"info\"}],"
+				+ "\"data\":[],\"status\":\"ok\"}";
+		String after = "{\"data\":null,\"status\":\"ok\","
+				+ "\"messages\":[{\"text\":\"after\",\"severity\":\"warning\"}]}";
+		// operation
+		RestResponse beforeResponse = DataListJsonDTOFactory.DOMAINS.get(before);
+		RestResponse afterResponse = DataListJsonDTOFactory.DOMAINS.get(after);
+		// verifications
+		assertThat(beforeResponse.<List<DomainResourceDTO>> getData()).isEmpty();
+		assertThat(beforeResponse.getStatus()).isEqualTo("ok");
+		assertThat(beforeResponse.getMessages().getAll()).onProperty("text").containsExactly("before");
+		assertThat(afterResponse.<List<DomainResourceDTO>> getData()).isEmpty();
+		assertThat(afterResponse.getMessages().getAll()).onProperty("text").containsExactly("after");
+	}
+
+	@Test(expected = OpenShiftException.class)
+	public void shouldThrowOnTruncatedResponseStream() throws Throwable {
+		// pre-conditions
+		String content = Samples.GET_DOMAINS.getContentAsString();
+		Iterator<DomainResourceDTO> domains =
+				new OpenShiftJsonDTOFactory().getDomains(toStream(content.substring(0, content.length() / 2)));
+		// operation
+		while (domains.hasNext()) {
+			domains.next();
+		}
+		// verifications
+	}
+
+	private InputStream toStream(String content) throws UnsupportedEncodingException {
+		return new ByteArrayInputStream(content.getBytes(StreamUtils.UTF_8));
+	}
+
 	/**
 	 * Should unmarshall get application response body.
 	 * 
@@ -450,4 +625,19 @@ public class OpenShiftJsonDTOFactoryTest {
 		assertThat(linkParameter.getType()).isNotNull().isEqualTo(new LinkParameterType("unknown"));
 	}
 
+	private List<String> getNames(List<ApplicationResourceDTO> applications) {
+		List<String> names = new ArrayList<String>();
+		for (ApplicationResourceDTO application : applications) {
+			names.add(application.getName());
+		}
+		return names;
+	}
+
+	private List<String> getIds(List<DomainResourceDTO> domains) {
+		List<String> ids = new ArrayList<String>();
+		for (DomainResourceDTO domain : domains) {
+			ids.add(domain.getId());
+		}
+		return ids;
+	}
 }